@@ -0,0 +1,100 @@
+package com.bank.credit.service.mapper;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.CustomerDto;
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.model.InstallmentSchedule;
+import com.bank.credit.service.model.Loan;
+import com.bank.credit.service.model.LoanInstallment;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Times the MapStruct mappers on the request paths: customers and loans both ways, and the installments of a loan
+ * from rows and from a compact schedule, per installment count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private static final Long LOAN_ID = 1L;
+
+    @Param({"6", "24"})
+    private int numberOfInstallment;
+
+    private final CustomerMapper customerMapper = Mappers.getMapper(CustomerMapper.class);
+    private final LoanMapper loanMapper = Mappers.getMapper(LoanMapper.class);
+    private final InstallmentMapper installmentMapper = Mappers.getMapper(InstallmentMapper.class);
+
+    private Customer customer;
+    private CustomerDto customerDto;
+    private Loan loan;
+    private CreditDto creditDto;
+    private BigDecimal totalAmount;
+    private List<LoanInstallment> installments;
+    private InstallmentSchedule schedule;
+
+    @Setup
+    public void setUp() {
+        customerDto = new CustomerDto(null, "name", "surname", new BigDecimal("100000"), BigDecimal.ZERO);
+        customer = customerMapper.toEntity(customerDto);
+        creditDto = new CreditDto(null, 1L, new BigDecimal("10000"), numberOfInstallment, new BigDecimal("0.2"));
+        totalAmount = new BigDecimal("12000.0");
+        loan = loanMapper.toEntity(creditDto, customer, totalAmount);
+
+        BigDecimal amount = new BigDecimal("500.00");
+        LocalDate firstDueDate = LocalDate.now().with(TemporalAdjusters.firstDayOfNextMonth());
+        installments = IntStream.range(0, numberOfInstallment)
+                .mapToObj(i -> {
+                    LoanInstallment installment = new LoanInstallment();
+                    installment.setAmount(amount);
+                    installment.setDueDate(firstDueDate.plusMonths(i));
+                    installment.setLoan(loan);
+                    return installment;
+                })
+                .toList();
+        schedule = InstallmentSchedule.unpaid(firstDueDate, numberOfInstallment, amount);
+    }
+
+    @Benchmark
+    public CustomerDto customerToDto() {
+        return customerMapper.toDto(customer);
+    }
+
+    @Benchmark
+    public Customer customerToEntity() {
+        return customerMapper.toEntity(customerDto);
+    }
+
+    @Benchmark
+    public CreditDto loanToDto() {
+        return loanMapper.toDto(loan);
+    }
+
+    @Benchmark
+    public Loan loanToEntity() {
+        return loanMapper.toEntity(creditDto, customer, totalAmount);
+    }
+
+    @Benchmark
+    public List<InstallmentDto> installmentRowsToDtos() {
+        return installmentMapper.toDtoList(installments);
+    }
+
+    @Benchmark
+    public List<InstallmentDto> scheduleToDtos() {
+        return installmentMapper.toDtoList(LOAN_ID, schedule);
+    }
+}
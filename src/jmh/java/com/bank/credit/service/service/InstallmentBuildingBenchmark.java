@@ -0,0 +1,75 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.model.InstallmentSchedule;
+import com.bank.credit.service.model.Loan;
+import com.bank.credit.service.model.LoanInstallment;
+import com.bank.credit.service.util.AmortizationMethod;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times building the installments of one new loan per installment count: the rows of a flat loan
+ * ({@link LoanInstallmentService#buildLoanInstallments(Loan)}), its compact schedule, and the rows of the amortized
+ * methods. The templates are warm, as they are for every loan but the first of a month.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstallmentBuildingBenchmark {
+
+    private static final BigDecimal PRINCIPAL = new BigDecimal("10000");
+
+    @Param({"6", "9", "12", "24"})
+    private int numberOfInstallment;
+
+    private LoanInstallmentService loanInstallmentService;
+    private Loan flatLoan;
+    private Loan annuityLoan;
+    private Loan decliningBalanceLoan;
+
+    @Setup
+    public void setUp() {
+        // only the schedule building is measured, which needs no repositories
+        loanInstallmentService = new LoanInstallmentService(null, null, null, null,
+                new ScheduleTemplates(new SimpleMeterRegistry(), 10_000), null, null, null, 500, InstallmentStorage.ROWS);
+        flatLoan = loan(AmortizationMethod.FLAT, new BigDecimal("0.2"));
+        annuityLoan = loan(AmortizationMethod.ANNUITY, new BigDecimal("0.12"));
+        decliningBalanceLoan = loan(AmortizationMethod.DECLINING_BALANCE, new BigDecimal("0.12"));
+    }
+
+    @Benchmark
+    public List<LoanInstallment> buildLoanInstallments() {
+        return loanInstallmentService.buildLoanInstallments(flatLoan);
+    }
+
+    @Benchmark
+    public InstallmentSchedule buildSchedule() {
+        return loanInstallmentService.buildSchedule(flatLoan);
+    }
+
+    @Benchmark
+    public List<LoanInstallment> buildAnnuityInstallments() {
+        return loanInstallmentService.buildAmortizedInstallments(annuityLoan, PRINCIPAL);
+    }
+
+    @Benchmark
+    public List<LoanInstallment> buildDecliningBalanceInstallments() {
+        return loanInstallmentService.buildAmortizedInstallments(decliningBalanceLoan, PRINCIPAL);
+    }
+
+    private Loan loan(AmortizationMethod method, BigDecimal interestRate) {
+        Loan loan = new Loan();
+        loan.setAmortizationMethod(method);
+        loan.setInterestRate(interestRate);
+        loan.setNumberOfInstallment(numberOfInstallment);
+        loan.setLoanAmount(method.totalRepayment(PRINCIPAL, interestRate, numberOfInstallment));
+        return loan;
+    }
+}
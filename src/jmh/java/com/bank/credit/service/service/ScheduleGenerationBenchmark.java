@@ -0,0 +1,88 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.model.Loan;
+import com.bank.credit.service.model.LoanInstallment;
+import com.bank.credit.service.util.LoanCalculator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares building the installments of a batch of new loans with {@link ScheduleTemplates} against computing every
+ * due date and amount per loan, as {@link LoanInstallmentService#buildLoanInstallments(Loan)} did before.
+ * <p>
+ * {@code distinctAmounts} controls how often loan amounts repeat within the batch: a few product amounts in bulk
+ * origination, or nearly every loan with its own amount, which defeats the amount cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduleGenerationBenchmark {
+
+    private static final int[] INSTALLMENT_COUNTS = {6, 9, 12, 24};
+
+    @Param({"1000"})
+    private int batchSize;
+
+    @Param({"16", "1000000"})
+    private int distinctAmounts;
+
+    private List<Loan> loans;
+    private LoanInstallmentService loanInstallmentService;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        loans = IntStream.range(0, batchSize)
+                .mapToObj(i -> {
+                    Loan loan = new Loan();
+                    loan.setLoanAmount(BigDecimal.valueOf(1000L + random.nextInt(distinctAmounts) * 50L));
+                    loan.setNumberOfInstallment(INSTALLMENT_COUNTS[random.nextInt(INSTALLMENT_COUNTS.length)]);
+                    return loan;
+                })
+                .toList();
+        // only the schedule building is measured, which needs no repositories
+        loanInstallmentService = new LoanInstallmentService(null, null, null, null,
+                new ScheduleTemplates(new SimpleMeterRegistry(), 10_000), null, null, null, 500, InstallmentStorage.ROWS);
+    }
+
+    @Benchmark
+    public void computedPerLoan(Blackhole blackhole) {
+        for (Loan loan : loans) {
+            blackhole.consume(computeInstallments(loan));
+        }
+    }
+
+    @Benchmark
+    public void templated(Blackhole blackhole) {
+        for (Loan loan : loans) {
+            blackhole.consume(loanInstallmentService.buildLoanInstallments(loan));
+        }
+    }
+
+    private static List<LoanInstallment> computeInstallments(Loan loan) {
+        BigDecimal amount = LoanCalculator.calculateInstallmentAmount(loan.getLoanAmount(), loan.getNumberOfInstallment());
+        LocalDate firstOfNextMonth = LocalDate.now().with(TemporalAdjusters.firstDayOfNextMonth());
+
+        return IntStream.range(0, loan.getNumberOfInstallment())
+                .mapToObj(i -> {
+                    LoanInstallment installment = new LoanInstallment();
+                    installment.setAmount(amount);
+                    installment.setDueDate(firstOfNextMonth.plusMonths(i));
+                    installment.setLoan(loan);
+                    return installment;
+                })
+                .toList();
+    }
+}
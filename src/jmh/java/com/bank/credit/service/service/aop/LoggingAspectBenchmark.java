@@ -0,0 +1,89 @@
+package com.bank.credit.service.service.aop;
+
+import com.bank.credit.service.service.ScheduleTemplates;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what {@link LoggingAspect#recordExecutionTime(ProceedingJoinPoint)} adds to a service call.
+ * <p>
+ * The service method is a cache hit in {@link ScheduleTemplates}, so nearly all of the time is the advice.
+ * {@code proxied} goes through a Spring AOP proxy with an around advice that only proceeds, {@code timed} through
+ * the same proxy with the timing advice and a Prometheus registry publishing percentile histograms, as configured in
+ * {@code application.yml}. The difference between the two is the cost of the timer, the difference to
+ * {@code direct} the cost of the whole aspect.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingAspectBenchmark {
+
+    private static final BigDecimal LOAN_AMOUNT = new BigDecimal("1200");
+
+    private ScheduleTemplates direct;
+    private ScheduleTemplates proxied;
+    private ScheduleTemplates timed;
+
+    @Setup
+    public void setUp() {
+        direct = new ScheduleTemplates(new SimpleMeterRegistry(), 10);
+        direct.installmentAmount(LOAN_AMOUNT, 12);
+
+        proxied = proxy(direct, new ProceedingAspect());
+
+        PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        meterRegistry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+            }
+        });
+        timed = proxy(direct, new LoggingAspect(meterRegistry));
+    }
+
+    @Benchmark
+    public BigDecimal direct() {
+        return direct.installmentAmount(LOAN_AMOUNT, 12);
+    }
+
+    @Benchmark
+    public BigDecimal proxied() {
+        return proxied.installmentAmount(LOAN_AMOUNT, 12);
+    }
+
+    @Benchmark
+    public BigDecimal timed() {
+        return timed.installmentAmount(LOAN_AMOUNT, 12);
+    }
+
+    private static ScheduleTemplates proxy(ScheduleTemplates target, Object aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    @Aspect
+    public static class ProceedingAspect {
+
+        @Around("execution(* com.bank.credit.service.service..*(..))")
+        public Object proceed(ProceedingJoinPoint joinPoint) throws Throwable {
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.bank.credit.service.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times generating {@code schedules} amortization schedules, one shot per iteration.
+ * <p>
+ * {@code powPerSchedule} builds annuity schedules the straightforward way, raising {@code 1 + r} to the power of the
+ * term for every schedule; {@code annuity} and {@code decliningBalance} go through {@link AmortizationMethod}, which
+ * looks the factors up in the {@link DiscountFactors} table. Loans cycle through a pool with the validated terms and
+ * a dozen rates.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AmortizationBenchmark {
+
+    private static final int[] TERMS = {6, 9, 12, 24};
+    private static final int POOL_SIZE = 1024;
+
+    @Param({"1000000"})
+    private int schedules;
+
+    private BigDecimal[] principals;
+    private BigDecimal[] rates;
+    private int[] terms;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        principals = new BigDecimal[POOL_SIZE];
+        rates = new BigDecimal[POOL_SIZE];
+        terms = new int[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            principals[i] = BigDecimal.valueOf(100_000L + random.nextInt(10_000_000), 2);
+            rates[i] = BigDecimal.valueOf(5 + random.nextInt(12) * 3L, 2);
+            terms[i] = TERMS[random.nextInt(TERMS.length)];
+        }
+    }
+
+    @Benchmark
+    public void powPerSchedule(Blackhole blackhole) {
+        for (int i = 0; i < schedules; i++) {
+            int loan = i & (POOL_SIZE - 1);
+            blackhole.consume(annuityWithPow(principals[loan], rates[loan], terms[loan]));
+        }
+    }
+
+    @Benchmark
+    public void annuity(Blackhole blackhole) {
+        for (int i = 0; i < schedules; i++) {
+            int loan = i & (POOL_SIZE - 1);
+            blackhole.consume(AmortizationMethod.ANNUITY.schedule(principals[loan], rates[loan], terms[loan]));
+        }
+    }
+
+    @Benchmark
+    public void decliningBalance(Blackhole blackhole) {
+        for (int i = 0; i < schedules; i++) {
+            int loan = i & (POOL_SIZE - 1);
+            blackhole.consume(AmortizationMethod.DECLINING_BALANCE.schedule(principals[loan], rates[loan], terms[loan]));
+        }
+    }
+
+    // the annuity of AmortizationMethod, without the table
+    private static AmortizationSchedule annuityWithPow(BigDecimal principal, BigDecimal rate, int term) {
+        DiscountFactors factors = DiscountFactors.compute(rate, term);
+        BigDecimal payment = principal.multiply(factors.annuityFactor()).setScale(2, RoundingMode.HALF_UP);
+        List<AmortizationPeriod> periods = new ArrayList<>(term);
+        BigDecimal balance = principal;
+        for (int period = 1; period <= term; period++) {
+            BigDecimal interest = balance.multiply(factors.periodicRate()).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal repaid = period < term ? payment.subtract(interest) : balance;
+            balance = balance.subtract(repaid);
+            periods.add(new AmortizationPeriod(repaid.add(interest), repaid, interest, balance));
+        }
+        return new AmortizationSchedule(periods);
+    }
+}
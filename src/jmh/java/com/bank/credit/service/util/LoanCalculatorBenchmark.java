@@ -0,0 +1,71 @@
+package com.bank.credit.service.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the {@link LoanCalculator} operations behind loan creation and payments.
+ * <p>
+ * {@code loanAmount} covers amounts that fit in cents, which take the {@code long} path, and one with a third decimal
+ * place, which falls back to {@link BigDecimal} arithmetic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoanCalculatorBenchmark {
+
+    @Param({"1000", "123456.78", "1000.125"})
+    private String loanAmount;
+
+    @Param({"6", "24"})
+    private int numberOfInstallment;
+
+    private BigDecimal principal;
+    private BigDecimal interestRate;
+    private BigDecimal installmentAmount;
+    private BigDecimal payment;
+    private List<BigDecimal> unpaidAmounts;
+
+    @Setup
+    public void setUp() {
+        principal = new BigDecimal(loanAmount);
+        interestRate = new BigDecimal("0.25");
+        installmentAmount = LoanCalculator.calculateInstallmentAmount(
+                LoanCalculator.calculateTotalRepayment(principal, interestRate), numberOfInstallment);
+        // pays two installments and a part of the third
+        payment = installmentAmount.multiply(new BigDecimal("2.5"));
+        unpaidAmounts = Collections.nCopies(3, installmentAmount);
+    }
+
+    @Benchmark
+    public BigDecimal totalRepayment() {
+        return LoanCalculator.calculateTotalRepayment(principal, interestRate);
+    }
+
+    @Benchmark
+    public BigDecimal installmentAmount() {
+        return LoanCalculator.calculateInstallmentAmount(principal, numberOfInstallment);
+    }
+
+    @Benchmark
+    public int installmentsToPay() {
+        return LoanCalculator.calculateInstallmentsToPay(payment, installmentAmount);
+    }
+
+    @Benchmark
+    public int installmentsToPayOldestFirst() {
+        return LoanCalculator.calculateInstallmentsToPay(payment, unpaidAmounts);
+    }
+
+    @Benchmark
+    public BigDecimal totalPayment() {
+        return LoanCalculator.calculateTotalPayment(installmentAmount, numberOfInstallment);
+    }
+}
@@ -0,0 +1,55 @@
+package com.bank.credit.service.validation;
+
+import com.bank.credit.service.dto.CreditDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times {@link InstallmentValueValidator} on its own and as part of validating the {@code numberOfInstallment} of a
+ * {@link CreditDto}, for the first and last allowed value and a rejected one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstallmentValueValidatorBenchmark {
+
+    @Param({"6", "24", "7"})
+    private int numberOfInstallment;
+
+    private InstallmentValueValidator installmentValueValidator;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+
+    @Setup
+    public void setUp() throws NoSuchFieldException {
+        installmentValueValidator = new InstallmentValueValidator();
+        installmentValueValidator.initialize(CreditDto.class.getDeclaredField("numberOfInstallment").getAnnotation(InstallmentValue.class));
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        // the validator does not use the context
+        return installmentValueValidator.isValid(numberOfInstallment, null);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<CreditDto>> validateValue() {
+        return validator.validateValue(CreditDto.class, "numberOfInstallment", numberOfInstallment);
+    }
+}
@@ -0,0 +1,91 @@
+package com.bank.credit.service.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends JSON requests to the application under test as the configured admin user.
+ * <p>
+ * Requests are sent asynchronously over HTTP/1.1 without a limit on open connections, so a slow response never holds
+ * back the next request.
+ */
+final class ApiClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient httpClient;
+    private final URI baseUri;
+    private final String authorization;
+    private final ObjectMapper objectMapper;
+
+    ApiClient(URI baseUri, String username, String password, ObjectMapper objectMapper) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+        this.baseUri = baseUri;
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        this.objectMapper = objectMapper;
+    }
+
+    HttpRequest get(String pathAndQuery) {
+        return builder(pathAndQuery).GET().build();
+    }
+
+    HttpRequest post(String path, Object body) {
+        try {
+            return builder(path)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Reads the body of a response, failing on any status but 2xx.
+     */
+    <T> T read(HttpResponse<String> response, Class<T> responseType) {
+        return read(response, objectMapper.constructType(responseType));
+    }
+
+    <T> T read(HttpResponse<String> response, JavaType responseType) {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(response.request().method() + " " + response.request().uri()
+                    + " answered " + response.statusCode() + ": " + response.body());
+        }
+        try {
+            return objectMapper.readValue(response.body(), responseType);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    private HttpRequest.Builder builder(String pathAndQuery) {
+        return HttpRequest.newBuilder(baseUri.resolve(pathAndQuery))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", authorization)
+                .header("Accept", "application/json");
+    }
+}
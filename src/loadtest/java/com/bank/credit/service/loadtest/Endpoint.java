@@ -0,0 +1,47 @@
+package com.bank.credit.service.loadtest;
+
+/**
+ * The endpoints driven by the load test, with their share of the default workload mix.
+ */
+enum Endpoint {
+
+    CREATE_CUSTOMER("POST", "/customers", 5),
+    CREATE_CREDIT("POST", "/credits", 15),
+    LIST_CREDITS("GET", "/credits", 35),
+    LIST_INSTALLMENTS("GET", "/installments", 30),
+    PAY_INSTALLMENT("POST", "/installments", 15);
+
+    private final String method;
+    private final String path;
+    private final int defaultWeight;
+
+    Endpoint(String method, String path, int defaultWeight) {
+        this.method = method;
+        this.path = path;
+        this.defaultWeight = defaultWeight;
+    }
+
+    String method() {
+        return method;
+    }
+
+    String path() {
+        return path;
+    }
+
+    int defaultWeight() {
+        return defaultWeight;
+    }
+
+    /**
+     * The name of the endpoint in {@code loadtest.mix.*}, e.g. {@code pay-installment}.
+     */
+    String key() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + path;
+    }
+}
@@ -0,0 +1,137 @@
+package com.bank.credit.service.loadtest;
+
+import com.bank.credit.service.BankCreditServiceApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Boots the application with its embedded H2 database, seeds a portfolio and measures the REST endpoints under an
+ * open-model workload.
+ * <p>
+ * The report has the throughput and the p50, p99 and p99.9 response times of every endpoint, together with the SQL
+ * statements per request counted by {@link SqlStatementCounter}. The full percentile distribution of every endpoint
+ * is written to {@code loadtest.output} as an HdrHistogram {@code .hgrm} file. Any argument is passed to the
+ * application, so it runs with the settings under test, e.g. {@code --credit.installments.storage=compact}; the
+ * {@code loadtest.*} arguments are described in {@link LoadTestOptions}.
+ */
+public final class LoadTest {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // system properties override application.yml, arguments still override them
+        Map.of("server.port", "0",
+                "spring.main.banner-mode", "off",
+                "spring.jpa.show-sql", "false",
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector", SqlStatementCounter.class.getName(),
+                // the per-request INFO logs would make the console the bottleneck
+                "logging.level.com.bank.credit.service", "WARN",
+                "credit.archive.cron", "-"
+        ).forEach((key, value) -> {
+            if (System.getProperty(key) == null) {
+                System.setProperty(key, value);
+            }
+        });
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BankCreditServiceApplication.class, LoadTestConfiguration.class)
+                .run(args);
+        try {
+            run(context);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void run(ConfigurableApplicationContext context) throws InterruptedException, IOException {
+        Environment environment = context.getEnvironment();
+        LoadTestOptions options = LoadTestOptions.from(environment);
+        ApiClient client = new ApiClient(
+                URI.create("http://localhost:" + environment.getRequiredProperty("local.server.port")),
+                environment.getRequiredProperty("spring.security.user.name"),
+                environment.getRequiredProperty("spring.security.user.password"),
+                context.getBean(ObjectMapper.class));
+
+        Random random = new Random(options.seed());
+        Portfolio portfolio = new Portfolio(client);
+        System.out.printf("Seeding %d customers with %d loans each%n", options.customers(), options.loansPerCustomer());
+        portfolio.seed(options.customers(), options.loansPerCustomer(), random);
+
+        OpenModelDriver driver = new OpenModelDriver(client, portfolio, options.rate(), options.mix());
+        System.out.printf("Warming up for %s at %.0f requests/s%n", options.warmup(), options.rate());
+        driver.run(options.warmup(), random);
+        SqlStatementCounter.reset();
+        System.out.printf("Measuring for %s at %.0f requests/s%n", options.duration(), options.rate());
+        OpenModelDriver.Result result = driver.run(options.duration(), random);
+
+        report(System.out, options, portfolio, result, SqlStatementCounter.statementsPerRequest());
+        writeDistributions(options.output(), result);
+    }
+
+    private static void report(PrintStream out, LoadTestOptions options, Portfolio portfolio, OpenModelDriver.Result result,
+                               Map<String, Double> statementsPerRequest) {
+        out.println();
+        out.printf("%.0f requests/s for %s, portfolio at the end: %d customers, %d loans%n",
+                options.rate(), options.duration(), portfolio.customerCount(), portfolio.loanCount());
+        out.printf("%-20s %9s %7s %9s %9s %9s %9s %9s %8s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "SQL/req");
+        double seconds = result.duration().toNanos() / 1e9;
+        result.latencies().forEach((endpoint, histogram) -> {
+            long errors = errors(result.statuses().get(endpoint));
+            out.printf("%-20s %9d %7d %9.1f %9.3f %9.3f %9.3f %9.3f %8.2f%n",
+                    endpoint, histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                    millis(histogram, 50.0), millis(histogram, 99.0), millis(histogram, 99.9),
+                    histogram.getMaxValue() / MICROS_PER_MILLI,
+                    statementsPerRequest.getOrDefault(endpoint.toString(), Double.NaN));
+        });
+        result.statuses().forEach((endpoint, statuses) -> {
+            if (errors(statuses) > 0) {
+                out.printf("  %s responses: %s%n", endpoint, statuses.entrySet().stream()
+                        .map(status -> (status.getKey() == 0 ? "none" : status.getKey()) + " x " + status.getValue())
+                        .collect(Collectors.joining(", ")));
+            }
+        });
+        if (result.maxSendLag().toMillis() > 0) {
+            out.printf("The driver fell up to %d ms behind its schedule, which the latencies include%n", result.maxSendLag().toMillis());
+        }
+        if (result.unanswered() > 0) {
+            out.printf("%d requests were still unanswered at the end and are not in the percentiles%n", result.unanswered());
+        }
+    }
+
+    private static void writeDistributions(Path output, OpenModelDriver.Result result) throws IOException {
+        Files.createDirectories(output);
+        for (Map.Entry<Endpoint, Histogram> entry : result.latencies().entrySet()) {
+            Path file = output.resolve(entry.getKey().key() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                // in milliseconds, like the report
+                entry.getValue().outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+        System.out.printf("Percentile distributions written to %s%n", output.toAbsolutePath());
+    }
+
+    private static long errors(Map<Integer, Long> statuses) {
+        return statuses.entrySet().stream()
+                .filter(status -> status.getKey() / 100 != 2)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+}
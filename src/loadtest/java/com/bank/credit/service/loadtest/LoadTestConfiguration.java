@@ -0,0 +1,42 @@
+package com.bank.credit.service.loadtest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Beans the load test adds to the application.
+ * <p>
+ * Not a {@code @Configuration}, so the component scan of the application never picks it up; {@link LoadTest} passes
+ * it as a source explicitly.
+ */
+class LoadTestConfiguration {
+
+    /**
+     * Attributes the SQL statements of every request to its endpoint, see {@link SqlStatementCounter}.
+     */
+    @Bean
+    FilterRegistrationBean<OncePerRequestFilter> sqlStatementCountingFilter() {
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                SqlStatementCounter.begin();
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    SqlStatementCounter.end(request.getMethod() + " " + request.getRequestURI());
+                }
+            }
+        });
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,41 @@
+package com.bank.credit.service.loadtest;
+
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The settings of a load test run, read from the {@code loadtest.*} properties of the booted application, so they
+ * are passed like any other Spring property, e.g. {@code --loadtest.rate=500}.
+ *
+ * @param customers          customers seeded before the run
+ * @param loansPerCustomer   loans seeded per customer
+ * @param rate               requests started per second, whatever the response times
+ * @param warmup             how long the workload runs before measuring
+ * @param duration           how long the workload is measured
+ * @param mix                the relative weight of every endpoint in the workload
+ * @param seed               seed of the portfolio and the request sequence
+ * @param output             directory of the percentile distribution files
+ */
+record LoadTestOptions(int customers, int loansPerCustomer, double rate, Duration warmup, Duration duration,
+                       Map<Endpoint, Integer> mix, long seed, Path output) {
+
+    static LoadTestOptions from(Environment environment) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            mix.put(endpoint, environment.getProperty("loadtest.mix." + endpoint.key(), Integer.class, endpoint.defaultWeight()));
+        }
+        return new LoadTestOptions(
+                environment.getProperty("loadtest.customers", Integer.class, 1000),
+                environment.getProperty("loadtest.loans-per-customer", Integer.class, 3),
+                environment.getProperty("loadtest.rate", Double.class, 200.0),
+                environment.getProperty("loadtest.warmup", Duration.class, Duration.ofSeconds(15)),
+                environment.getProperty("loadtest.duration", Duration.class, Duration.ofSeconds(60)),
+                mix,
+                environment.getProperty("loadtest.seed", Long.class, 42L),
+                Path.of(environment.getProperty("loadtest.output", "target/loadtest")));
+    }
+}
@@ -0,0 +1,135 @@
+package com.bank.credit.service.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives an open-model workload: requests start at a fixed rate whether or not earlier ones have been answered.
+ * <p>
+ * Every request has an intended start time on the schedule, and its latency is measured from there rather than from
+ * when it was actually sent. A stalled server or a late send therefore shows up in the percentiles instead of
+ * silently lowering the request rate, which is how coordinated omission hides latency in closed-loop tests.
+ * Latencies are recorded in microseconds, per endpoint, failed requests included.
+ */
+final class OpenModelDriver {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    private final ApiClient client;
+    private final Portfolio portfolio;
+    private final double rate;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+
+    OpenModelDriver(ApiClient client, Portfolio portfolio, double rate, Map<Endpoint, Integer> mix) {
+        this.client = client;
+        this.portfolio = portfolio;
+        this.rate = rate;
+        Map<Endpoint, Integer> weighted = new EnumMap<>(mix);
+        weighted.values().removeIf(weight -> weight <= 0);
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("The workload mix has no endpoint with a positive weight");
+        }
+        this.endpoints = weighted.keySet().toArray(Endpoint[]::new);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += weighted.get(endpoints[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Runs the workload for the given duration and waits for the outstanding responses.
+     *
+     * @return the latencies and outcomes per endpoint
+     */
+    Result run(Duration duration, Random random) throws InterruptedException {
+        Map<Endpoint, Recorder> latencies = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, Map<Integer, LongAdder>> statuses = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : endpoints) {
+            latencies.put(endpoint, new Recorder(3));
+            statuses.put(endpoint, new ConcurrentHashMap<>());
+        }
+        AtomicInteger inFlight = new AtomicInteger();
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long maxSendLag = 0;
+
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * interval;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else {
+                maxSendLag = Math.max(maxSendLag, -wait);
+            }
+            Endpoint endpoint = next(random);
+            HttpRequest request = portfolio.request(endpoint, random);
+            inFlight.incrementAndGet();
+            client.send(request).whenComplete((response, failure) -> {
+                latencies.get(endpoint).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart));
+                // a request that got no response is counted as status 0
+                int status = failure == null ? response.statusCode() : 0;
+                statuses.get(endpoint).computeIfAbsent(status, key -> new LongAdder()).increment();
+                if (failure == null) {
+                    portfolio.record(endpoint, response);
+                }
+                inFlight.decrementAndGet();
+            });
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Map<Endpoint, Histogram> histograms = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, Map<Integer, Long>> statusCounts = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : endpoints) {
+            histograms.put(endpoint, latencies.get(endpoint).getIntervalHistogram());
+            Map<Integer, Long> counts = new TreeMap<>();
+            statuses.get(endpoint).forEach((status, count) -> counts.put(status, count.sum()));
+            statusCounts.put(endpoint, counts);
+        }
+        return new Result(histograms, statusCounts, duration, elapsed, Duration.ofNanos(maxSendLag), inFlight.get());
+    }
+
+    private Endpoint next(Random random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (cumulativeWeights[i] <= pick) {
+            i++;
+        }
+        return endpoints[i];
+    }
+
+    /**
+     * @param latencies  response times in microseconds from the intended start, per endpoint
+     * @param statuses   number of responses per HTTP status, 0 for requests without a response
+     * @param duration   how long requests were started
+     * @param elapsed    until the last response, or until giving up on it
+     * @param maxSendLag how far the driver fell behind its schedule, already included in the latencies
+     * @param unanswered requests still without a response when the run ended
+     */
+    record Result(Map<Endpoint, Histogram> latencies, Map<Endpoint, Map<Integer, Long>> statuses, Duration duration,
+                  Duration elapsed, Duration maxSendLag, int unanswered) {
+    }
+}
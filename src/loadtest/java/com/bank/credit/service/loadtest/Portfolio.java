@@ -0,0 +1,160 @@
+package com.bank.credit.service.loadtest;
+
+import com.bank.credit.service.dto.CreditBatchItemResult;
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.CustomerDto;
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.util.LoanCalculator;
+import com.fasterxml.jackson.databind.JavaType;
+
+import java.math.BigDecimal;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * The customers and loans the workload runs against, and the requests it sends for each endpoint.
+ * <p>
+ * The portfolio is seeded through the REST API, customers one request each and loans through {@code /credits/batch}.
+ * Customers and loans created during the run join it. Payments pick loans that still have an installment in the
+ * three month payment window, so they are not rejected for lack of one.
+ */
+final class Portfolio {
+
+    private static final int[] INSTALLMENT_COUNTS = {6, 9, 12, 24};
+    // installments due within the payment window of a new loan
+    private static final int PAYABLE_INSTALLMENTS = 3;
+    private static final int SEED_CONCURRENCY = 64;
+    private static final int SEED_BATCH_SIZE = 500;
+    private static final int PICK_ATTEMPTS = 8;
+    private static final BigDecimal CREDIT_LIMIT = new BigDecimal("1000000000");
+
+    private final ApiClient client;
+    private final List<Long> customerIds = new ArrayList<>();
+    private final List<SeededLoan> loans = new ArrayList<>();
+
+    Portfolio(ApiClient client) {
+        this.client = client;
+    }
+
+    void seed(int customers, int loansPerCustomer, Random random) {
+        for (int from = 0; from < customers; from += SEED_CONCURRENCY) {
+            List<CompletableFuture<HttpResponse<String>>> responses = IntStream.range(from, Math.min(customers, from + SEED_CONCURRENCY))
+                    .mapToObj(i -> client.send(createCustomer(i)))
+                    .toList();
+            responses.forEach(response -> addCustomer(client.read(response.join(), CustomerDto.class)));
+        }
+
+        JavaType results = client.objectMapper().getTypeFactory().constructCollectionType(List.class, CreditBatchItemResult.class);
+        List<CreditDto> requests = new ArrayList<>();
+        for (Long customerId : List.copyOf(customerIds)) {
+            for (int i = 0; i < loansPerCustomer; i++) {
+                requests.add(creditRequest(customerId, random));
+            }
+        }
+        for (int from = 0; from < requests.size(); from += SEED_BATCH_SIZE) {
+            HttpRequest batch = client.post("/credits/batch", requests.subList(from, Math.min(requests.size(), from + SEED_BATCH_SIZE)));
+            HttpResponse<String> response = client.send(batch).join();
+            List<CreditBatchItemResult> created = client.read(response, results);
+            for (CreditBatchItemResult result : created) {
+                if (result.getStatus() != CreditBatchItemResult.Status.CREATED) {
+                    throw new IllegalStateException("Seed loan rejected: " + result.getErrors());
+                }
+                addLoan(result.getCredit());
+            }
+        }
+    }
+
+    synchronized int customerCount() {
+        return customerIds.size();
+    }
+
+    synchronized int loanCount() {
+        return loans.size();
+    }
+
+    /**
+     * Builds the next request for an endpoint.
+     */
+    HttpRequest request(Endpoint endpoint, Random random) {
+        return switch (endpoint) {
+            case CREATE_CUSTOMER -> createCustomer(random.nextInt(Integer.MAX_VALUE));
+            case CREATE_CREDIT -> client.post(endpoint.path(), creditRequest(randomCustomer(random), random));
+            case LIST_CREDITS -> client.get(endpoint.path() + "?customerId=" + randomCustomer(random) + "&page=0&size=10");
+            case LIST_INSTALLMENTS -> client.get(endpoint.path() + "?loanId=" + randomLoan(random).id());
+            case PAY_INSTALLMENT -> client.post(endpoint.path(), payment(payableLoan(random)));
+        };
+    }
+
+    /**
+     * Adds what a successful request created to the portfolio.
+     */
+    void record(Endpoint endpoint, HttpResponse<String> response) {
+        if (response.statusCode() / 100 != 2) {
+            return;
+        }
+        switch (endpoint) {
+            case CREATE_CUSTOMER -> addCustomer(client.read(response, CustomerDto.class));
+            case CREATE_CREDIT -> addLoan(client.read(response, CreditDto.class));
+            default -> {
+            }
+        }
+    }
+
+    private HttpRequest createCustomer(int number) {
+        return client.post(Endpoint.CREATE_CUSTOMER.path(), new CustomerDto(null, "Load", "Test " + number, CREDIT_LIMIT, BigDecimal.ZERO));
+    }
+
+    private static CreditDto creditRequest(Long customerId, Random random) {
+        // at least 3000, so every installment is above the minimum payment of 100
+        BigDecimal loanAmount = BigDecimal.valueOf(3000L + random.nextInt(941) * 50L);
+        int numberOfInstallment = INSTALLMENT_COUNTS[random.nextInt(INSTALLMENT_COUNTS.length)];
+        BigDecimal interestRate = BigDecimal.valueOf(10 + random.nextInt(41), 2);
+        return new CreditDto(null, customerId, loanAmount, numberOfInstallment, interestRate);
+    }
+
+    private static InstallmentDto payment(SeededLoan loan) {
+        InstallmentDto payment = new InstallmentDto();
+        payment.setLoanId(loan.id());
+        payment.setAmount(loan.installmentAmount());
+        return payment;
+    }
+
+    private synchronized void addCustomer(CustomerDto customer) {
+        customerIds.add(customer.getId());
+    }
+
+    private synchronized void addLoan(CreditDto loan) {
+        BigDecimal installmentAmount = LoanCalculator.calculateInstallmentAmount(loan.getLoanAmount(), loan.getNumberOfInstallment());
+        loans.add(new SeededLoan(loan.getId(), installmentAmount,
+                new AtomicInteger(Math.min(PAYABLE_INSTALLMENTS, loan.getNumberOfInstallment()))));
+    }
+
+    private synchronized Long randomCustomer(Random random) {
+        return customerIds.get(random.nextInt(customerIds.size()));
+    }
+
+    private synchronized SeededLoan randomLoan(Random random) {
+        return loans.get(random.nextInt(loans.size()));
+    }
+
+    /**
+     * Picks a loan with an unpaid installment in the payment window, or any loan once they are hard to find.
+     */
+    private SeededLoan payableLoan(Random random) {
+        SeededLoan loan = randomLoan(random);
+        for (int attempt = 1; attempt < PICK_ATTEMPTS && loan.payable().get() <= 0; attempt++) {
+            loan = randomLoan(random);
+        }
+        loan.payable().decrementAndGet();
+        return loan;
+    }
+
+    private record SeededLoan(Long id, BigDecimal installmentAmount, AtomicInteger payable) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.bank.credit.service.loadtest;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the SQL statements Hibernate prepares while serving a request, per endpoint.
+ * <p>
+ * Hibernate creates its own instance from {@code hibernate.session_factory.statement_inspector}, so the counts are
+ * static. {@link LoadTestConfiguration} brackets every request with {@link #begin()} and {@link #end(String)}; a
+ * statement prepared outside a request, like those of the scheduled jobs, is not counted. Batched inserts count
+ * once per batch, as they are prepared once.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> CURRENT = new ThreadLocal<>();
+    private static final Map<String, Totals> BY_ENDPOINT = new ConcurrentHashMap<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] statements = CURRENT.get();
+        if (statements != null) {
+            statements[0]++;
+        }
+        return sql;
+    }
+
+    static void begin() {
+        CURRENT.set(new int[1]);
+    }
+
+    static void end(String endpoint) {
+        int[] statements = CURRENT.get();
+        CURRENT.remove();
+        if (statements != null) {
+            Totals totals = BY_ENDPOINT.computeIfAbsent(endpoint, key -> new Totals());
+            totals.requests.increment();
+            totals.statements.add(statements[0]);
+        }
+    }
+
+    /**
+     * Returns the average number of statements per request of every endpoint served since the last {@link #reset()}.
+     */
+    static Map<String, Double> statementsPerRequest() {
+        Map<String, Double> averages = new TreeMap<>();
+        BY_ENDPOINT.forEach((endpoint, totals) ->
+                averages.put(endpoint, totals.statements.doubleValue() / Math.max(1, totals.requests.sum())));
+        return averages;
+    }
+
+    static void reset() {
+        BY_ENDPOINT.clear();
+    }
+
+    private static final class Totals {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+    }
+}
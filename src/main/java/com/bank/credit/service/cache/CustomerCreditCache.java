@@ -0,0 +1,153 @@
+package com.bank.credit.service.cache;
+
+import com.bank.credit.service.dto.CustomerCreditSnapshot;
+import com.bank.credit.service.exception.CreditLimitExceededException;
+import com.bank.credit.service.exception.CustomerNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the credit usage of customers in memory, so credit requests that cannot succeed are rejected without
+ * reaching the database.
+ * <p>
+ * A snapshot is cached when a customer is created and when a reservation is rejected, and every reservation and
+ * release of this instance moves it forward once its transaction has committed. Customer IDs that turned out not
+ * to exist are remembered in a separate negative cache until a customer with that ID is created. The conditional
+ * update of the customer stays the authority: a snapshot only rejects requests it cannot cover, everything else
+ * still goes to the database. Writes of other instances are not seen, so snapshots expire after
+ * {@code credit.cache.customer-credit.ttl} and unknown IDs after {@code credit.cache.customer-credit.unknown-ttl}.
+ * Hits and misses are published as the {@code cache.*} metrics of the {@code customerCredit} and
+ * {@code unknownCustomers} caches.
+ */
+@Component
+public class CustomerCreditCache {
+
+    static final String CACHE_NAME = "customerCredit";
+    static final String UNKNOWN_CACHE_NAME = "unknownCustomers";
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<Long, CustomerCreditSnapshot> snapshots;
+    private final Cache<Long, Boolean> unknownCustomers;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public CustomerCreditCache(MeterRegistry meterRegistry,
+                               @Value("${credit.cache.customer-credit.max-size:100000}") long maxSize,
+                               @Value("${credit.cache.customer-credit.ttl:30s}") Duration ttl,
+                               @Value("${credit.cache.customer-credit.unknown-ttl:5m}") Duration unknownTtl) {
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .executor(Runnable::run)
+                .build();
+        this.unknownCustomers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(unknownTtl)
+                .recordStats()
+                .executor(Runnable::run)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, unknownCustomers, UNKNOWN_CACHE_NAME);
+    }
+
+    /**
+     * Rejects a reservation that is known to fail, without a database round trip.
+     *
+     * @throws CustomerNotFoundException    if the customer is known not to exist
+     * @throws CreditLimitExceededException if the cached snapshot cannot cover the amount
+     */
+    public void checkAvailable(Long customerId, BigDecimal amount) {
+        if (customerId == null) {
+            return;
+        }
+        if (unknownCustomers.getIfPresent(customerId) != null) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        CustomerCreditSnapshot snapshot = snapshots.getIfPresent(customerId);
+        if (snapshot != null && !snapshot.covers(amount)) {
+            throw new CreditLimitExceededException();
+        }
+    }
+
+    /**
+     * Reads the credit usage of a customer and caches it, or remembers the ID as unknown if there is no such customer.
+     *
+     * @param customerId the customer ID
+     * @param loader     reads the snapshot from the database
+     * @return the loaded snapshot, empty if the customer does not exist
+     */
+    public Optional<CustomerCreditSnapshot> load(Long customerId, Supplier<Optional<CustomerCreditSnapshot>> loader) {
+        if (customerId == null) {
+            return loader.get();
+        }
+        int stripe = stripe(customerId);
+        long generation = generations.get(stripe);
+        Optional<CustomerCreditSnapshot> snapshot = loader.get();
+        // a write of this customer that committed meanwhile may not be in what was read
+        if (generations.get(stripe) != generation) {
+            return snapshot;
+        }
+        snapshot.ifPresentOrElse(
+                loaded -> snapshots.asMap().merge(customerId, loaded, CustomerCreditCache::newer),
+                () -> unknownCustomers.put(customerId, Boolean.TRUE));
+        // nor one that committed between the check and the insert, whose update found nothing to move forward
+        if (generations.get(stripe) != generation) {
+            if (snapshot.isPresent()) {
+                snapshots.invalidate(customerId);
+            } else {
+                unknownCustomers.invalidate(customerId);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Caches the snapshot of a new customer and forgets that its ID was unknown, once the transaction commits.
+     */
+    public void recordCreated(Long customerId, CustomerCreditSnapshot snapshot) {
+        AfterCommit.run(() -> {
+            generations.incrementAndGet(stripe(customerId));
+            unknownCustomers.invalidate(customerId);
+            snapshots.put(customerId, snapshot);
+        });
+    }
+
+    /**
+     * Moves the cached snapshot forward by a reservation, once the transaction commits.
+     */
+    public void recordReserved(Long customerId, BigDecimal amount) {
+        AfterCommit.run(() -> apply(customerId, amount));
+    }
+
+    /**
+     * Moves the cached snapshot forward by a release, once the transaction commits.
+     */
+    public void recordReleased(Long customerId, BigDecimal amount) {
+        AfterCommit.run(() -> apply(customerId, amount.negate()));
+    }
+
+    private void apply(Long customerId, BigDecimal usedCreditLimitChange) {
+        generations.incrementAndGet(stripe(customerId));
+        snapshots.asMap().computeIfPresent(customerId,
+                (id, snapshot) -> snapshot.withUsedCreditLimitChangedBy(usedCreditLimitChange));
+    }
+
+    private static CustomerCreditSnapshot newer(CustomerCreditSnapshot cached, CustomerCreditSnapshot loaded) {
+        return cached.version() >= loaded.version() ? cached : loaded;
+    }
+
+    private static int stripe(Long customerId) {
+        return Math.floorMod(Long.hashCode(customerId), GENERATION_STRIPES);
+    }
+}
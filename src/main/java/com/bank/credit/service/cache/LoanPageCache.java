@@ -0,0 +1,146 @@
+package com.bank.credit.service.cache;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.LoanFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Caches the pages of the offset loan listing, keyed by the filter and the requested page.
+ * <p>
+ * At most {@code credit.cache.loan-pages.max-size} pages are kept, each for at most
+ * {@code credit.cache.loan-pages.ttl}. Every write that changes the loans of a customer invalidates the cached
+ * pages of that customer, and only those, once its transaction has committed; the cached keys are indexed per
+ * customer, so an invalidation only touches the pages of its customer. A page that was read while an invalidation
+ * of its customer committed is returned but not kept, so a slow read cannot put back what a write has just
+ * invalidated. Hits, misses and evictions are published as the {@code cache.*} metrics of the {@code loanPages}
+ * cache, invalidations in the {@code credit.cache.invalidations} counter.
+ */
+@Component
+public class LoanPageCache {
+
+    static final String CACHE_NAME = "loanPages";
+    static final String INVALIDATIONS_METRIC = "credit.cache.invalidations";
+
+    // customers are spread over the stripes, an invalidation only blocks caching for the customers of its stripe
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<Key, Page<CreditDto>> cache;
+    // the cached keys per customer, only changed inside the map's atomic operations
+    private final ConcurrentHashMap<Long, Set<Key>> keysByCustomer = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final Counter invalidations;
+
+    public LoanPageCache(MeterRegistry meterRegistry,
+                         @Value("${credit.cache.loan-pages.max-size:10000}") long maxSize,
+                         @Value("${credit.cache.loan-pages.ttl:60s}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .evictionListener((Key key, Page<CreditDto> page, RemovalCause cause) -> unindex(key))
+                // evict on the calling thread, so a page is gone as soon as the call returns
+                .executor(Runnable::run)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.invalidations = meterRegistry.counter(INVALIDATIONS_METRIC, "cache", CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached page for the filter and page request, or loads and caches it.
+     *
+     * @param filter   the loan filter, its customer ID is required
+     * @param pageable the page request
+     * @param loader   reads the page from the database on a miss
+     * @return the cached or loaded page
+     */
+    public Page<CreditDto> get(LoanFilter filter, Pageable pageable, Supplier<Page<CreditDto>> loader) {
+        Key key = new Key(filter.getCustomerId(), filter.getNumberOfInstallment(), filter.getIsPaid(), pageable);
+        if (key.customerId() == null) {
+            return loader.get();
+        }
+        Page<CreditDto> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = stripe(key.customerId());
+        long generation = generations.get(stripe);
+        Page<CreditDto> page = loader.get();
+        if (generations.get(stripe) != generation) {
+            return page;
+        }
+        cache.put(key, page);
+        keysByCustomer.compute(key.customerId(), (customerId, keys) -> {
+            Set<Key> indexed = keys != null ? keys : new HashSet<>();
+            indexed.add(key);
+            return indexed;
+        });
+        // an invalidation between the check and the put either finds the key in the index or moved the generation
+        if (generations.get(stripe) != generation) {
+            cache.invalidate(key);
+            unindex(key);
+        }
+        return page;
+    }
+
+    /**
+     * Drops the cached pages of the customer when the current transaction commits, or right away outside a transaction.
+     */
+    public void invalidateCustomer(Long customerId) {
+        if (customerId == null) {
+            return;
+        }
+        AfterCommit.run(() -> evict(customerId));
+    }
+
+    /**
+     * Drops all cached pages, for writes that touch loans of any customer.
+     */
+    public void invalidateAll() {
+        for (int stripe = 0; stripe < GENERATION_STRIPES; stripe++) {
+            generations.incrementAndGet(stripe);
+        }
+        cache.invalidateAll();
+        keysByCustomer.clear();
+        invalidations.increment();
+    }
+
+    private void evict(Long customerId) {
+        // the generation moves first, so a read that started before the write cannot cache its page afterwards
+        generations.incrementAndGet(stripe(customerId));
+        Set<Key> keys = keysByCustomer.remove(customerId);
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+        invalidations.increment();
+    }
+
+    private void unindex(Key key) {
+        keysByCustomer.computeIfPresent(key.customerId(), (customerId, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static int stripe(Long customerId) {
+        return Math.floorMod(Long.hashCode(customerId), GENERATION_STRIPES);
+    }
+
+    private record Key(Long customerId, Integer numberOfInstallment, Boolean isPaid, Pageable pageable) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.bank.credit.service.config;
+
+import com.bank.credit.service.datasource.ReadReplicaProperties;
+import com.bank.credit.service.datasource.ReadWriteRoutingDataSource;
+import com.bank.credit.service.datasource.ReplicaPool;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+
+/**
+ * Data source configuration for read replicas.
+ * <p>
+ * By default the application uses the single {@code spring.datasource}. With
+ * {@code credit.datasource.routing.enabled=true} the primary data source is wrapped in a
+ * {@link ReadWriteRoutingDataSource}, which sends read-only transactions to the replicas listed under
+ * {@code credit.datasource.replicas}. Flyway and the Hibernate schema validation run outside of transactions
+ * and therefore always use the primary.
+ */
+@Configuration
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class DataSourceRoutingConfig {
+
+    @Configuration
+    @ConditionalOnProperty("credit.datasource.routing.enabled")
+    static class RoutingConfig {
+
+        @Bean
+        public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+            HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            dataSource.setPoolName("primary");
+            return dataSource;
+        }
+
+        @Bean
+        public ReplicaPool replicaPool(ReadReplicaProperties properties, TaskScheduler taskScheduler, MeterRegistry meterRegistry) {
+            ReplicaPool replicaPool = new ReplicaPool(properties.replicas().stream()
+                    .map(replica -> new ReplicaPool.Replica(replica.name(), replicaDataSource(replica, meterRegistry)))
+                    .toList());
+            taskScheduler.scheduleWithFixedDelay(replicaPool::checkHealth, properties.healthCheckInterval());
+            return replicaPool;
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                     ReplicaPool replicaPool,
+                                     MeterRegistry meterRegistry) {
+            return new LazyConnectionDataSourceProxy(
+                    new ReadWriteRoutingDataSource(primaryDataSource, replicaPool, meterRegistry));
+        }
+
+        // the replicas are no beans, so their hikaricp.* gauges are registered here
+        private static HikariDataSource replicaDataSource(ReadReplicaProperties.Replica replica, MeterRegistry meterRegistry) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.url())
+                    .username(replica.username())
+                    .password(replica.password())
+                    .build();
+            dataSource.setPoolName(replica.name());
+            dataSource.setReadOnly(true);
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            return dataSource;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.bank.credit.service.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.SessionEventSettings;
+import org.hibernate.cfg.StatisticsSettings;
+import org.hibernate.stat.HibernateMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics that Spring Boot does not bind by itself.
+ * <p>
+ * Boot already publishes the {@code http.server.requests} timers per endpoint and the {@code hikaricp.*} gauges of
+ * the {@code spring.datasource} pool, the replica and shard pools are bound where they are created. With
+ * {@code credit.metrics.hibernate.enabled=true} this also publishes the Hibernate session, transaction and statement
+ * metrics as {@code hibernate.*}. Collecting them costs every session some bookkeeping, so Hibernate statistics are
+ * only switched on then, without logging the statistics of every session.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Configuration
+    @ConditionalOnProperty("credit.metrics.hibernate.enabled")
+    static class HibernateMetricsConfig {
+
+        @Bean
+        public HibernatePropertiesCustomizer hibernateStatistics() {
+            return properties -> {
+                properties.put(StatisticsSettings.GENERATE_STATISTICS, true);
+                properties.put(SessionEventSettings.LOG_SESSION_METRICS, false);
+            };
+        }
+
+        @Bean
+        public MeterBinder hibernateMetrics(EntityManagerFactory entityManagerFactory) {
+            return new HibernateMetrics(entityManagerFactory.unwrap(SessionFactory.class), "entityManagerFactory", Tags.empty());
+        }
+    }
+}
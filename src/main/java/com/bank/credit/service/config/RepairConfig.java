@@ -0,0 +1,26 @@
+package com.bank.credit.service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * The thread pool the balance repair runs its chunks on.
+ * <p>
+ * One pool of {@code credit.repair.parallelism} threads is shared by every repair run and every shard, so
+ * concurrent runs queue up behind each other instead of each starting threads of their own. Spring shuts it down
+ * with the context.
+ */
+@Configuration
+public class RepairConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor repairExecutor(@Value("${credit.repair.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("balance-repair-");
+        return executor;
+    }
+}
@@ -0,0 +1,77 @@
+package com.bank.credit.service.config;
+
+import com.bank.credit.service.sharding.ShardRoutingDataSource;
+import com.bank.credit.service.sharding.ShardingProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data source configuration for customer-keyed sharding.
+ * <p>
+ * With {@code credit.sharding.enabled=true} the regular {@code spring.datasource} becomes shard 0 and the
+ * {@code credit.sharding.shards} become shards 1 to N, behind one {@link ShardRoutingDataSource}. Flyway migrates
+ * shard 0 on its own; the other shards are migrated here with the same scripts before the application starts.
+ * Sharding cannot be combined with the read replica routing.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Configuration
+    @ConditionalOnProperty("credit.sharding.enabled")
+    static class ShardRoutingConfig {
+
+        @Bean
+        @Primary
+        public DataSource dataSource(DataSourceProperties dataSourceProperties,
+                                     ShardingProperties shardingProperties,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${credit.datasource.routing.enabled:false}") boolean replicaRouting,
+                                     @Value("${spring.flyway.locations:classpath:db/migration}") List<String> migrations) {
+            if (replicaRouting) {
+                throw new IllegalStateException("credit.sharding.enabled cannot be combined with credit.datasource.routing.enabled");
+            }
+            Map<Object, Object> shards = new HashMap<>();
+            HikariDataSource shard0 = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            shard0.setPoolName("shard-0");
+            // the shard pools are no beans, so their hikaricp.* gauges are registered here
+            shard0.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            shards.put(0, shard0);
+            for (int i = 0; i < shardingProperties.shards().size(); i++) {
+                ShardingProperties.Shard shard = shardingProperties.shards().get(i);
+                HikariDataSource dataSource = DataSourceBuilder.create()
+                        .type(HikariDataSource.class)
+                        .url(shard.url())
+                        .username(shard.username())
+                        .password(shard.password())
+                        .build();
+                dataSource.setPoolName("shard-" + (i + 1));
+                dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+                Flyway.configure().dataSource(dataSource).locations(migrations.toArray(String[]::new)).load().migrate();
+                shards.put(i + 1, dataSource);
+            }
+            ShardRoutingDataSource routing = new ShardRoutingDataSource();
+            routing.setTargetDataSources(shards);
+            routing.setDefaultTargetDataSource(shard0);
+            routing.setLenientFallback(false);
+            routing.afterPropertiesSet();
+            return new LazyConnectionDataSourceProxy(routing);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.bank.credit.service.controller;
+
+import com.bank.credit.service.dto.ArchiveSummary;
+import com.bank.credit.service.dto.BalanceRepairSummary;
+import com.bank.credit.service.service.LoanArchiveService;
+import com.bank.credit.service.service.LoanBalanceRepairService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@Slf4j
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    private final LoanBalanceRepairService loanBalanceRepairService;
+    private final LoanArchiveService loanArchiveService;
+
+    public AdminController(LoanBalanceRepairService loanBalanceRepairService, LoanArchiveService loanArchiveService) {
+        this.loanBalanceRepairService = loanBalanceRepairService;
+        this.loanArchiveService = loanArchiveService;
+    }
+
+    @PostMapping("/loans/repair-balances")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BalanceRepairSummary> repairLoanBalances() {
+        log.info("Repairing running balance of all loans");
+        return ResponseEntity.ok(loanBalanceRepairService.repairAll());
+    }
+
+    @PostMapping("/loans/archive")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ArchiveSummary> archiveClosedLoans() {
+        log.info("Archiving closed loans");
+        return ResponseEntity.ok(loanArchiveService.archiveClosedLoans());
+    }
+}
@@ -1,29 +1,53 @@
 package com.bank.credit.service.controller;
 
+import com.bank.credit.service.dto.CreditBatchItemResult;
+import com.bank.credit.service.dto.CreditCursorPage;
 import com.bank.credit.service.dto.CreditDto;
 import com.bank.credit.service.dto.LoanFilter;
+import com.bank.credit.service.service.CreditBatchService;
 import com.bank.credit.service.service.CreditService;
+import com.bank.credit.service.service.LoanExportService;
+import com.bank.credit.service.util.JsonItemReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @RestController
 @RequestMapping("/credits")
 public class CreditController {
 
+    private static final int MAX_SEEK_PAGE_SIZE = 1000;
+
     private final CreditService creditService;
+    private final CreditBatchService creditBatchService;
+    private final LoanExportService loanExportService;
+    private final ObjectMapper objectMapper;
 
-    public CreditController(CreditService creditService) {
+    public CreditController(CreditService creditService,
+                            CreditBatchService creditBatchService,
+                            LoanExportService loanExportService,
+                            ObjectMapper objectMapper) {
         this.creditService = creditService;
+        this.creditBatchService = creditBatchService;
+        this.loanExportService = loanExportService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -33,6 +57,47 @@ public class CreditController {
         return new ResponseEntity<>(creditService.create(dto), HttpStatus.CREATED);
     }
 
+    /**
+     * Creates many loans in one request.
+     * <p>
+     * The body is either a JSON array or newline-delimited JSON of credit requests and is read as a stream.
+     * Every item gets its own result, so rejected items do not fail the rest of the batch.
+     *
+     * @param body the request body
+     * @return one result per item, in request order
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<CreditBatchItemResult>> createBatch(InputStream body) throws IOException {
+        log.info("Credit batch create");
+        try (JsonItemReader<CreditDto> items = new JsonItemReader<>(objectMapper, CreditDto.class, body)) {
+            return ResponseEntity.ok(creditBatchService.createAll(items));
+        }
+    }
+
+    /**
+     * Exports loans with their installments inline as newline-delimited JSON, one loan per line.
+     * <p>
+     * Without a customer ID the whole portfolio is exported. The body is written while the rows are read
+     * from the database, and gzip-compressed if the client accepts it.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) Long customerId,
+                                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Export loans for customer {}", customerId == null ? "all" : customerId);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+        if (!gzip) {
+            return response.body(out -> loanExportService.export(customerId, out));
+        }
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(out -> {
+                    GZIPOutputStream compressed = new GZIPOutputStream(out);
+                    loanExportService.export(customerId, compressed);
+                    compressed.finish();
+                });
+    }
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -51,4 +116,32 @@ public class CreditController {
         return creditService.getLoanByCustomer(filter, pageable);
     }
 
+    /**
+     * Lists the loans of a customer with keyset pagination, sorted by loan amount and then ID.
+     * <p>
+     * The first page is requested without a token, every further page with the {@code nextToken} of the
+     * previous one. Unlike the offset listing, there is no total count and deep pages are as fast as the first.
+     */
+    @GetMapping("/seek")
+    @PreAuthorize("hasRole('ADMIN')")
+    public CreditCursorPage getFilteredLoansByCustomerSeek(@RequestParam Long customerId,
+                                                           @RequestParam(required = false) Integer numberOfInstallment,
+                                                           @RequestParam(required = false) Boolean isPaid,
+                                                           @RequestParam(required = false) String token,
+                                                           @RequestParam(defaultValue = "20") int size,
+                                                           @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+        log.info("Seek loans for customer {}, filters: numberOfInstallment={}, isPaid={}",
+                customerId, numberOfInstallment, isPaid);
+        if (size < 1 || size > MAX_SEEK_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_SEEK_PAGE_SIZE);
+        }
+
+        LoanFilter filter = LoanFilter.builder()
+                .customerId(customerId)
+                .numberOfInstallment(numberOfInstallment)
+                .isPaid(isPaid)
+                .build();
+        return creditService.getLoanByCustomer(filter, token, size, direction);
+    }
+
 }
\ No newline at end of file
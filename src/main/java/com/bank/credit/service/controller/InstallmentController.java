@@ -2,16 +2,24 @@ package com.bank.credit.service.controller;
 
 import com.bank.credit.service.dto.InstallmentDto;
 import com.bank.credit.service.dto.PayedInstallmentDto;
+import com.bank.credit.service.dto.PaymentImportSummary;
 import com.bank.credit.service.service.InstallmentPaymentService;
 import com.bank.credit.service.service.LoanInstallmentService;
+import com.bank.credit.service.util.JsonItemReader;
+import com.bank.credit.service.util.PaymentCsvReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -20,11 +28,14 @@ public class InstallmentController {
 
     private final LoanInstallmentService installmentService;
     private final InstallmentPaymentService installmentPaymentService;
+    private final ObjectMapper objectMapper;
 
     public InstallmentController(LoanInstallmentService installmentService,
-                                 InstallmentPaymentService installmentPaymentService) {
+                                 InstallmentPaymentService installmentPaymentService,
+                                 ObjectMapper objectMapper) {
         this.installmentService = installmentService;
         this.installmentPaymentService = installmentPaymentService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -44,10 +55,68 @@ public class InstallmentController {
         return ResponseEntity.ok(installments);
     }
 
+    /**
+     * Retrieves the installments of many loans in one request, grouped by loan ID.
+     *
+     * @param loanIds the IDs of the loans, e.g. {@code ?loanIds=1,2,3}
+     * @return the installments of each loan that has any
+     */
+    @GetMapping(params = "loanIds")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<Long, List<InstallmentDto>>> getInstallmentsByLoans(@RequestParam("loanIds") List<Long> loanIds) {
+        log.info("Getting all installments for {} loans", loanIds.size());
+        return ResponseEntity.ok(installmentService.getByLoans(loanIds));
+    }
+
+    /**
+     * Retrieves the installments of all loans of a customer, grouped by loan ID.
+     *
+     * @param customerId the ID of the customer
+     * @return the installments of each loan of the customer
+     */
+    @GetMapping(params = "customerId")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<Long, List<InstallmentDto>>> getInstallmentsByCustomer(@RequestParam("customerId") Long customerId) {
+        log.info("Getting all installments for customer id {}", customerId);
+        return ResponseEntity.ok(installmentService.getByCustomer(customerId));
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<PayedInstallmentDto> payInstallment(@Valid @RequestBody InstallmentDto dto) {
         log.info("Paying installment for loan id {}", dto.getLoanId());
         return new ResponseEntity<>(installmentPaymentService.payInstallment(dto), HttpStatus.CREATED);
     }
-}
\ No newline at end of file
+
+    /**
+     * Imports a payment file with one {@code loanId,amount} line per payment.
+     * <p>
+     * The file is read as a stream, so its size is not limited by memory.
+     *
+     * @param body the CSV file
+     * @return a summary of applied and rejected lines
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PaymentImportSummary> importCsvPayments(InputStream body) throws IOException {
+        log.info("Importing CSV payment file");
+        try (PaymentCsvReader payments = new PaymentCsvReader(body)) {
+            return ResponseEntity.ok(installmentPaymentService.importPayments(payments));
+        }
+    }
+
+    /**
+     * Imports payments given as a JSON array or newline-delimited JSON.
+     *
+     * @param body the payments
+     * @return a summary of applied and rejected payments
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PaymentImportSummary> importJsonPayments(InputStream body) throws IOException {
+        log.info("Importing JSON payment file");
+        try (JsonItemReader<InstallmentDto> payments = new JsonItemReader<>(objectMapper, InstallmentDto.class, body)) {
+            return ResponseEntity.ok(installmentPaymentService.importPayments(payments));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.bank.credit.service.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read replicas that read-only transactions are routed to when {@code credit.datasource.routing.enabled} is set.
+ *
+ * @param replicas            the replica connections; the primary is the regular {@code spring.datasource}
+ * @param healthCheckInterval how often the replicas are probed; a replica that fails a probe or a connection
+ *                            attempt gets no reads until it passes a probe again
+ * @param readYourWritesWindow how long the reads of a customer or loan stay on the primary after it was written,
+ *                            zero turns read-your-writes off
+ */
+@ConfigurationProperties("credit.datasource")
+public record ReadReplicaProperties(@DefaultValue List<Replica> replicas,
+                                    @DefaultValue("5s") Duration healthCheckInterval,
+                                    @DefaultValue("0s") Duration readYourWritesWindow) {
+
+    public record Replica(String name, String url, String username, String password) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.bank.credit.service.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Sends the connections of read-only transactions to a read replica and everything else to the primary.
+ * <p>
+ * The routing decision is made when the connection is requested, so this data source must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the transaction manager asks for the
+ * connection before the transaction is marked read-only, the proxy defers it until the first statement.
+ * Reads stay on the primary if no replica is healthy, or if {@link ReadYourWrites} pinned the transaction to it.
+ * Every routed connection is counted in the {@code credit.datasource.connections} counter by target.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    static final String CONNECTIONS_METRIC = "credit.datasource.connections";
+    static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final ReplicaPool replicaPool;
+    private final MeterRegistry meterRegistry;
+
+    public ReadWriteRoutingDataSource(DataSource primary, ReplicaPool replicaPool, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicaPool = replicaPool;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(target -> target.getConnection(username, password));
+    }
+
+    private Connection route(ConnectionOpener opener) throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReadYourWrites.isPinnedToPrimary()) {
+            ReplicaPool.Replica replica;
+            while ((replica = replicaPool.next()) != null) {
+                try {
+                    Connection connection = opener.open(replica.dataSource());
+                    meterRegistry.counter(CONNECTIONS_METRIC, "target", replica.name()).increment();
+                    return connection;
+                } catch (SQLException ex) {
+                    replicaPool.markDown(replica, ex);
+                }
+            }
+        }
+        meterRegistry.counter(CONNECTIONS_METRIC, "target", PRIMARY).increment();
+        return opener.open(primary);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+
+        Connection open(DataSource target) throws SQLException;
+    }
+}
@@ -0,0 +1,105 @@
+package com.bank.credit.service.datasource;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the reads of recently written customers and loans on the primary, so a client does not read a replica
+ * that has not caught up with its own write yet.
+ * <p>
+ * Writes are recorded when their transaction commits. A read-only transaction that reads a customer or loan
+ * written less than {@code credit.datasource.read-your-writes-window} ago is pinned to the primary until it
+ * completes. The pin must be taken before the first statement of the transaction, because the connection is
+ * routed on first use. With a zero window nothing is recorded or pinned. The pin has no effect unless
+ * {@code credit.datasource.routing.enabled} is set.
+ */
+@Component
+public class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private final long windowNanos;
+    private final Map<Key, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWrites(ReadReplicaProperties properties) {
+        this.windowNanos = properties.readYourWritesWindow().toNanos();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED.get());
+    }
+
+    public void recordCustomerWrite(Long customerId) {
+        record(new Key("customer", customerId));
+    }
+
+    public void recordLoanWrite(Long loanId) {
+        record(new Key("loan", loanId));
+    }
+
+    /**
+     * Pins the current transaction to the primary if the customer was written within the window.
+     */
+    public void readCustomer(Long customerId) {
+        pinIfRecent(new Key("customer", customerId));
+    }
+
+    /**
+     * Pins the current transaction to the primary if the loan was written within the window.
+     */
+    public void readLoan(Long loanId) {
+        pinIfRecent(new Key("loan", loanId));
+    }
+
+    // drops the writes whose window has passed and that were not read since
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(writtenAt -> now - writtenAt >= windowNanos);
+    }
+
+    private void record(Key key) {
+        if (windowNanos == 0 || key.id() == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    lastWrites.put(key, System.nanoTime());
+                }
+            });
+        } else {
+            lastWrites.put(key, System.nanoTime());
+        }
+    }
+
+    private void pinIfRecent(Key key) {
+        if (windowNanos == 0 || isPinnedToPrimary() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Long writtenAt = lastWrites.get(key);
+        if (writtenAt == null) {
+            return;
+        }
+        if (System.nanoTime() - writtenAt >= windowNanos) {
+            lastWrites.remove(key, writtenAt);
+            return;
+        }
+        PINNED.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                PINNED.remove();
+            }
+        });
+    }
+
+    private record Key(String type, Long id) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.bank.credit.service.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read replicas with their health state.
+ * <p>
+ * Reads are spread over the healthy replicas round robin. A replica is taken out of the rotation when a
+ * connection to it fails or it fails a probe, and put back when a later probe succeeds.
+ */
+@Slf4j
+public class ReplicaPool implements AutoCloseable {
+
+    private static final int PROBE_TIMEOUT_SECONDS = 2;
+
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaPool(List<Replica> replicas) {
+        this.replicas = List.copyOf(replicas);
+    }
+
+    /**
+     * Picks the next healthy replica.
+     *
+     * @return the replica, or null if none is healthy
+     */
+    public Replica next() {
+        int size = replicas.size();
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), size));
+            if (replica.isHealthy()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    public void markDown(Replica replica, Exception cause) {
+        if (replica.healthy.compareAndSet(true, false)) {
+            log.warn("Read replica {} is down, reads fall back to the other replicas or the primary: {}",
+                    replica.name(), cause.getMessage());
+        }
+    }
+
+    /**
+     * Probes every replica with a connection validity check and updates its health.
+     */
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource().getConnection()) {
+                if (!connection.isValid(PROBE_TIMEOUT_SECONDS)) {
+                    throw new SQLException("connection is not valid");
+                }
+                if (replica.healthy.compareAndSet(false, true)) {
+                    log.info("Read replica {} is back up", replica.name());
+                }
+            } catch (SQLException ex) {
+                markDown(replica, ex);
+            }
+        }
+    }
+
+    public List<Replica> replicas() {
+        return replicas;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource() instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final AtomicBoolean healthy = new AtomicBoolean(true);
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public DataSource dataSource() {
+            return dataSource;
+        }
+
+        public boolean isHealthy() {
+            return healthy.get();
+        }
+    }
+}
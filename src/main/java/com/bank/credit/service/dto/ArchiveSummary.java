@@ -0,0 +1,11 @@
+package com.bank.credit.service.dto;
+
+/**
+ * Result of moving closed loans into the archive.
+ *
+ * @param loansArchived the number of loans moved into the archive
+ * @param chunks        the number of chunks the loans were moved in
+ * @param elapsedMillis the wall clock time of the archiving run
+ */
+public record ArchiveSummary(int loansArchived, int chunks, long elapsedMillis) {
+}
@@ -0,0 +1,11 @@
+package com.bank.credit.service.dto;
+
+/**
+ * Result of recomputing the running balance of all loans.
+ *
+ * @param loansRepaired the number of loans whose balance was recomputed
+ * @param chunks        the number of chunks the loans were split into
+ * @param elapsedMillis the wall clock time of the repair
+ */
+public record BalanceRepairSummary(int loansRepaired, int chunks, long elapsedMillis) {
+}
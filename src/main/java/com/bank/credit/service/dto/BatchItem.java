@@ -0,0 +1,25 @@
+package com.bank.credit.service.dto;
+
+/**
+ * One entry read from a bulk request body.
+ * <p>
+ * Either {@code value} holds the parsed item or {@code error} explains why the entry could not be read.
+ *
+ * @param index zero-based position of the entry in the request body
+ * @param value the parsed item, {@code null} if the entry was unreadable
+ * @param error the reason the entry could not be read, {@code null} on success
+ */
+public record BatchItem<T>(int index, T value, String error) {
+
+    public static <T> BatchItem<T> of(int index, T value) {
+        return new BatchItem<>(index, value, null);
+    }
+
+    public static <T> BatchItem<T> failed(int index, String error) {
+        return new BatchItem<>(index, null, error);
+    }
+
+    public boolean isReadable() {
+        return error == null;
+    }
+}
@@ -0,0 +1,37 @@
+package com.bank.credit.service.dto;
+
+import com.bank.credit.service.exception.ValidationError;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditBatchItemResult {
+
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+
+    private int index;
+
+    private Status status;
+
+    private CreditDto credit;
+
+    private List<ValidationError> errors;
+
+    public static CreditBatchItemResult created(int index, CreditDto credit) {
+        return new CreditBatchItemResult(index, Status.CREATED, credit, List.of());
+    }
+
+    public static CreditBatchItemResult rejected(int index, CreditDto credit, List<ValidationError> errors) {
+        return new CreditBatchItemResult(index, Status.REJECTED, credit, errors);
+    }
+}
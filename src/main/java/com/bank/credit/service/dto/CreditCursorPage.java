@@ -0,0 +1,12 @@
+package com.bank.credit.service.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset loan listing.
+ *
+ * @param content   the loans of the page
+ * @param nextToken the token to request the next page with, or null if this is the last page
+ */
+public record CreditCursorPage(List<CreditDto> content, String nextToken) {
+}
@@ -1,23 +1,22 @@
 package com.bank.credit.service.dto;
 
+import com.bank.credit.service.util.AmortizationMethod;
 import com.bank.credit.service.validation.InstallmentValue;
-import com.bank.credit.service.validation.IsLimitAvailable;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
-@IsLimitAvailable
 public class CreditDto {
 
     private Long id;
@@ -39,8 +38,36 @@ public class CreditDto {
     @DecimalMax(value = "0.5")
     @Digits(integer = 1, fraction = 2, message = "Interest rate must be a valid percentage (max 2 decimal places)")
     private BigDecimal interestRate;
-}
 
+    // flat when not given, see AmortizationMethod for how the interest rate is applied
+    @NotNull(message = "Amortization method is required")
+    private AmortizationMethod amortizationMethod = AmortizationMethod.FLAT;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer remainingInstallments;
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private BigDecimal outstandingAmount;
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDate nextDueDate;
 
+    public CreditDto(Long id, Long customerId, BigDecimal loanAmount, int numberOfInstallment, BigDecimal interestRate) {
+        this.id = id;
+        this.customerId = customerId;
+        this.loanAmount = loanAmount;
+        this.numberOfInstallment = numberOfInstallment;
+        this.interestRate = interestRate;
+    }
+
+    // Used by the read-only queries to select loans straight into the DTO
+    public CreditDto(Long id, Long customerId, BigDecimal loanAmount, Integer numberOfInstallment, BigDecimal interestRate,
+                     AmortizationMethod amortizationMethod, Integer remainingInstallments, BigDecimal outstandingAmount,
+                     LocalDate nextDueDate) {
+        this(id, customerId, loanAmount, numberOfInstallment, interestRate);
+        this.amortizationMethod = amortizationMethod;
+        this.remainingInstallments = remainingInstallments;
+        this.outstandingAmount = outstandingAmount;
+        this.nextDueDate = nextDueDate;
+    }
+}
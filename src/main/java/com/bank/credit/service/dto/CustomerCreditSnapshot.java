@@ -0,0 +1,47 @@
+package com.bank.credit.service.dto;
+
+import com.bank.credit.service.model.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The credit usage of a customer at one version of the customer row, in cents so that checking a request against
+ * it does not allocate.
+ *
+ * @param creditLimit     the customer's credit limit
+ * @param usedCreditLimit the part of the limit used by open loans
+ * @param version         the version of the customer row the values were read at
+ */
+public record CustomerCreditSnapshot(Money creditLimit, Money usedCreditLimit, Long version) {
+
+    /**
+     * Creates a snapshot from the customer columns. Amounts are rounded half up to cents like the columns round
+     * them, and a missing amount counts as zero.
+     */
+    public CustomerCreditSnapshot(BigDecimal creditLimit, BigDecimal usedCreditLimit, Long version) {
+        this(toMoney(creditLimit), toMoney(usedCreditLimit), version);
+    }
+
+    public Money availableCreditLimit() {
+        return creditLimit.minus(usedCreditLimit);
+    }
+
+    /**
+     * Tells whether the available credit limit covers the amount.
+     */
+    public boolean covers(BigDecimal amount) {
+        return Money.compare(creditLimit.minorUnits() - usedCreditLimit.minorUnits(), amount) >= 0;
+    }
+
+    /**
+     * Returns the snapshot after one more update of the used credit limit by the given amount.
+     */
+    public CustomerCreditSnapshot withUsedCreditLimitChangedBy(BigDecimal amount) {
+        return new CustomerCreditSnapshot(creditLimit, usedCreditLimit.plus(toMoney(amount)), version + 1);
+    }
+
+    private static Money toMoney(BigDecimal amount) {
+        return amount == null ? Money.ZERO : Money.of(amount, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,38 @@
+package com.bank.credit.service.dto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last loan of a keyset page, in the loan listing order (loan amount, then ID).
+ * <p>
+ * Clients only see the opaque {@link #encode() token} and pass it back unchanged to get the next page.
+ *
+ * @param loanAmount the loan amount of the last loan returned
+ * @param id         the ID of the last loan returned, breaks ties between equal amounts
+ */
+public record LoanCursor(BigDecimal loanAmount, Long id) {
+
+    private static final char SEPARATOR = ':';
+
+    public String encode() {
+        String raw = loanAmount.toPlainString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a token created by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is not a valid continuation token
+     */
+    public static LoanCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new LoanCursor(new BigDecimal(raw.substring(0, separator)), Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Malformed continuation token: " + token);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.bank.credit.service.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One line of the NDJSON loan export: a loan with all its installments inline, ordered by due date.
+ */
+public record LoanExportLine(Long id,
+                             Long customerId,
+                             BigDecimal loanAmount,
+                             Integer numberOfInstallment,
+                             BigDecimal interestRate,
+                             boolean paid,
+                             Integer remainingInstallments,
+                             BigDecimal outstandingAmount,
+                             LocalDate nextDueDate,
+                             List<InstallmentDto> installments) {
+}
@@ -0,0 +1,28 @@
+package com.bank.credit.service.dto;
+
+import com.bank.credit.service.model.InstallmentSchedule;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One row of the loan export query: a loan joined with one of its installments.
+ * The installment columns are null for a loan without installment rows, the schedule is null unless the loan
+ * keeps its installments in a compact schedule.
+ */
+public record LoanExportRow(Long loanId,
+                            Long customerId,
+                            BigDecimal loanAmount,
+                            Integer numberOfInstallment,
+                            BigDecimal interestRate,
+                            boolean loanPaid,
+                            Integer remainingInstallments,
+                            BigDecimal outstandingAmount,
+                            LocalDate nextDueDate,
+                            InstallmentSchedule schedule,
+                            BigDecimal amount,
+                            BigDecimal paidAmount,
+                            LocalDate dueDate,
+                            LocalDate paymentDate,
+                            Boolean installmentPaid) {
+}
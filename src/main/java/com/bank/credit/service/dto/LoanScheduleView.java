@@ -0,0 +1,14 @@
+package com.bank.credit.service.dto;
+
+import com.bank.credit.service.model.InstallmentSchedule;
+
+/**
+ * Read-only view of a loan that keeps its installments in a compact schedule.
+ *
+ * @param loanId     the loan ID
+ * @param customerId the ID of the customer owning the loan
+ * @param version    the version of the loan the schedule was read at
+ * @param schedule   the installment schedule
+ */
+public record LoanScheduleView(Long loanId, Long customerId, Long version, InstallmentSchedule schedule) {
+}
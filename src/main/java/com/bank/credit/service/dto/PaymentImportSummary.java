@@ -0,0 +1,50 @@
+package com.bank.credit.service.dto;
+
+import com.bank.credit.service.model.Money;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk payment import.
+ * <p>
+ * Counters cover every line of the file. Only the first {@link #MAX_REPORTED_REJECTIONS} rejected lines are
+ * listed in detail, so the summary stays small for files with many bad lines.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class PaymentImportSummary {
+
+    public static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    public record RejectedLine(int line, Long loanId, String reason) {
+    }
+
+    private int applied;
+
+    private int rejected;
+
+    private int installmentsPaid;
+
+    private Money totalAmountSpent = Money.ZERO;
+
+    private List<RejectedLine> rejectedLines = new ArrayList<>();
+
+    public void addApplied(int paidInstallments, BigDecimal amount) {
+        applied++;
+        installmentsPaid += paidInstallments;
+        totalAmountSpent = totalAmountSpent.plus(Money.of(amount));
+    }
+
+    public void addRejected(int line, Long loanId, String reason) {
+        rejected++;
+        if (rejectedLines.size() < MAX_REPORTED_REJECTIONS) {
+            rejectedLines.add(new RejectedLine(line, loanId, reason));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.bank.credit.service.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only view of an unpaid installment, carrying what a payment needs without loading the entities.
+ *
+ * @param id          the installment ID
+ * @param amount      the installment amount
+ * @param customerId  the ID of the customer owning the loan
+ * @param remainingInstallments the number of installments of the loan that are still unpaid, in any period
+ */
+public record UnpaidInstallmentView(Long id, BigDecimal amount, Long customerId, int remainingInstallments) {
+}
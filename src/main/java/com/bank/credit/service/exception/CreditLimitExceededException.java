@@ -0,0 +1,8 @@
+package com.bank.credit.service.exception;
+
+public class CreditLimitExceededException extends RuntimeException {
+
+    public CreditLimitExceededException() {
+        super("Credit limit is not sufficient");
+    }
+}
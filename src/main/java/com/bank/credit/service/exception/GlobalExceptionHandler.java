@@ -1,8 +1,10 @@
 package com.bank.credit.service.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -19,19 +21,45 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Turns exceptions into error responses.
+ * <p>
+ * Every handled exception is counted in {@value #METRIC}, tagged with the simple name of its class, so the rate of
+ * rejected credits, unknown customers or concurrent updates can be followed per type.
+ */
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    static final String METRIC = "credit.exceptions";
+
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<String> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        count(ex);
         return ResponseEntity
                 .status(HttpStatus.BAD_REQUEST)
                 .body("Data integrity violation: " + ex.getRootCause());
     }
 
+    // The row was changed by a concurrent request, the client can safely repeat the request
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        count(ex);
+        log.warn("Concurrent update detected: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body("Concurrent update, please retry: " + ex.getMessage());
+    }
+
     @ExceptionHandler(DataAccessException.class)
     public ResponseEntity<String> handleDataAccess(DataAccessException ex) {
+        count(ex);
         return ResponseEntity
                 .status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Database error: " + ex.getMostSpecificCause().getMessage());
@@ -39,6 +67,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGeneric(Exception ex) {
+        count(ex);
         log.error("Unhandled exception occurred", ex);
         return ResponseEntity
                 .status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -48,6 +77,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<List<ValidationError>> handleValidationErrors(MethodArgumentNotValidException ex) {
+        count(ex);
         List<ValidationError> errors = ex.getBindingResult().getFieldErrors()
                 .stream()
                 .map(field -> new ValidationError(field.getField(), field.getDefaultMessage()))
@@ -56,9 +86,19 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errors);
     }
 
+    // Reported like a failed field validation, the limit is checked when the loan is created
+    @ExceptionHandler(CreditLimitExceededException.class)
+    public ResponseEntity<List<ValidationError>> handleCreditLimitExceeded(CreditLimitExceededException ex) {
+        count(ex);
+        List<ValidationError> errors = List.of(new ValidationError("loanAmount", ex.getMessage()));
+        log.error("Validation failed: {}", errors);
+        return ResponseEntity.badRequest().body(errors);
+    }
+
     // Invalid type in query param, like ?page=abc
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<String> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        count(ex);
         String message = String.format("Invalid value for '%s': %s", ex.getName(), ex.getValue());
         log.error("MethodArgumentTypeMismatchException occurred: {}", message);
         return ResponseEntity.badRequest().body(message);
@@ -66,6 +106,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
+        count(ex);
         log.error("IllegalArgumentException occurred: {}", ex.getMessage());
         return ResponseEntity.badRequest().body("Invalid pagination or sort parameters: " + ex.getMessage());
     }
@@ -73,18 +114,21 @@ public class GlobalExceptionHandler {
     // Malformed JSON or boolean like isPaid=abc
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<String> handleUnreadableMessage(HttpMessageNotReadableException ex) {
+        count(ex);
         log.error("HttpMessageNotReadableException occurred: {}", ex.getMessage());
         return ResponseEntity.badRequest().body("Invalid request format: " + ex.getMostSpecificCause().getMessage());
     }
 
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<String> handleAccessDeniedException(AccessDeniedException ex) {
+        count(ex);
         return ResponseEntity.status(HttpStatus.FORBIDDEN)
                 .body("Access Denied");
     }
 
     @ExceptionHandler(AuthorizationDeniedException.class)
     public ResponseEntity<String> handleAuthorizationDeniedException(AuthorizationDeniedException ex) {
+        count(ex);
         return ResponseEntity.status(HttpStatus.FORBIDDEN)
                 .body("Access Denied");
     }
@@ -92,6 +136,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(MissingServletRequestParameterException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleMissingParams(MissingServletRequestParameterException ex) {
+        count(ex);
         Map<String, String> error = new HashMap<>();
         error.put("error", "Missing required parameter: " + ex.getParameterName());
         return error;
@@ -99,18 +144,24 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(CustomerNotFoundException.class)
     public ResponseEntity<String> handleCustomerNotFound(CustomerNotFoundException ex) {
+        count(ex);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
 
     @ExceptionHandler(InvalidPaymentAmountException.class)
     public ResponseEntity<String> handleInvalidPaymentAmountException(InvalidPaymentAmountException ex) {
+        count(ex);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
 
 
     @ExceptionHandler(UnpaidInstallmentsNotFoundException.class)
     public ResponseEntity<String> handleUnpaidInstallmentsNotFoundException(UnpaidInstallmentsNotFoundException ex) {
+        count(ex);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
 
-}
\ No newline at end of file
+    private void count(Exception ex) {
+        meterRegistry.counter(METRIC, "exception", ex.getClass().getSimpleName()).increment();
+    }
+}
@@ -1,14 +1,26 @@
 package com.bank.credit.service.mapper;
 
 import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.model.InstallmentSchedule;
 import com.bank.credit.service.model.LoanInstallment;
 import org.mapstruct.Mapper;
 
 import java.util.List;
+import java.util.stream.IntStream;
 
 @Mapper(componentModel = "spring")
 public interface InstallmentMapper {
 
     List<InstallmentDto> toDtoList(List<LoanInstallment> installments);
 
+    /**
+     * Materializes the installments of a compact schedule, ordered by due date.
+     */
+    default List<InstallmentDto> toDtoList(Long loanId, InstallmentSchedule schedule) {
+        return IntStream.range(0, schedule.count())
+                .mapToObj(i -> new InstallmentDto(loanId, schedule.amount(), schedule.isPaid(i) ? schedule.amount() : null,
+                        schedule.dueDate(i), schedule.paymentDate(i), schedule.isPaid(i)))
+                .toList();
+    }
+
 }
@@ -0,0 +1,71 @@
+package com.bank.credit.service.model;
+
+import com.bank.credit.service.util.AmortizationMethod;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A fully paid loan moved out of the loan tables by the archiver, keeping its original ID.
+ * <p>
+ * The installments are not kept one by one but compacted into the summary columns of this row.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Immutable
+public class ArchivedLoan {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id", nullable = false)
+    private Customer customer;
+
+    @Column(precision = 15, scale = 2, nullable = false)
+    private BigDecimal loanAmount;
+
+    @Column(nullable = false)
+    private Integer numberOfInstallment;
+
+    @Column(precision = 7, scale = 6, nullable = false)
+    private BigDecimal interestRate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private AmortizationMethod amortizationMethod;
+
+    private boolean isPaid;
+
+    @Column(nullable = false)
+    private Integer installmentCount;
+
+    @Column(precision = 38, scale = 2, nullable = false)
+    private BigDecimal installmentTotal;
+
+    @Column(precision = 38, scale = 2)
+    private BigDecimal paidTotal;
+
+    @Column(nullable = false)
+    private LocalDate firstDueDate;
+
+    @Column(nullable = false)
+    private LocalDate lastDueDate;
+
+    private LocalDate lastPaymentDate;
+
+    private LocalDateTime createdAt;
+
+    private String createdBy;
+
+    private LocalDateTime closedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -2,7 +2,6 @@ package com.bank.credit.service.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -15,7 +14,6 @@ import java.util.List;
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 @Entity
 @EntityListeners(AuditingEntityListener.class)
 public class Customer extends BaseEntity {
@@ -34,7 +32,23 @@ public class Customer extends BaseEntity {
     @Column(precision = 15, scale = 2)
     private BigDecimal usedCreditLimit;
 
+    // Only set by the archiver, so a customer saved from a stale copy cannot clear it
+    @Column(insertable = false, updatable = false)
+    private boolean hasArchivedLoans;
+
     @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Loan> loans = new ArrayList<>();
 
+    // Detects concurrent updates of the credit usage, bulk updates of the customer use "update versioned"
+    @Version
+    private Long version;
+
+    public Customer(String name, String surname, BigDecimal creditLimit, BigDecimal usedCreditLimit, List<Loan> loans) {
+        this.name = name;
+        this.surname = surname;
+        this.creditLimit = creditLimit;
+        this.usedCreditLimit = usedCreditLimit;
+        this.loans = loans;
+    }
+
 }
@@ -0,0 +1,182 @@
+package com.bank.credit.service.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The installment schedule of an equal-installment loan, kept in one column of the loan instead of one row per
+ * installment.
+ * <p>
+ * The installments are due monthly from {@code firstDueDate} and all have the same {@code amount}, so only
+ * which of them are paid has to be stored: bit {@code i} of {@code paidMask} is set once installment {@code i}
+ * is paid, and {@code paymentDates} holds the payment dates of the paid installments in installment order.
+ * A paid installment is always paid in full.
+ * <p>
+ * {@link #encode()} writes the schedule in a few dozen bytes: a format byte, the first due date, the count,
+ * the amount, the paid bitmap and a two byte day offset per paid installment.
+ *
+ * @param firstDueDate the due date of the first installment
+ * @param count        the number of installments, at most {@value #MAX_INSTALLMENTS}
+ * @param amount       the amount of every installment
+ * @param paidMask     the paid installments, bit {@code i} for installment {@code i}
+ * @param paymentDates the payment dates of the paid installments, in installment order
+ */
+public record InstallmentSchedule(LocalDate firstDueDate, int count, BigDecimal amount, long paidMask,
+                                  List<LocalDate> paymentDates) {
+
+    public static final int MAX_INSTALLMENTS = Long.SIZE;
+
+    private static final byte FORMAT = 1;
+
+    public InstallmentSchedule {
+        if (count < 1 || count > MAX_INSTALLMENTS) {
+            throw new IllegalArgumentException("A schedule has 1 to " + MAX_INSTALLMENTS + " installments, not " + count);
+        }
+        if (count < MAX_INSTALLMENTS && paidMask >>> count != 0) {
+            throw new IllegalArgumentException("Paid installment beyond the " + count + " installments of the schedule");
+        }
+        if (paymentDates.size() != Long.bitCount(paidMask)) {
+            throw new IllegalArgumentException("Every paid installment needs exactly one payment date");
+        }
+        paymentDates = List.copyOf(paymentDates);
+    }
+
+    /**
+     * Creates a schedule of unpaid installments.
+     */
+    public static InstallmentSchedule unpaid(LocalDate firstDueDate, int count, BigDecimal amount) {
+        return new InstallmentSchedule(firstDueDate, count, amount, 0L, List.of());
+    }
+
+    public LocalDate dueDate(int index) {
+        return firstDueDate.plusMonths(index);
+    }
+
+    public boolean isPaid(int index) {
+        return (paidMask & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the payment date of a paid installment, or null if it is not paid.
+     */
+    public LocalDate paymentDate(int index) {
+        return isPaid(index) ? paymentDates.get(Long.bitCount(paidMask & ((1L << index) - 1))) : null;
+    }
+
+    public int remainingInstallments() {
+        return count - Long.bitCount(paidMask);
+    }
+
+    public BigDecimal outstandingAmount() {
+        return amount.multiply(BigDecimal.valueOf(remainingInstallments()));
+    }
+
+    public BigDecimal paidAmount() {
+        return amount.multiply(BigDecimal.valueOf(Long.bitCount(paidMask)));
+    }
+
+    /**
+     * Returns the due date of the oldest unpaid installment, or null if all are paid.
+     */
+    public LocalDate nextDueDate() {
+        int index = Long.numberOfTrailingZeros(~paidMask);
+        return index < count ? dueDate(index) : null;
+    }
+
+    public LocalDate lastDueDate() {
+        return dueDate(count - 1);
+    }
+
+    public LocalDate lastPaymentDate() {
+        return paymentDates.stream().max(LocalDate::compareTo).orElse(null);
+    }
+
+    /**
+     * Lists the indexes of the unpaid installments due in the given period, oldest first.
+     */
+    public List<Integer> unpaidDueBetween(LocalDate start, LocalDate end) {
+        List<Integer> unpaid = new ArrayList<>();
+        for (int index = 0; index < count; index++) {
+            LocalDate dueDate = dueDate(index);
+            if (!isPaid(index) && !dueDate.isBefore(start) && !dueDate.isAfter(end)) {
+                unpaid.add(index);
+            }
+        }
+        return unpaid;
+    }
+
+    /**
+     * Returns the schedule with the given installments paid on the payment date.
+     *
+     * @throws IllegalArgumentException if one of the installments is already paid
+     */
+    public InstallmentSchedule pay(List<Integer> indexes, LocalDate paymentDate) {
+        long mask = paidMask;
+        for (int index : indexes) {
+            if ((mask & (1L << index)) != 0) {
+                throw new IllegalArgumentException("Installment " + index + " is already paid");
+            }
+            mask |= 1L << index;
+        }
+        List<LocalDate> dates = new ArrayList<>(Long.bitCount(mask));
+        for (int index = 0; index < count; index++) {
+            if ((mask & (1L << index)) != 0) {
+                dates.add(isPaid(index) ? paymentDate(index) : paymentDate);
+            }
+        }
+        return new InstallmentSchedule(firstDueDate, count, amount, mask, dates);
+    }
+
+    public byte[] encode() {
+        byte[] unscaled = amount.unscaledValue().toByteArray();
+        int maskBytes = (count + 7) / 8;
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 1 + 1 + 1 + unscaled.length + maskBytes + 2 * paymentDates.size());
+        buffer.put(FORMAT)
+                .putInt(Math.toIntExact(firstDueDate.toEpochDay()))
+                .put((byte) count)
+                .put((byte) amount.scale())
+                .put((byte) unscaled.length)
+                .put(unscaled);
+        for (int i = 0; i < maskBytes; i++) {
+            buffer.put((byte) (paidMask >>> (8 * i)));
+        }
+        for (LocalDate paymentDate : paymentDates) {
+            long offset = ChronoUnit.DAYS.between(firstDueDate, paymentDate);
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Payment date " + paymentDate + " is too far from " + firstDueDate);
+            }
+            buffer.putShort((short) offset);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not an encoded schedule
+     */
+    public static InstallmentSchedule decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get() != FORMAT) {
+            throw new IllegalArgumentException("Unknown installment schedule format " + bytes[0]);
+        }
+        LocalDate firstDueDate = LocalDate.ofEpochDay(buffer.getInt());
+        int count = Byte.toUnsignedInt(buffer.get());
+        int scale = buffer.get();
+        byte[] unscaled = new byte[buffer.get()];
+        buffer.get(unscaled);
+        BigDecimal amount = new BigDecimal(new BigInteger(unscaled), scale);
+        long paidMask = 0;
+        for (int i = 0; i < (count + 7) / 8; i++) {
+            paidMask |= (long) Byte.toUnsignedInt(buffer.get()) << (8 * i);
+        }
+        List<LocalDate> paymentDates = new ArrayList<>(Long.bitCount(paidMask));
+        for (int i = 0; i < Long.bitCount(paidMask); i++) {
+            paymentDates.add(firstDueDate.plusDays(buffer.getShort()));
+        }
+        return new InstallmentSchedule(firstDueDate, count, amount, paidMask, paymentDates);
+    }
+}
@@ -0,0 +1,21 @@
+package com.bank.credit.service.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores an {@link InstallmentSchedule} in its encoded form.
+ */
+@Converter
+public class InstallmentScheduleConverter implements AttributeConverter<InstallmentSchedule, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(InstallmentSchedule schedule) {
+        return schedule == null ? null : schedule.encode();
+    }
+
+    @Override
+    public InstallmentSchedule convertToEntityAttribute(byte[] bytes) {
+        return bytes == null ? null : InstallmentSchedule.decode(bytes);
+    }
+}
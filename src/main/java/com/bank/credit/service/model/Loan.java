@@ -1,7 +1,9 @@
 package com.bank.credit.service.model;
 
+import com.bank.credit.service.sharding.ShardKeyed;
+import com.bank.credit.service.util.AmortizationMethod;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -9,8 +11,10 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 @Getter
@@ -18,12 +22,14 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @EntityListeners(AuditingEntityListener.class)
-public class Loan extends BaseEntity {
+public class Loan extends BaseEntity implements ShardKeyed {
 
-    
     @OneToMany(mappedBy = "loan", cascade = CascadeType.PERSIST)
-    @NotEmpty(message = "Loan must have at least six installment")
     private final List<LoanInstallment> installments = new ArrayList<>();
+    // Replaces the installment rows of loans created with credit.installments.storage=compact
+    @Convert(converter = InstallmentScheduleConverter.class)
+    @Column(length = 255)
+    private InstallmentSchedule schedule;
     @NotNull
     @Column(precision = 15, scale = 2)
     private BigDecimal loanAmount;
@@ -32,11 +38,29 @@ public class Loan extends BaseEntity {
     @NotNull
     @Column(precision = 7, scale = 6)
     private BigDecimal interestRate;
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private AmortizationMethod amortizationMethod = AmortizationMethod.FLAT;
     private boolean isPaid;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", referencedColumnName = "id", nullable = false)
     //Maps the foreign key column to the customer table.
     private Customer customer;
+    @Version
+    private Long version;
+    // Running balance, kept in step with the installments by every payment so that completion
+    // and balance checks read one row instead of scanning the installments
+    private Integer remainingInstallments;
+    @Column(precision = 15, scale = 2)
+    private BigDecimal outstandingAmount;
+    private LocalDate nextDueDate;
+
+    // a loan lives in the shard of its customer
+    @Override
+    public Long shardKey() {
+        return customer == null ? null : customer.getId();
+    }
 
     public void setCustomer(Customer customer) {
         this.customer = customer;
@@ -50,6 +74,10 @@ public class Loan extends BaseEntity {
         this.interestRate = interestRate;
     }
 
+    public void setAmortizationMethod(AmortizationMethod amortizationMethod) {
+        this.amortizationMethod = amortizationMethod;
+    }
+
     public void setLoanAmount(BigDecimal loanAmount) {
         this.loanAmount = loanAmount;
     }
@@ -58,6 +86,22 @@ public class Loan extends BaseEntity {
         this.numberOfInstallment = numberOfInstallment;
     }
 
+    @AssertTrue(message = "Loan must have at least six installment")
+    public boolean isScheduled() {
+        // the compact schedule is checked first, so the installment rows of a loan are never loaded for this
+        return schedule != null || !installments.isEmpty();
+    }
+
+    /**
+     * Keeps the installments of this loan in the compact schedule instead of installment rows.
+     */
+    public void setSchedule(InstallmentSchedule schedule) {
+        this.schedule = schedule;
+        this.remainingInstallments = schedule.remainingInstallments();
+        this.outstandingAmount = schedule.outstandingAmount();
+        this.nextDueDate = schedule.nextDueDate();
+    }
+
     public List<LoanInstallment> getInstallments() {
         return Collections.unmodifiableList(installments);
     }
@@ -65,7 +109,25 @@ public class Loan extends BaseEntity {
     public void addInstallments(List<LoanInstallment> newInstallments) {
         if (newInstallments != null && !newInstallments.isEmpty()) {
             this.installments.addAll(newInstallments);
+            refreshBalance();
         }
     }
 
+    /**
+     * Recomputes the running balance from the installments held by this loan.
+     */
+    private void refreshBalance() {
+        List<LoanInstallment> unpaid = installments.stream()
+                .filter(installment -> !installment.isPaid())
+                .toList();
+        this.remainingInstallments = unpaid.size();
+        this.outstandingAmount = unpaid.stream()
+                .map(LoanInstallment::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        this.nextDueDate = unpaid.stream()
+                .map(LoanInstallment::getDueDate)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+    }
+
 }
\ No newline at end of file
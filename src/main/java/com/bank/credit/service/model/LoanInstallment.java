@@ -1,5 +1,6 @@
 package com.bank.credit.service.model;
 
+import com.bank.credit.service.sharding.ShardKeyed;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.JoinColumn;
@@ -20,7 +21,7 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @Entity
 @EntityListeners(AuditingEntityListener.class)
-public class LoanInstallment extends BaseEntity {
+public class LoanInstallment extends BaseEntity implements ShardKeyed {
 
     @NotNull
     private BigDecimal amount;
@@ -38,4 +39,9 @@ public class LoanInstallment extends BaseEntity {
     @JoinColumn(name = "loan_id", referencedColumnName = "id", nullable = false)
     private Loan loan;
 
+    // an installment lives in the shard of its loan
+    @Override
+    public Long shardKey() {
+        return loan == null ? null : loan.getId();
+    }
 }
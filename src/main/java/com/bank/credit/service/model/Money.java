@@ -0,0 +1,144 @@
+package com.bank.credit.service.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of money in minor units (cents), so arithmetic and comparisons run on a {@code long}.
+ * <p>
+ * Amounts have {@value #SCALE} decimal places, like the amount columns. Converting a {@link BigDecimal} with more
+ * decimal places needs an explicit {@link RoundingMode}, and so does dividing; {@link #of(BigDecimal)} and the other
+ * operations throw {@link ArithmeticException} instead of silently losing cents or overflowing. In JSON a Money is a
+ * plain decimal number; entities keep their amounts as {@link BigDecimal}.
+ *
+ * @param minorUnits the amount in cents
+ */
+public record Money(long minorUnits) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+
+    public static final Money ZERO = new Money(0);
+
+    // any amount with at most 16 integer digits fits a long in cents
+    private static final int MAX_INTEGER_DIGITS = 16;
+
+    public static Money ofMinorUnits(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more than {@value #SCALE} decimal places or does not fit
+     */
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        return ofMinorUnits(toMinorUnits(amount));
+    }
+
+    /**
+     * Converts an amount, rounding it to {@value #SCALE} decimal places with the given rounding mode.
+     *
+     * @throws ArithmeticException if the amount does not fit
+     */
+    public static Money of(BigDecimal amount, RoundingMode rounding) {
+        return of(amount.setScale(SCALE, rounding));
+    }
+
+    /**
+     * Tells whether an amount converts to minor units without rounding or overflow.
+     */
+    public static boolean isExact(BigDecimal amount) {
+        return amount.scale() <= SCALE && amount.precision() - amount.scale() <= MAX_INTEGER_DIGITS;
+    }
+
+    /**
+     * Returns the amount in cents.
+     *
+     * @throws ArithmeticException if the amount has more than {@value #SCALE} decimal places or does not fit
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        if (amount.scale() > SCALE && amount.stripTrailingZeros().scale() > SCALE) {
+            throw new ArithmeticException("Amount " + amount + " has more than " + SCALE + " decimal places");
+        }
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    /**
+     * Divides with the given rounding, the way {@link BigDecimal#divide(BigDecimal, RoundingMode)} rounds at scale 0.
+     *
+     * @throws ArithmeticException if the divisor is zero, or the rounding mode is
+     *                             {@link RoundingMode#UNNECESSARY} and the division is not exact
+     */
+    public static long divide(long dividend, long divisor, RoundingMode rounding) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        // 1 if the exact quotient is positive, -1 if it is negative
+        int sign = ((dividend ^ divisor) >> (Long.SIZE - 1)) == 0 ? 1 : -1;
+        long absRemainder = Math.abs(remainder);
+        int half = Long.compare(absRemainder, Math.abs(divisor) - absRemainder);
+        boolean awayFromZero = switch (rounding) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> sign > 0;
+            case FLOOR -> sign < 0;
+            case HALF_UP -> half >= 0;
+            case HALF_DOWN -> half > 0;
+            case HALF_EVEN -> half > 0 || (half == 0 && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+        };
+        return awayFromZero ? quotient + sign : quotient;
+    }
+
+    public Money plus(Money other) {
+        return ofMinorUnits(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinorUnits(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money times(int factor) {
+        return ofMinorUnits(Math.multiplyExact(minorUnits, factor));
+    }
+
+    /**
+     * Splits the amount into equal parts, rounding every part to whole cents.
+     */
+    public Money divide(int parts, RoundingMode rounding) {
+        return ofMinorUnits(divide(minorUnits, parts, rounding));
+    }
+
+    /**
+     * Compares with an amount that may have more decimal places, without converting either side if it fits.
+     */
+    public int compareTo(BigDecimal amount) {
+        return compare(minorUnits, amount);
+    }
+
+    /**
+     * Compares an amount in cents with an amount that may have more decimal places, on primitives if the latter fits.
+     */
+    public static int compare(long minorUnits, BigDecimal amount) {
+        return isExact(amount) ? Long.compare(minorUnits, toMinorUnits(amount)) : BigDecimal.valueOf(minorUnits, SCALE).compareTo(amount);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,79 @@
+package com.bank.credit.service.repository;
+
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.model.ArchivedLoan;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedLoanRepository extends JpaRepository<ArchivedLoan, Long> {
+
+    /**
+     * Copies the given loans into the archive, compacting the installments of each loan into its summary columns.
+     *
+     * @return the number of archived loans
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into archived_loan (id, customer_id, loan_amount, number_of_installment, " +
+            "interest_rate, amortization_method, is_paid, installment_count, installment_total, paid_total, first_due_date, last_due_date, " +
+            "last_payment_date, created_at, created_by, closed_at, archived_at) " +
+            "select l.id, l.customer_id, l.loan_amount, l.number_of_installment, l.interest_rate, l.amortization_method, l.is_paid, " +
+            "count(i.id), sum(i.amount), sum(i.paid_amount), min(i.due_date), max(i.due_date), max(i.payment_date), " +
+            "l.created_at, l.created_by, l.updated_at, :archivedAt " +
+            "from loan l join loan_installment i on i.loan_id = l.id where l.id in (:ids) " +
+            "group by l.id, l.customer_id, l.loan_amount, l.number_of_installment, l.interest_rate, l.amortization_method, l.is_paid, " +
+            "l.created_at, l.created_by, l.updated_at")
+    int archive(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * Copies a loan with a compact schedule into the archive, with the summary computed from the schedule.
+     *
+     * @return the number of archived loans
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "insert into archived_loan (id, customer_id, loan_amount, number_of_installment, " +
+            "interest_rate, amortization_method, is_paid, installment_count, installment_total, paid_total, first_due_date, last_due_date, " +
+            "last_payment_date, created_at, created_by, closed_at, archived_at) " +
+            "select l.id, l.customer_id, l.loan_amount, l.number_of_installment, l.interest_rate, l.amortization_method, l.is_paid, " +
+            ":count, :total, :paidTotal, :firstDueDate, :lastDueDate, :lastPaymentDate, " +
+            "l.created_at, l.created_by, l.updated_at, :archivedAt " +
+            "from loan l where l.id = :id")
+    int archiveScheduled(@Param("id") Long id,
+                         @Param("count") int count,
+                         @Param("total") BigDecimal total,
+                         @Param("paidTotal") BigDecimal paidTotal,
+                         @Param("firstDueDate") LocalDate firstDueDate,
+                         @Param("lastDueDate") LocalDate lastDueDate,
+                         @Param("lastPaymentDate") LocalDate lastPaymentDate,
+                         @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * Marks the customers of the given archived loans as having archived loans, which makes their listings read the
+     * archive.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "update customer set has_archived_loans = true where has_archived_loans = false " +
+            "and id in (select customer_id from archived_loan where id in (:ids))")
+    int markCustomersWithArchivedLoans(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lists the compacted installments of archived loans, one summary per loan, ordered by loan.
+     * The summary carries the total amount and total paid, the last due date and the last payment date.
+     */
+    @Query("select new com.bank.credit.service.dto.InstallmentDto(a.id, a.installmentTotal, a.paidTotal, a.lastDueDate, " +
+            "a.lastPaymentDate, a.isPaid) from ArchivedLoan a where a.id in :ids order by a.id")
+    List<InstallmentDto> findInstallmentSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select new com.bank.credit.service.dto.InstallmentDto(a.id, a.installmentTotal, a.paidTotal, a.lastDueDate, " +
+            "a.lastPaymentDate, a.isPaid) from ArchivedLoan a where a.customer.id = :customerId order by a.id")
+    List<InstallmentDto> findInstallmentSummariesByCustomerId(@Param("customerId") Long customerId);
+}
@@ -1,14 +1,44 @@
 package com.bank.credit.service.repository;
 
+import com.bank.credit.service.dto.CustomerCreditSnapshot;
 import com.bank.credit.service.model.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
-    Optional<Customer> findByLoans_Id(Long loanId);
+    /**
+     * Reserves credit limit in one atomic update. The customer is only updated if the available limit
+     * covers the whole amount, so concurrent reservations can never exceed the credit limit.
+     *
+     * @return the number of updated customers, 0 if the customer does not exist or the limit is not sufficient
+     */
+    @Modifying
+    @Query("update versioned Customer c set c.usedCreditLimit = c.usedCreditLimit + :amount " +
+            "where c.id = :customerId and c.creditLimit - c.usedCreditLimit >= :amount")
+    int reserveCreditLimit(@Param("customerId") Long customerId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Gives back part of the used credit limit in one atomic update, without reading the customer first.
+     *
+     * @return the number of updated customers, 0 if the customer does not exist
+     */
+    @Modifying
+    @Query("update versioned Customer c set c.usedCreditLimit = c.usedCreditLimit - :amount where c.id = :customerId")
+    int releaseCreditLimit(@Param("customerId") Long customerId, @Param("amount") BigDecimal amount);
+
+    /**
+     * Reads only the credit usage of a customer, without loading the entity.
+     */
+    @Query("select new com.bank.credit.service.dto.CustomerCreditSnapshot(c.creditLimit, c.usedCreditLimit, c.version) " +
+            "from Customer c where c.id = :customerId")
+    Optional<CustomerCreditSnapshot> findCreditSnapshotById(@Param("customerId") Long customerId);
 
 }
@@ -1,10 +1,18 @@
 package com.bank.credit.service.repository;
 
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.dto.UnpaidInstallmentView;
 import com.bank.credit.service.model.LoanInstallment;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,7 +20,73 @@ public interface LoanInstallmentRepository extends JpaRepository<LoanInstallment
 
     List<LoanInstallment> findByLoan_Id(Long loan_id);
 
-    List<LoanInstallment> findByLoan_IdAndDueDateBetweenAndIsPaidFalse(Long loanId, LocalDate start, LocalDate end);
+    /**
+     * Lists the installments of a loan as read-only DTOs, ordered by due date.
+     * Only the columns of the DTO are selected and no entity is loaded into the persistence context.
+     */
+    @Query("select new com.bank.credit.service.dto.InstallmentDto(i.loan.id, i.amount, i.paidAmount, i.dueDate, " +
+            "i.paymentDate, i.isPaid) from LoanInstallment i where i.loan.id = :loanId order by i.dueDate")
+    List<InstallmentDto> findDtosByLoanId(@Param("loanId") Long loanId);
+
+    /**
+     * Lists the installments of many loans as read-only DTOs, ordered by loan and due date.
+     */
+    @Query("select new com.bank.credit.service.dto.InstallmentDto(i.loan.id, i.amount, i.paidAmount, i.dueDate, " +
+            "i.paymentDate, i.isPaid) from LoanInstallment i where i.loan.id in :loanIds order by i.loan.id, i.dueDate")
+    List<InstallmentDto> findDtosByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
+
+    /**
+     * Lists the installments of all loans of a customer as read-only DTOs, ordered by loan and due date.
+     */
+    @Query("select new com.bank.credit.service.dto.InstallmentDto(i.loan.id, i.amount, i.paidAmount, i.dueDate, " +
+            "i.paymentDate, i.isPaid) from LoanInstallment i where i.loan.customer.id = :customerId " +
+            "order by i.loan.id, i.dueDate")
+    List<InstallmentDto> findDtosByCustomerId(@Param("customerId") Long customerId);
+
+    /**
+     * Lists the unpaid installments of a loan due in the given period, oldest first.
+     * Each row also carries the customer ID and the number of unpaid installments the loan has in total.
+     */
+    @Query("select new com.bank.credit.service.dto.UnpaidInstallmentView(i.id, i.amount, l.customer.id, l.remainingInstallments) " +
+            "from LoanInstallment i join i.loan l where l.id = :loanId and i.isPaid = false " +
+            "and i.dueDate between :start and :end order by i.dueDate")
+    List<UnpaidInstallmentView> findUnpaidViewsByLoanIdAndDueDateBetween(@Param("loanId") Long loanId,
+                                                                         @Param("start") LocalDate start,
+                                                                         @Param("end") LocalDate end);
+
+    /**
+     * Lists the loans among the given IDs that have at least one installment row.
+     */
+    @Query("select distinct i.loan.id from LoanInstallment i where i.loan.id in :loanIds")
+    List<Long> findLoanIdsWithInstallments(@Param("loanIds") Collection<Long> loanIds);
+
+    @Modifying
+    @Query("delete from LoanInstallment i where i.loan.id in :loanIds")
+    int deleteAllByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
+
+    /**
+     * Marks the given installments as paid in full.
+     * Installments that are already paid are left untouched, so a count lower than {@code ids.size()}
+     * means a concurrent payment got there first.
+     *
+     * @return the number of installments marked as paid
+     */
+    @Modifying
+    @Query("update LoanInstallment i set i.isPaid = true, i.paidAmount = i.amount, i.paymentDate = :paymentDate, " +
+            "i.updatedAt = :updatedAt where i.id in :ids and i.isPaid = false")
+    int markPaid(@Param("ids") Collection<Long> ids,
+                 @Param("paymentDate") LocalDate paymentDate,
+                 @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Loads the unpaid installments due in the given period for many loans at once,
+     * together with their loan and customer, ordered by loan and due date.
+     */
+    @EntityGraph(attributePaths = {"loan", "loan.customer"})
+    @Query("select i from LoanInstallment i where i.loan.id in :loanIds and i.isPaid = false " +
+            "and i.dueDate between :start and :end order by i.loan.id, i.dueDate")
+    List<LoanInstallment> findUnpaidByLoanIdsAndDueDateBetween(@Param("loanIds") Collection<Long> loanIds,
+                                                               @Param("start") LocalDate start,
+                                                               @Param("end") LocalDate end);
 
-    boolean existsByLoan_IdAndIsPaidFalse(Long loanId);
 }
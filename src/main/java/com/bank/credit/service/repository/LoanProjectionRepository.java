@@ -0,0 +1,52 @@
+package com.bank.credit.service.repository;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.LoanCursor;
+import com.bank.credit.service.dto.LoanFilter;
+import com.bank.credit.service.model.Loan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only loan queries that select straight into {@link CreditDto} instead of loading managed entities.
+ */
+public interface LoanProjectionRepository {
+
+    /**
+     * The properties the loan listing can be sorted by, with their columns in {@code loan} and {@code archived_loan}.
+     */
+    Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id",
+            "loanAmount", "loan_amount",
+            "numberOfInstallment", "number_of_installment",
+            "interestRate", "interest_rate",
+            "remainingInstallments", "remaining_installments",
+            "outstandingAmount", "outstanding_amount",
+            "nextDueDate", "next_due_date");
+
+    Page<CreditDto> findCredits(Specification<Loan> spec, Pageable pageable);
+
+    List<CreditDto> findCredits(Specification<Loan> spec, Sort sort, int limit);
+
+    /**
+     * Lists the loans of the filter's customer together with the archived ones, in one {@code union all} query
+     * that sorts and skips in the database. The archive is only read if the customer has archived loans.
+     *
+     * @param filter   the loan filter, its customer ID is required
+     * @param pageable the page request, sorted by {@link #SORT_COLUMNS} properties only
+     */
+    Page<CreditDto> findCreditsWithArchive(LoanFilter filter, Pageable pageable);
+
+    /**
+     * Lists loans and archived loans after the cursor, sorted by loan amount and then ID, like
+     * {@link #findCreditsWithArchive(LoanFilter, Pageable)}.
+     *
+     * @param cursor the position of the previous page, or null for the first page
+     */
+    List<CreditDto> findCreditsWithArchive(LoanFilter filter, LoanCursor cursor, Sort.Direction direction, int limit);
+}
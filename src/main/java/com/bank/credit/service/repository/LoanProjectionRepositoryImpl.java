@@ -0,0 +1,204 @@
+package com.bank.credit.service.repository;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.LoanCursor;
+import com.bank.credit.service.dto.LoanFilter;
+import com.bank.credit.service.model.Loan;
+import com.bank.credit.service.util.AmortizationMethod;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+/**
+ * Builds the {@link CreditDto} constructor projection with the Criteria API, so the same
+ * {@link Specification}s as the entity queries can be used. Only the columns of the DTO are selected,
+ * and the customer ID is read from the foreign key column without a join.
+ * <p>
+ * Listings that include archived loans are one native {@code union all} of {@code loan} and {@code archived_loan},
+ * so the database sorts, skips and limits the combined rows and a deep page costs no more rows than a shallow one.
+ */
+class LoanProjectionRepositoryImpl implements LoanProjectionRepository {
+
+    private static final String LOAN_COLUMNS = "id, customer_id, loan_amount, number_of_installment, interest_rate, " +
+            "amortization_method, remaining_installments, outstanding_amount, next_due_date";
+
+    // archived loans are fully paid, so nothing is outstanding
+    private static final String ARCHIVED_LOAN_COLUMNS = "id, customer_id, loan_amount, number_of_installment, interest_rate, " +
+            "amortization_method, 0, cast(0 as numeric(15, 2)), cast(null as date)";
+
+    // evaluated once per query, the archive is not touched for customers without archived loans
+    private static final String HAS_ARCHIVED_LOANS =
+            "exists (select 1 from customer c where c.id = :customerId and c.has_archived_loans)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<CreditDto> findCredits(Specification<Loan> spec, Pageable pageable) {
+        TypedQuery<CreditDto> query = creditQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<CreditDto> findCredits(Specification<Loan> spec, Sort sort, int limit) {
+        return creditQuery(spec, sort).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Page<CreditDto> findCreditsWithArchive(LoanFilter filter, Pageable pageable) {
+        String where = where(filter, null, null);
+        StringBuilder sql = new StringBuilder(union(where)).append(" order by ").append(orderBy(pageable.getSort()));
+        if (pageable.isPaged()) {
+            sql.append(" offset :offset rows fetch next :limit rows only");
+        }
+        NativeQuery<Object[]> query = creditRows(sql.toString());
+        bind(query, filter, null);
+        if (pageable.isPaged()) {
+            query.setParameter("offset", pageable.getOffset());
+            query.setParameter("limit", pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(toCredits(query.getResultList()), pageable, () -> countWithArchive(filter, where));
+    }
+
+    @Override
+    public List<CreditDto> findCreditsWithArchive(LoanFilter filter, LoanCursor cursor, Sort.Direction direction, int limit) {
+        String sql = union(where(filter, cursor, direction)) + " order by loan_amount " + direction.name() + ", id " + direction.name() +
+                " fetch first :limit rows only";
+        NativeQuery<Object[]> query = creditRows(sql);
+        bind(query, filter, cursor);
+        query.setParameter("limit", limit);
+        return toCredits(query.getResultList());
+    }
+
+    private TypedQuery<CreditDto> creditQuery(Specification<Loan> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CreditDto> query = cb.createQuery(CreditDto.class);
+        Root<Loan> loan = query.from(Loan.class);
+        query.select(cb.construct(CreditDto.class,
+                loan.get("id"),
+                loan.get("customer").get("id"),
+                loan.get("loanAmount"),
+                loan.get("numberOfInstallment"),
+                loan.get("interestRate"),
+                loan.get("amortizationMethod"),
+                loan.get("remainingInstallments"),
+                loan.get("outstandingAmount"),
+                loan.get("nextDueDate")));
+        query.where(spec.toPredicate(loan, query, cb));
+        query.orderBy(toOrders(sort, loan, cb));
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<Loan> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Loan> loan = query.from(Loan.class);
+        query.select(cb.count(loan));
+        query.where(spec.toPredicate(loan, query, cb));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private long countWithArchive(LoanFilter filter, String where) {
+        Query query = entityManager.createNativeQuery("select (select count(*) from loan where " + where + ") + " +
+                "(select count(*) from archived_loan where " + where + " and " + HAS_ARCHIVED_LOANS + ")");
+        bind(query, filter, null);
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    private static String union(String where) {
+        return "select " + LOAN_COLUMNS + " from loan where " + where + " union all select " + ARCHIVED_LOAN_COLUMNS +
+                " from archived_loan where " + where + " and " + HAS_ARCHIVED_LOANS;
+    }
+
+    private static String where(LoanFilter filter, LoanCursor cursor, Sort.Direction direction) {
+        StringBuilder where = new StringBuilder("customer_id = :customerId");
+        if (filter.getNumberOfInstallment() != null) {
+            where.append(" and number_of_installment = :numberOfInstallment");
+        }
+        if (filter.getIsPaid() != null) {
+            where.append(" and is_paid = :isPaid");
+        }
+        if (cursor != null) {
+            // the bound on the amount alone is implied, but lets the (customer, amount, ID) index be range scanned
+            String after = direction.isAscending() ? ">" : "<";
+            where.append(" and loan_amount ").append(after).append("= :cursorAmount")
+                    .append(" and (loan_amount ").append(after).append(" :cursorAmount or (loan_amount = :cursorAmount and id ")
+                    .append(after).append(" :cursorId))");
+        }
+        return where.toString();
+    }
+
+    private static void bind(Query query, LoanFilter filter, LoanCursor cursor) {
+        query.setParameter("customerId", filter.getCustomerId());
+        if (filter.getNumberOfInstallment() != null) {
+            query.setParameter("numberOfInstallment", filter.getNumberOfInstallment());
+        }
+        if (filter.getIsPaid() != null) {
+            query.setParameter("isPaid", filter.getIsPaid());
+        }
+        if (cursor != null) {
+            query.setParameter("cursorAmount", cursor.loanAmount());
+            query.setParameter("cursorId", cursor.id());
+        }
+    }
+
+    /**
+     * Translates the sort into columns, with the ID as the last tie breaker.
+     *
+     * @throws IllegalArgumentException if a sort property is not in {@link #SORT_COLUMNS}
+     */
+    private static String orderBy(Sort sort) {
+        StringJoiner orderBy = new StringJoiner(", ");
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("Loans cannot be sorted by " + order.getProperty());
+            }
+            orderBy.add(column + " " + order.getDirection().name());
+        }
+        return orderBy.add("id").toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private NativeQuery<Object[]> creditRows(String sql) {
+        return entityManager.createNativeQuery(sql).unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("customer_id", Long.class)
+                .addScalar("loan_amount", BigDecimal.class)
+                .addScalar("number_of_installment", Integer.class)
+                .addScalar("interest_rate", BigDecimal.class)
+                .addScalar("amortization_method", String.class)
+                .addScalar("remaining_installments", Integer.class)
+                .addScalar("outstanding_amount", BigDecimal.class)
+                .addScalar("next_due_date", LocalDate.class);
+    }
+
+    private static List<CreditDto> toCredits(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> new CreditDto((Long) row[0], (Long) row[1], (BigDecimal) row[2], (Integer) row[3],
+                        (BigDecimal) row[4], AmortizationMethod.valueOf((String) row[5]), (Integer) row[6],
+                        (BigDecimal) row[7], (LocalDate) row[8]))
+                .toList();
+    }
+}
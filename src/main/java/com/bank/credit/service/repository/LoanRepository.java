@@ -1,11 +1,136 @@
 package com.bank.credit.service.repository;
 
+import com.bank.credit.service.dto.LoanExportRow;
+import com.bank.credit.service.dto.LoanScheduleView;
+import com.bank.credit.service.model.InstallmentSchedule;
 import com.bank.credit.service.model.Loan;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 
 @Repository
-public interface LoanRepository extends JpaRepository<Loan, Long>, JpaSpecificationExecutor<Loan> {
+public interface LoanRepository extends JpaRepository<Loan, Long>, JpaSpecificationExecutor<Loan>, LoanProjectionRepository {
+
+    String EXPORT_FETCH_SIZE = "1000";
+
+    String EXPORT_SELECT = "select new com.bank.credit.service.dto.LoanExportRow(l.id, l.customer.id, l.loanAmount, " +
+            "l.numberOfInstallment, l.interestRate, l.isPaid, l.remainingInstallments, l.outstandingAmount, l.nextDueDate, " +
+            "l.schedule, i.amount, i.paidAmount, i.dueDate, i.paymentDate, i.isPaid) from Loan l left join l.installments i ";
+
+    /**
+     * Streams every loan of a customer joined with its installments, ordered by loan and due date,
+     * so the rows of one loan arrive together. The stream must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(EXPORT_SELECT + "where l.customer.id = :customerId order by l.id, i.dueDate")
+    Stream<LoanExportRow> streamExportRowsByCustomerId(@Param("customerId") Long customerId);
+
+    /**
+     * Streams all loans joined with their installments, ordered by loan and due date.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(EXPORT_SELECT + "order by l.id, i.dueDate")
+    Stream<LoanExportRow> streamExportRows();
+
+    /**
+     * Books a payment on the running balance of a loan, after its installments were marked as paid.
+     * The loan is closed in the same update when no installment is left, and the update time tells the
+     * archiver how long it has been closed.
+     */
+    @Modifying
+    @Query("update versioned Loan l set l.remainingInstallments = l.remainingInstallments - :count, " +
+            "l.outstandingAmount = l.outstandingAmount - :amount, " +
+            "l.nextDueDate = (select min(i.dueDate) from LoanInstallment i where i.loan = l and i.isPaid = false), " +
+            "l.isPaid = (case when l.remainingInstallments <= :count then true else false end), " +
+            "l.updatedAt = :updatedAt where l.id = :loanId")
+    int applyPayment(@Param("loanId") Long loanId,
+                     @Param("count") int count,
+                     @Param("amount") BigDecimal amount,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Lists the loans among the given IDs that keep their installments in a compact schedule.
+     */
+    @Query("select new com.bank.credit.service.dto.LoanScheduleView(l.id, l.customer.id, l.version, l.schedule) " +
+            "from Loan l where l.id in :ids and l.schedule is not null order by l.id")
+    List<LoanScheduleView> findSchedulesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lists the loans of a customer that keep their installments in a compact schedule, ordered by loan.
+     */
+    @Query("select new com.bank.credit.service.dto.LoanScheduleView(l.id, l.customer.id, l.version, l.schedule) " +
+            "from Loan l where l.customer.id = :customerId and l.schedule is not null order by l.id")
+    List<LoanScheduleView> findSchedulesByCustomerId(@Param("customerId") Long customerId);
+
+    /**
+     * Writes back the schedule of a loan together with the running balance derived from it, if the loan is still
+     * at the version the schedule was read at.
+     *
+     * @return 1 if the loan was updated, 0 if a concurrent payment changed it first
+     */
+    @Modifying
+    @Query("update versioned Loan l set l.schedule = :schedule, l.remainingInstallments = :remaining, " +
+            "l.outstandingAmount = :outstanding, l.nextDueDate = :nextDueDate, l.isPaid = :paid, " +
+            "l.updatedAt = :updatedAt where l.id = :loanId and l.version = :version")
+    int updateSchedule(@Param("loanId") Long loanId,
+                       @Param("version") Long version,
+                       @Param("schedule") InstallmentSchedule schedule,
+                       @Param("remaining") int remaining,
+                       @Param("outstanding") BigDecimal outstanding,
+                       @Param("nextDueDate") LocalDate nextDueDate,
+                       @Param("paid") boolean paid,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+
+    default int updateSchedule(LoanScheduleView loan, InstallmentSchedule schedule, LocalDateTime updatedAt) {
+        return updateSchedule(loan.loanId(), loan.version(), schedule, schedule.remainingInstallments(),
+                schedule.outstandingAmount(), schedule.nextDueDate(), schedule.remainingInstallments() == 0, updatedAt);
+    }
+
+    /**
+     * Lists the loan IDs above the given ID in ascending order, so all loans can be walked in keyset batches
+     * without reading every ID at once.
+     */
+    @Query("select l.id from Loan l where l.id > :afterId order by l.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Lists the IDs of loans that were closed before the cutoff, above the given ID and oldest ID first,
+     * so loans that cannot be archived are passed over by the next page.
+     */
+    @Query("select l.id from Loan l where l.isPaid = true and l.updatedAt < :cutoff and l.id > :afterId order by l.id")
+    List<Long> findClosedIdsBefore(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Loan l where l.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Recomputes the running balance and paid state of the loans in an ID range from their installments.
+     * Loans with a compact schedule are skipped, their balance is written together with the schedule.
+     *
+     * @return the number of repaired loans
+     */
+    @Modifying
+    @Query("update versioned Loan l set " +
+            "l.remainingInstallments = cast((select count(i) from LoanInstallment i where i.loan = l and i.isPaid = false) as Integer), " +
+            "l.outstandingAmount = coalesce((select sum(i.amount) from LoanInstallment i where i.loan = l and i.isPaid = false), 0), " +
+            "l.nextDueDate = (select min(i.dueDate) from LoanInstallment i where i.loan = l and i.isPaid = false), " +
+            "l.isPaid = (case when exists (select i.id from LoanInstallment i where i.loan = l and i.isPaid = false) then false else true end) " +
+            "where l.id between :fromId and :toId and l.schedule is null")
+    int recomputeBalance(@Param("fromId") Long fromId, @Param("toId") Long toId);
 }
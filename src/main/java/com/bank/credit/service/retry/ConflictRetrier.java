@@ -0,0 +1,92 @@
+package com.bank.credit.service.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs an action again when it fails with a {@link ConcurrencyFailureException}.
+ * <p>
+ * Attempts are separated by an exponential backoff with full jitter, so callers that collided on the same
+ * row do not collide again in lockstep. After {@code credit.retry.max-attempts} attempts the last conflict
+ * is rethrown. Every conflict and every retry is counted per action name in the
+ * {@code credit.conflicts} and {@code credit.retries} counters.
+ */
+@Slf4j
+@Component
+public class ConflictRetrier {
+
+    static final String CONFLICTS_METRIC = "credit.conflicts";
+    static final String RETRIES_METRIC = "credit.retries";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    public ConflictRetrier(MeterRegistry meterRegistry,
+                           @Value("${credit.retry.max-attempts:3}") int maxAttempts,
+                           @Value("${credit.retry.initial-backoff-ms:10}") long initialBackoffMs,
+                           @Value("${credit.retry.max-backoff-ms:200}") long maxBackoffMs) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("credit.retry.max-attempts must be at least 1");
+        }
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    /**
+     * Runs the action, retrying it on concurrency conflicts.
+     *
+     * @param name   the name the conflicts and retries are counted under, usually {@code Class.method}
+     * @param action the action to run, must be safe to repeat
+     * @return the result of the first successful attempt
+     * @throws E                           if the action fails with anything but a concurrency conflict
+     * @throws ConcurrencyFailureException if the last attempt still conflicts
+     */
+    public <T, E extends Throwable> T call(String name, Action<T, E> action) throws E {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.run();
+            } catch (ConcurrencyFailureException ex) {
+                meterRegistry.counter(CONFLICTS_METRIC, "method", name).increment();
+                if (attempt >= maxAttempts) {
+                    log.warn("{} still conflicting after {} attempts: {}", name, attempt, ex.getMessage());
+                    throw ex;
+                }
+                meterRegistry.counter(RETRIES_METRIC, "method", name).increment();
+                long backoff = backoff(attempt);
+                log.debug("{} conflicted on attempt {}, retrying in {} ms", name, attempt, backoff);
+                pause(backoff, ex);
+            }
+        }
+    }
+
+    /**
+     * Full jitter: a random delay between 0 and the exponential cap for this attempt.
+     */
+    private long backoff(int attempt) {
+        long cap = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private static void pause(long millis, ConcurrencyFailureException conflict) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Action<T, E extends Throwable> {
+        T run() throws E;
+    }
+}
@@ -0,0 +1,18 @@
+package com.bank.credit.service.retry;
+
+import java.lang.annotation.*;
+
+/**
+ * Retries the annotated service method when it fails with a concurrency conflict,
+ * such as a stale {@code @Version} or a bulk update that lost a race.
+ * <p>
+ * Each attempt runs in its own transaction, the retry wraps the transactional method from the outside.
+ * The attempt budget and backoff are configured under {@code credit.retry}.
+ *
+ * @see ConflictRetrier
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,197 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.cache.LoanPageCache;
+import com.bank.credit.service.dto.BatchItem;
+import com.bank.credit.service.dto.CreditBatchItemResult;
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.exception.CreditLimitExceededException;
+import com.bank.credit.service.exception.CustomerNotFoundException;
+import com.bank.credit.service.exception.ValidationError;
+import com.bank.credit.service.mapper.LoanMapper;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.model.Loan;
+import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.sharding.Shards;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Service responsible for bulk loan origination.
+ * <p>
+ * Items are read as a stream and committed in chunks of {@code credit.batch.chunk-size} loans.
+ * Within a chunk the items are grouped by customer, and the combined total of all loans of a customer
+ * is reserved with one conditional update of its used credit limit. Customers of different shards are
+ * committed in separate transactions, one per shard. Every item gets its own
+ * {@link CreditBatchItemResult}, so an invalid item or a rejected customer does not fail the rest of the batch.
+ */
+@Slf4j
+@Service
+public class CreditBatchService {
+
+    private final LoanRepository loanRepository;
+    private final LoanMapper loanMapper;
+    private final CustomerRepository customerRepository;
+    private final LoanInstallmentService loanInstallmentService;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final Shards shards;
+    private final LoanPageCache loanPageCache;
+    private final CreditLimitReservations creditLimitReservations;
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CreditBatchService(LoanRepository loanRepository,
+                              LoanMapper loanMapper,
+                              CustomerRepository customerRepository,
+                              LoanInstallmentService loanInstallmentService,
+                              Validator validator,
+                              PlatformTransactionManager transactionManager,
+                              Shards shards,
+                              LoanPageCache loanPageCache,
+                              CreditLimitReservations creditLimitReservations,
+                              @Value("${credit.batch.chunk-size:500}") int chunkSize) {
+        this.loanRepository = loanRepository;
+        this.loanMapper = loanMapper;
+        this.customerRepository = customerRepository;
+        this.loanInstallmentService = loanInstallmentService;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shards = shards;
+        this.loanPageCache = loanPageCache;
+        this.creditLimitReservations = creditLimitReservations;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Creates a loan for every readable and valid item.
+     *
+     * @param items the credit requests in request order
+     * @return one result per item, ordered by item index
+     */
+    public List<CreditBatchItemResult> createAll(Iterator<BatchItem<CreditDto>> items) {
+        List<CreditBatchItemResult> results = new ArrayList<>();
+        List<BatchItem<CreditDto>> chunk = new ArrayList<>(chunkSize);
+        while (items.hasNext()) {
+            BatchItem<CreditDto> item = items.next();
+            List<ValidationError> errors = validate(item);
+            if (!errors.isEmpty()) {
+                results.add(CreditBatchItemResult.rejected(item.index(), item.value(), errors));
+                continue;
+            }
+            chunk.add(item);
+            if (chunk.size() == chunkSize) {
+                results.addAll(commitChunkByShard(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(commitChunkByShard(chunk));
+        }
+        results.sort(Comparator.comparingInt(CreditBatchItemResult::getIndex));
+        log.info("Credit batch finished: {} items, {} created", results.size(),
+                results.stream().filter(r -> r.getStatus() == CreditBatchItemResult.Status.CREATED).count());
+        return results;
+    }
+
+    /**
+     * Checks the field constraints of an item. The credit limit is checked per customer when the chunk is committed.
+     */
+    private List<ValidationError> validate(BatchItem<CreditDto> item) {
+        if (!item.isReadable()) {
+            return List.of(new ValidationError("request", item.error()));
+        }
+        List<ValidationError> errors = new ArrayList<>();
+        for (ConstraintViolation<CreditDto> violation : validator.validate(item.value())) {
+            errors.add(new ValidationError(violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+        errors.sort(Comparator.comparing(ValidationError::field));
+        return errors;
+    }
+
+    private List<CreditBatchItemResult> commitChunkByShard(List<BatchItem<CreditDto>> chunk) {
+        List<CreditBatchItemResult> results = new ArrayList<>();
+        chunk.stream()
+                .collect(Collectors.groupingBy(item -> shards.shardOf(item.value().getCustomerId()), TreeMap::new, Collectors.toList()))
+                .forEach((shard, items) -> results.addAll(shards.onShard(shard, () -> commitChunk(items))));
+        return results;
+    }
+
+    /**
+     * Creates the loans of one chunk in a single transaction.
+     * If the transaction fails, every item of the chunk that would have been created is rejected.
+     */
+    private List<CreditBatchItemResult> commitChunk(List<BatchItem<CreditDto>> chunk) {
+        Map<Long, List<BatchItem<CreditDto>>> byCustomer = chunk.stream()
+                .collect(Collectors.groupingBy(item -> item.value().getCustomerId(), LinkedHashMap::new, Collectors.toList()));
+        try {
+            return transactionTemplate.execute(status -> createLoans(byCustomer));
+        } catch (DataAccessException ex) {
+            log.error("Credit batch chunk of {} items rolled back", chunk.size(), ex);
+            List<ValidationError> errors = List.of(new ValidationError("request", "Database error: " + ex.getMostSpecificCause().getMessage()));
+            return chunk.stream()
+                    .map(item -> CreditBatchItemResult.rejected(item.index(), item.value(), errors))
+                    .toList();
+        }
+    }
+
+    private List<CreditBatchItemResult> createLoans(Map<Long, List<BatchItem<CreditDto>>> byCustomer) {
+        List<CreditBatchItemResult> results = new ArrayList<>();
+        List<BatchItem<CreditDto>> accepted = new ArrayList<>();
+        List<Loan> loans = new ArrayList<>();
+        byCustomer.forEach((customerId, items) -> {
+            List<BigDecimal> totals = items.stream()
+                    .map(item -> item.value().getAmortizationMethod().totalRepayment(
+                            item.value().getLoanAmount(), item.value().getInterestRate(), item.value().getNumberOfInstallment()))
+                    .toList();
+            BigDecimal requested = totals.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+            try {
+                creditLimitReservations.reserve(customerId, requested);
+            } catch (CustomerNotFoundException ex) {
+                results.addAll(reject(items, "customerId", ex.getMessage()));
+                return;
+            } catch (CreditLimitExceededException ex) {
+                results.addAll(reject(items, "loanAmount", ex.getMessage()));
+                return;
+            }
+            loanPageCache.invalidateCustomer(customerId);
+            Customer customer = customerRepository.getReferenceById(customerId);
+            for (int i = 0; i < items.size(); i++) {
+                Loan loan = loanMapper.toEntity(items.get(i).value(), customer, totals.get(i));
+                loanInstallmentService.scheduleInstallments(loan, items.get(i).value().getLoanAmount());
+                loans.add(loan);
+                accepted.add(items.get(i));
+            }
+        });
+
+        List<Loan> savedLoans = loanRepository.saveAll(loans);
+        loanRepository.flush();
+        for (int i = 0; i < savedLoans.size(); i++) {
+            results.add(CreditBatchItemResult.created(accepted.get(i).index(), loanMapper.toDto(savedLoans.get(i))));
+        }
+        // keep the persistence context from growing across chunks
+        entityManager.clear();
+        return results;
+    }
+
+    private static List<CreditBatchItemResult> reject(List<BatchItem<CreditDto>> items, String field, String message) {
+        List<ValidationError> errors = List.of(new ValidationError(field, message));
+        return items.stream()
+                .map(item -> CreditBatchItemResult.rejected(item.index(), item.value(), errors))
+                .toList();
+    }
+}
@@ -0,0 +1,48 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.cache.CustomerCreditCache;
+import com.bank.credit.service.exception.CreditLimitExceededException;
+import com.bank.credit.service.exception.CustomerNotFoundException;
+import com.bank.credit.service.repository.CustomerRepository;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Reserves credit limit for new loans, for single and batch origination alike.
+ * <p>
+ * A reservation is one conditional update of the customer's used credit limit, which only succeeds if the available
+ * limit covers the amount. The customer is not read, so concurrent loans for the same customer cannot overdraw the
+ * limit. Requests for unknown customers or beyond a cached snapshot of the customer's limit are rejected by the
+ * {@link CustomerCreditCache} before that.
+ */
+@Component
+public class CreditLimitReservations {
+
+    private final CustomerRepository customerRepository;
+    private final CustomerCreditCache customerCreditCache;
+
+    public CreditLimitReservations(CustomerRepository customerRepository, CustomerCreditCache customerCreditCache) {
+        this.customerRepository = customerRepository;
+        this.customerCreditCache = customerCreditCache;
+    }
+
+    /**
+     * Adds the amount to the customer's used credit limit if the available limit allows it.
+     *
+     * @param customerId the customer ID
+     * @param amount     the total repayment to reserve
+     * @throws CreditLimitExceededException if the available credit limit is not sufficient
+     * @throws CustomerNotFoundException    if the customer does not exist
+     */
+    public void reserve(Long customerId, BigDecimal amount) {
+        customerCreditCache.checkAvailable(customerId, amount);
+        if (customerRepository.reserveCreditLimit(customerId, amount) == 0) {
+            // only a rejected reservation pays for the extra lookup, which lets the cache reject the next one
+            customerCreditCache.load(customerId, () -> customerRepository.findCreditSnapshotById(customerId))
+                    .orElseThrow(() -> new CustomerNotFoundException(customerId));
+            throw new CreditLimitExceededException();
+        }
+        customerCreditCache.recordReserved(customerId, amount);
+    }
+}
@@ -1,21 +1,30 @@
 package com.bank.credit.service.service;
 
+import com.bank.credit.service.cache.LoanPageCache;
+import com.bank.credit.service.datasource.ReadYourWrites;
+import com.bank.credit.service.dto.CreditCursorPage;
 import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.LoanCursor;
 import com.bank.credit.service.dto.LoanFilter;
+import com.bank.credit.service.exception.CreditLimitExceededException;
 import com.bank.credit.service.exception.CustomerNotFoundException;
 import com.bank.credit.service.mapper.LoanMapper;
 import com.bank.credit.service.model.Customer;
 import com.bank.credit.service.model.Loan;
-import com.bank.credit.service.model.LoanInstallment;
 import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.repository.LoanProjectionRepository;
 import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.retry.RetryOnConflict;
+import com.bank.credit.service.sharding.Shards;
 import com.bank.credit.service.specification.LoanSpecifications;
-import com.bank.credit.service.util.LoanCalculator;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -28,7 +37,7 @@ import java.util.List;
  * <ul>
  *   <li>Creating new loans with associated installments</li>
  *   <li>Updating customer credit usage</li>
- *   <li>Retrieving loans using filtering and pagination</li>
+ *   <li>Retrieving loans using filtering and offset or keyset pagination</li>
  * </ul>
  * It relies on {@link LoanInstallmentService} for installment schedule generation
  * and delegates entity-to-DTO transformations to {@link LoanMapper}.
@@ -40,72 +49,147 @@ public class CreditService {
     private final LoanMapper loanMapper;
     private final CustomerRepository customerRepository;
     private final LoanInstallmentService loanInstallmentService;
+    private final ReadYourWrites readYourWrites;
+    private final Shards shards;
+    private final LoanPageCache loanPageCache;
+    private final CreditLimitReservations creditLimitReservations;
+    private final TransactionTemplate readOnlyTransaction;
 
     public CreditService(LoanRepository loanRepository,
                          LoanMapper loanMapper,
                          CustomerRepository customerRepository,
-                         LoanInstallmentService loanInstallmentService) {
+                         LoanInstallmentService loanInstallmentService,
+                         ReadYourWrites readYourWrites,
+                         Shards shards,
+                         LoanPageCache loanPageCache,
+                         CreditLimitReservations creditLimitReservations,
+                         PlatformTransactionManager transactionManager) {
         this.loanRepository = loanRepository;
         this.loanMapper = loanMapper;
         this.customerRepository = customerRepository;
         this.loanInstallmentService = loanInstallmentService;
+        this.readYourWrites = readYourWrites;
+        this.shards = shards;
+        this.loanPageCache = loanPageCache;
+        this.creditLimitReservations = creditLimitReservations;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     /**
      * Creates a new loan for the specified customer and saves the corresponding loan installments.
-     * Also updates the customer's used credit limit.
+     * <p>
+     * The total repayment is reserved first through {@link CreditLimitReservations}, with one conditional update
+     * of the customer's used credit limit, so concurrent loans for the same customer cannot overdraw the limit.
      *
      * @param dto the credit request details
      * @return the saved loan as a CreditDto
-     * @throws CustomerNotFoundException if the customer does not exist
+     * @throws CreditLimitExceededException if the available credit limit is not sufficient
+     * @throws CustomerNotFoundException    if the customer does not exist
      */
     // @Transactional(rollbackFor = Exception.class)
+    @RetryOnConflict
     @Transactional
     public CreditDto create(CreditDto dto) {
-        BigDecimal totalAmount = LoanCalculator.calculateTotalRepayment(dto.getLoanAmount(), dto.getInterestRate());
-        Customer customer = getCustomer(dto);
+        shards.bindCustomer(dto.getCustomerId());
+        BigDecimal totalAmount = dto.getAmortizationMethod()
+                .totalRepayment(dto.getLoanAmount(), dto.getInterestRate(), dto.getNumberOfInstallment());
+        creditLimitReservations.reserve(dto.getCustomerId(), totalAmount);
+        Customer customer = customerRepository.getReferenceById(dto.getCustomerId());
         Loan loan = loanMapper.toEntity(dto, customer, totalAmount);
-        List<LoanInstallment> installments = loanInstallmentService.buildLoanInstallments(loan);
-        loan.addInstallments(installments);
+        loanInstallmentService.scheduleInstallments(loan, dto.getLoanAmount());
         Loan savedLoan = loanRepository.save(loan);
-        updateUsedCreditLimit(totalAmount, customer);
+        readYourWrites.recordCustomerWrite(dto.getCustomerId());
+        readYourWrites.recordLoanWrite(savedLoan.getId());
+        loanPageCache.invalidateCustomer(dto.getCustomerId());
         return loanMapper.toDto(savedLoan);
     }
 
     /**
-     * Updates the customer's used credit limit.
+     * Retrieves a paginated list of loans for a specific customer, applying optional filters
+     * for number of installments and payment status.
+     * <p>
+     * The loans are selected straight into {@link CreditDto}s, so no entities are loaded into the persistence context.
+     * Archived loans are read through transparently: if the filter can match paid loans, loans and archived loans
+     * are listed by one {@code union all} query that sorts and pages in the database. Its archive half is only
+     * evaluated for customers flagged with archived loans.
+     * <p>
+     * Pages are served from the {@link LoanPageCache} when possible; only a miss opens a read-only transaction.
      *
-     * @param totalAmount amount with interestRate
-     * @param customer    the customer details
+     * @param filter   the loan filter containing optional criteria like number of installments and isPaid
+     * @param pageable the pagination and sorting information
+     * @return a page of {@link CreditDto} matching the given filters
+     * @throws IllegalArgumentException if customerId in the filter is null or the sort has an unknown property
      */
-    private void updateUsedCreditLimit(BigDecimal totalAmount, Customer customer) {
-        BigDecimal updatedUsedLimit = customer.getUsedCreditLimit().add(totalAmount);
-        customer.setUsedCreditLimit(updatedUsedLimit);
-        customerRepository.save(customer);
+    public Page<CreditDto> getLoanByCustomer(LoanFilter filter, Pageable pageable) {
+        validateSort(pageable.getSort());
+        return loanPageCache.get(filter, pageable, () -> readOnlyTransaction.execute(status -> findLoans(filter, pageable)));
     }
 
-    /**
-     * Gets the customer
-     *
-     * @param dto the credit request details
-     * @throws CustomerNotFoundException if the customer does not exist
-     */
-    private Customer getCustomer(CreditDto dto) {
-        return customerRepository.findById(dto.getCustomerId())
-                .orElseThrow(() -> new CustomerNotFoundException(dto.getCustomerId()));
+    private Page<CreditDto> findLoans(LoanFilter filter, Pageable pageable) {
+        shards.bindCustomer(filter.getCustomerId());
+        readYourWrites.readCustomer(filter.getCustomerId());
+        Specification<Loan> spec = toSpecification(filter);
+        return includesArchive(filter)
+                ? loanRepository.findCreditsWithArchive(filter, pageable)
+                : loanRepository.findCredits(spec, pageable);
     }
 
     /**
-     * Retrieves a paginated list of loans for a specific customer, applying optional filters
-     * for number of installments and payment status.
+     * Retrieves one page of a customer's loans with keyset pagination, sorted by loan amount and then ID.
+     * <p>
+     * Instead of skipping the previous pages with an offset, the query seeks directly to the loans after the
+     * continuation token, and no count query is issued. One more loan than requested is read to know whether
+     * there is a next page, so every page costs the same, no matter how deep it is. Like the offset listing,
+     * the loans are selected straight into {@link CreditDto}s, and archived loans are included by the same union.
      *
-     * @param filter   the loan filter containing optional criteria like number of installments and isPaid
-     * @param pageable the pagination and sorting information
-     * @return a page of {@link CreditDto} matching the given filters
-     * @throws IllegalArgumentException if customerId in the filter is null
+     * @param filter    the loan filter containing optional criteria like number of installments and isPaid
+     * @param token     the continuation token of the previous page, or null for the first page
+     * @param size      the maximum number of loans in the page
+     * @param direction the sort direction of loan amount and ID
+     * @return the loans of the page and the token of the next page, if there is one
+     * @throws IllegalArgumentException if the token is malformed
      */
-    @Transactional(readOnly = true)   //tells Spring this transaction won’t modify data, which can improve performance.
-    public Page<CreditDto> getLoanByCustomer(LoanFilter filter, Pageable pageable) {
+    @Transactional(readOnly = true)
+    public CreditCursorPage getLoanByCustomer(LoanFilter filter, String token, int size, Sort.Direction direction) {
+        shards.bindCustomer(filter.getCustomerId());
+        readYourWrites.readCustomer(filter.getCustomerId());
+        LoanCursor cursor = token == null ? null : LoanCursor.decode(token);
+        Sort sort = Sort.by(direction, "loanAmount").and(Sort.by(direction, "id"));
+        List<CreditDto> loans = includesArchive(filter)
+                ? loanRepository.findCreditsWithArchive(filter, cursor, direction, size + 1)
+                : loanRepository.findCredits(seekSpecification(filter, cursor, direction), sort, size + 1);
+
+        boolean hasNext = loans.size() > size;
+        List<CreditDto> page = hasNext ? loans.subList(0, size) : loans;
+        String nextToken = null;
+        if (hasNext) {
+            CreditDto last = page.get(page.size() - 1);
+            nextToken = new LoanCursor(last.getLoanAmount(), last.getId()).encode();
+        }
+        return new CreditCursorPage(page, nextToken);
+    }
+
+    // Archived loans are always paid, so a listing of unpaid loans never needs the archive
+    private static boolean includesArchive(LoanFilter filter) {
+        return !Boolean.FALSE.equals(filter.getIsPaid());
+    }
+
+    // Rejects unknown properties before the cache, the same way for customers with and without archived loans
+    private static void validateSort(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!LoanProjectionRepository.SORT_COLUMNS.containsKey(order.getProperty())) {
+                throw new IllegalArgumentException("Loans cannot be sorted by " + order.getProperty());
+            }
+        }
+    }
+
+    private static Specification<Loan> seekSpecification(LoanFilter filter, LoanCursor cursor, Sort.Direction direction) {
+        Specification<Loan> spec = toSpecification(filter);
+        return cursor == null ? spec : spec.and(LoanSpecifications.isAfter(cursor, direction));
+    }
+
+    private static Specification<Loan> toSpecification(LoanFilter filter) {
         Specification<Loan> spec = LoanSpecifications.hasCustomerId(filter.getCustomerId());
         if (filter.getNumberOfInstallment() != null) {
             spec = spec.and(LoanSpecifications.hasNumberOfInstallment(filter.getNumberOfInstallment()));
@@ -113,7 +197,6 @@ public class CreditService {
         if (filter.getIsPaid() != null) {
             spec = spec.and(LoanSpecifications.isPaid(filter.getIsPaid()));
         }
-        Page<Loan> loans = loanRepository.findAll(spec, pageable);
-        return loans.map(loanMapper::toDto);
+        return spec;
     }
 }
@@ -1,9 +1,12 @@
 package com.bank.credit.service.service;
 
+import com.bank.credit.service.cache.CustomerCreditCache;
+import com.bank.credit.service.dto.CustomerCreditSnapshot;
 import com.bank.credit.service.dto.CustomerDto;
 import com.bank.credit.service.mapper.CustomerMapper;
 import com.bank.credit.service.model.Customer;
 import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.sharding.Shards;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,22 +17,31 @@ public class CustomerService {
 
     private final CustomerRepository customerRepository;
     private final CustomerMapper customerMapper;
+    private final Shards shards;
+    private final CustomerCreditCache customerCreditCache;
 
-    public CustomerService(CustomerRepository customerRepository, CustomerMapper customerMapper) {
+    public CustomerService(CustomerRepository customerRepository, CustomerMapper customerMapper, Shards shards,
+                           CustomerCreditCache customerCreditCache) {
         this.customerRepository = customerRepository;
         this.customerMapper = customerMapper;
+        this.shards = shards;
+        this.customerCreditCache = customerCreditCache;
     }
 
     /**
-     * Creates a new customer from the provided DTO.
+     * Creates a new customer from the provided DTO, in the next shard in round robin order.
+     * Its credit usage is cached right away, so its first loan requests can be checked without a lookup.
      *
      * @param dto the customer data transfer object
      * @return the created customer as a DTO
      */
     @Transactional
     public CustomerDto create(CustomerDto dto) {
+        shards.bindNewCustomer();
         Customer customer = customerMapper.toEntity(dto);
         Customer savedCustomer = customerRepository.save(customer);
+        customerCreditCache.recordCreated(savedCustomer.getId(), new CustomerCreditSnapshot(
+                savedCustomer.getCreditLimit(), savedCustomer.getUsedCreditLimit(), savedCustomer.getVersion()));
         log.info("Customer created with id: {}", savedCustomer.getId());
         return customerMapper.toDto(savedCustomer);
     }
@@ -1,23 +1,44 @@
 package com.bank.credit.service.service;
 
+import com.bank.credit.service.cache.CustomerCreditCache;
+import com.bank.credit.service.cache.LoanPageCache;
+import com.bank.credit.service.datasource.ReadYourWrites;
+import com.bank.credit.service.dto.BatchItem;
 import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.dto.LoanScheduleView;
 import com.bank.credit.service.dto.PayedInstallmentDto;
+import com.bank.credit.service.dto.PaymentImportSummary;
+import com.bank.credit.service.dto.UnpaidInstallmentView;
 import com.bank.credit.service.exception.CustomerNotFoundException;
 import com.bank.credit.service.exception.InvalidPaymentAmountException;
 import com.bank.credit.service.exception.UnpaidInstallmentsNotFoundException;
-import com.bank.credit.service.model.Customer;
-import com.bank.credit.service.model.Loan;
+import com.bank.credit.service.model.InstallmentSchedule;
 import com.bank.credit.service.model.LoanInstallment;
 import com.bank.credit.service.repository.CustomerRepository;
 import com.bank.credit.service.repository.LoanInstallmentRepository;
 import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.retry.ConflictRetrier;
+import com.bank.credit.service.retry.RetryOnConflict;
+import com.bank.credit.service.sharding.Shards;
 import com.bank.credit.service.util.LoanCalculator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Service responsible for managing loan installment payments.
@@ -25,125 +46,250 @@ import java.util.List;
  * This includes processing installment payments, updating customer credit limit
  * and determining if a loan has been fully paid.
  * <p>
+ * Bulk payment files are imported in chunks, each chunk prefetching the unpaid installments
+ * of all its loans with one query and writing them back with bulk updates.
+ * <p>
+ * Loans that keep their installments in a compact {@link InstallmentSchedule} are paid by rewriting the schedule
+ * on the loan, guarded by the loan version instead of the paid flags of the rows.
+ * <p>
  * The service coordinates with repositories and delegates financial calculations
  * to {@link LoanCalculator}.
  */
+@Slf4j
 @Service
 public class InstallmentPaymentService {
 
+    private static final int PAYMENT_WINDOW_MONTHS = 3;
+
     private final LoanInstallmentRepository loanInstallmentRepository;
     private final CustomerRepository customerRepository;
     private final LoanRepository loanRepository;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ConflictRetrier conflictRetrier;
+    private final ReadYourWrites readYourWrites;
+    private final Shards shards;
+    private final LoanPageCache loanPageCache;
+    private final CustomerCreditCache customerCreditCache;
+    private final int importChunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     public InstallmentPaymentService(LoanInstallmentRepository loanInstallmentRepository,
                                      CustomerRepository customerRepository,
-                                     LoanRepository loanRepository) {
+                                     LoanRepository loanRepository,
+                                     Validator validator,
+                                     PlatformTransactionManager transactionManager,
+                                     ConflictRetrier conflictRetrier,
+                                     ReadYourWrites readYourWrites,
+                                     Shards shards,
+                                     LoanPageCache loanPageCache,
+                                     CustomerCreditCache customerCreditCache,
+                                     @Value("${credit.payment-import.chunk-size:1000}") int importChunkSize) {
         this.loanInstallmentRepository = loanInstallmentRepository;
         this.customerRepository = customerRepository;
         this.loanRepository = loanRepository;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.conflictRetrier = conflictRetrier;
+        this.readYourWrites = readYourWrites;
+        this.shards = shards;
+        this.loanPageCache = loanPageCache;
+        this.customerCreditCache = customerCreditCache;
+        this.importChunkSize = importChunkSize;
     }
 
     /**
      * Processes a loan installment payment.
      * <p>
-     * It calculates how many installments the given amount can cover, marks them as paid,
-     * updates the customer's used credit limit, and checks if the loan is now fully paid.
+     * It calculates how many installments the given amount can cover, oldest first, and applies the payment with set-based
+     * updates: the installments are marked as paid with one bulk update, the customer's used credit limit is
+     * decreased with one atomic update, and the loan's running balance is updated in one more, closing the loan
+     * when no unpaid installment is left. Whether the loan is complete is known from the first query, so no
+     * further read is needed. A loan without installment rows is paid through its compact schedule instead.
      *
      * @param dto the installment payment data containing loan ID and payment amount
      * @return a {@link PayedInstallmentDto} containing summary info about the payment
      * @throws InvalidPaymentAmountException       if the amount cannot cover at least one installment
      * @throws UnpaidInstallmentsNotFoundException if no unpaid installments are found in the next 3 months
+     * @throws OptimisticLockingFailureException   if some of the installments were still paid by a concurrent payment
+     *                                             after all retries
      */
+    @RetryOnConflict
     @Transactional
     public PayedInstallmentDto payInstallment(InstallmentDto dto) {
         Long loanId = dto.getLoanId();
+        shards.bindLoan(loanId);
         LocalDate paymentDate = LocalDate.now();
-        List<LoanInstallment> unpaidInstallments = getUnpaidInstallments(loanId, paymentDate);
-
-        BigDecimal installmentAmount = unpaidInstallments.get(0).getAmount();
-        int numToPay = LoanCalculator.calculateInstallmentsToPay(dto.getAmount(), installmentAmount);
-        if (numToPay == 0) {
-            throw new InvalidPaymentAmountException(loanId);
+        List<UnpaidInstallmentView> unpaidInstallments = loanInstallmentRepository
+                .findUnpaidViewsByLoanIdAndDueDateBetween(loanId, paymentDate, paymentWindowEnd(paymentDate));
+        if (unpaidInstallments.isEmpty()) {
+            return payScheduledInstallments(dto, paymentDate);
         }
 
-        List<LoanInstallment> toPay = prepareInstallmentsAsPaid(unpaidInstallments, numToPay, paymentDate);
-        loanInstallmentRepository.saveAll(toPay);
+        UnpaidInstallmentView oldest = unpaidInstallments.get(0);
+        Allocation allocation = allocate(loanId, dto.getAmount(),
+                unpaidInstallments.stream().map(UnpaidInstallmentView::amount).toList());
+        List<Long> toPay = unpaidInstallments.stream()
+                .limit(allocation.installments())
+                .map(UnpaidInstallmentView::id)
+                .toList();
+        markInstallmentsAsPaid(loanId, toPay, paymentDate);
 
-        BigDecimal totalPayment = LoanCalculator.calculateTotalPayment(installmentAmount, toPay.size());
-        updateCustomerCreditLimit(loanId, totalPayment);
-        boolean paymentCompleted = loanPaymentCompleted(loanId, unpaidInstallments);
+        BigDecimal totalPayment = allocation.total();
+        updateCustomerCreditLimit(oldest.customerId(), totalPayment);
+        boolean paymentCompleted = updateLoanBalance(loanId, oldest.remainingInstallments(), toPay.size(), totalPayment);
+        readYourWrites.recordLoanWrite(loanId);
+        readYourWrites.recordCustomerWrite(oldest.customerId());
+        loanPageCache.invalidateCustomer(oldest.customerId());
 
         return buildPaymentInstallmentDto(toPay.size(), totalPayment, paymentCompleted);
     }
 
     /**
-     * Retrieves unpaid installments for a given loan within the next 3 months.
+     * Pays the installments of a loan that keeps them in a compact schedule.
+     * <p>
+     * The schedule and the running balance derived from it are written back with one update guarded by the
+     * version the schedule was read at, so a concurrent payment makes this one retry.
      *
-     * @param loanId      the loan ID
-     * @param paymentDate the reference date (usually today)
-     * @return a list of unpaid {@link LoanInstallment}s
-     * @throws UnpaidInstallmentsNotFoundException if no unpaid installments are found in the period
+     * @param dto         the installment payment data
+     * @param paymentDate the date of payment
+     * @return a {@link PayedInstallmentDto} containing summary info about the payment
+     * @throws UnpaidInstallmentsNotFoundException if no unpaid installments are found in the next 3 months
+     * @throws InvalidPaymentAmountException       if the amount cannot cover at least one installment
      */
-    private List<LoanInstallment> getUnpaidInstallments(Long loanId, LocalDate paymentDate) {
-        List<LoanInstallment> unpaidInstallments = loanInstallmentRepository
-                .findByLoan_IdAndDueDateBetweenAndIsPaidFalse(loanId, paymentDate, paymentDate.plusMonths(3));
-        if (unpaidInstallments.isEmpty()) {
+    private PayedInstallmentDto payScheduledInstallments(InstallmentDto dto, LocalDate paymentDate) {
+        Long loanId = dto.getLoanId();
+        LoanScheduleView loan = loanRepository.findSchedulesByIdIn(List.of(loanId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new UnpaidInstallmentsNotFoundException(loanId));
+        ScheduledPayment payment = paySchedule(loanId, loan.schedule(), dto.getAmount(), paymentDate);
+        updateSchedule(loan, payment.schedule(), LocalDateTime.now());
+
+        BigDecimal totalPayment = payment.allocation().total();
+        updateCustomerCreditLimit(loan.customerId(), totalPayment);
+        readYourWrites.recordLoanWrite(loanId);
+        readYourWrites.recordCustomerWrite(loan.customerId());
+        loanPageCache.invalidateCustomer(loan.customerId());
+
+        return buildPaymentInstallmentDto(payment.allocation().installments(), totalPayment,
+                payment.schedule().remainingInstallments() == 0);
+    }
+
+    /**
+     * Pays the oldest installments of a compact schedule in the payment window that the amount covers.
+     *
+     * @throws UnpaidInstallmentsNotFoundException if no unpaid installments are found in the next 3 months
+     * @throws InvalidPaymentAmountException       if the amount cannot cover at least one installment
+     */
+    private static ScheduledPayment paySchedule(Long loanId, InstallmentSchedule schedule, BigDecimal amount, LocalDate paymentDate) {
+        List<Integer> unpaid = schedule.unpaidDueBetween(paymentDate, paymentWindowEnd(paymentDate));
+        Allocation allocation = allocate(loanId, amount, Collections.nCopies(unpaid.size(), schedule.amount()));
+        return new ScheduledPayment(schedule.pay(unpaid.subList(0, allocation.installments()), paymentDate), allocation);
+    }
+
+    /**
+     * Works out how many of the unpaid installments the amount covers, oldest first, and what they add up to.
+     * <p>
+     * Equal installments, which every flat loan and every compact schedule has, are computed in cents from one
+     * amount; the installments of amortized loans are covered one by one.
+     *
+     * @param unpaidAmounts the amounts of the unpaid installments in the payment window, oldest first
+     * @throws UnpaidInstallmentsNotFoundException if there is no unpaid installment
+     * @throws InvalidPaymentAmountException       if the amount cannot cover at least one installment
+     */
+    private static Allocation allocate(Long loanId, BigDecimal amount, List<BigDecimal> unpaidAmounts) {
+        if (unpaidAmounts.isEmpty()) {
             throw new UnpaidInstallmentsNotFoundException(loanId);
         }
-        return unpaidInstallments;
+        BigDecimal first = unpaidAmounts.get(0);
+        int numToPay;
+        BigDecimal totalPayment;
+        if (unpaidAmounts.stream().allMatch(installment -> installment.compareTo(first) == 0)) {
+            numToPay = Math.min(LoanCalculator.calculateInstallmentsToPay(amount, first), unpaidAmounts.size());
+            totalPayment = LoanCalculator.calculateTotalPayment(first, numToPay);
+        } else {
+            numToPay = LoanCalculator.calculateInstallmentsToPay(amount, unpaidAmounts);
+            totalPayment = LoanCalculator.calculateTotalPayment(unpaidAmounts.subList(0, numToPay));
+        }
+        if (numToPay == 0) {
+            throw new InvalidPaymentAmountException(loanId);
+        }
+        return new Allocation(numToPay, totalPayment);
+    }
+
+    private static LocalDate paymentWindowEnd(LocalDate paymentDate) {
+        return paymentDate.plusMonths(PAYMENT_WINDOW_MONTHS);
     }
 
     /**
-     * Marks the specified number of unpaid installments as paid with today's date.
+     * Writes back a paid schedule, rolling back the transaction if a concurrent payment changed the loan first.
+     */
+    private void updateSchedule(LoanScheduleView loan, InstallmentSchedule schedule, LocalDateTime now) {
+        if (loanRepository.updateSchedule(loan, schedule, now) == 0) {
+            throw new OptimisticLockingFailureException(
+                    "Loan " + loan.loanId() + " was changed by a concurrent payment");
+        }
+    }
+
+    /**
+     * Marks the given installments as paid with one bulk update.
+     * <p>
+     * The update only touches installments that are still unpaid. If fewer rows are updated than requested,
+     * a concurrent payment has already paid some of them and the transaction is rolled back.
      *
-     * @param installments the list of unpaid installments
-     * @param numToPay     how many installments to mark as paid
-     * @param paymentDate  the date of payment
-     * @return a list of installments marked as paid
+     * @param loanId         the loan ID
+     * @param installmentIds the IDs of the installments to pay
+     * @param paymentDate    the date of payment
      */
-    private List<LoanInstallment> prepareInstallmentsAsPaid(List<LoanInstallment> installments, int numToPay, LocalDate paymentDate) {
-        return installments.stream()
-                .limit(numToPay)
-                .peek(inst -> {
-                    inst.setPaidAmount(inst.getAmount());
-                    inst.setPaymentDate(paymentDate);
-                    inst.setPaid(true);
-                })
-                .toList();
+    private void markInstallmentsAsPaid(Long loanId, List<Long> installmentIds, LocalDate paymentDate) {
+        int updated = loanInstallmentRepository.markPaid(installmentIds, paymentDate, LocalDateTime.now());
+        if (updated != installmentIds.size()) {
+            throw new OptimisticLockingFailureException(
+                    "Installments of loan " + loanId + " were paid by a concurrent payment");
+        }
     }
 
     /**
-     * Updates the customer's used credit limit by subtracting the total payment.
+     * Decreases the customer's used credit limit by the total payment with one atomic update.
      *
-     * @param loanId       the loan ID whose customer will be updated
+     * @param customerId   the ID of the customer to update
      * @param totalPayment the total amount paid toward installments
+     * @throws CustomerNotFoundException if the customer does not exist
      */
-    private void updateCustomerCreditLimit(Long loanId, BigDecimal totalPayment) {
-        Customer customer = customerRepository.findByLoans_Id(loanId)
-                .orElseThrow(CustomerNotFoundException::new);
-
-        BigDecimal newLimit = customer.getUsedCreditLimit().subtract(totalPayment);
-        customer.setUsedCreditLimit(newLimit);
-        customerRepository.save(customer);
+    private void updateCustomerCreditLimit(Long customerId, BigDecimal totalPayment) {
+        if (customerRepository.releaseCreditLimit(customerId, totalPayment) == 0) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        customerCreditCache.recordReleased(customerId, totalPayment);
     }
 
     /**
-     * Checks if the loan has been fully paid.
+     * Books the payment on the loan's running balance and closes the loan if it is fully paid.
      * <p>
-     * If no unpaid installments remain, the loan is marked as fully paid.
+     * Completion is decided from the remaining installment counter read with the payment window,
+     * so no query over the installments is needed.
      *
-     * @param loanId             the loan ID
-     * @param unpaidInstallments the previously fetched unpaid installments
+     * @param loanId                the loan ID
+     * @param remainingInstallments the number of unpaid installments of the loan before the payment
+     * @param numPaid               the number of installments paid now
+     * @param totalPayment          the total amount paid
      * @return true if the loan is now fully paid, false otherwise
      */
-    private boolean loanPaymentCompleted(Long loanId, List<LoanInstallment> unpaidInstallments) {
-        boolean stillUnpaid = loanInstallmentRepository.existsByLoan_IdAndIsPaidFalse(loanId);
-        if (!stillUnpaid) {
-            Loan loan = unpaidInstallments.get(0).getLoan();
-            loan.setPaid(true);
-            loanRepository.save(loan);
+    private boolean updateLoanBalance(Long loanId, int remainingInstallments, int numPaid, BigDecimal totalPayment) {
+        applyPayment(loanId, numPaid, totalPayment, LocalDateTime.now());
+        return remainingInstallments == numPaid;
+    }
+
+    /**
+     * Books paid installments on the loan's running balance, rolling back the transaction if the loan is gone,
+     * like a loan archived by a concurrent run.
+     */
+    private void applyPayment(Long loanId, int numPaid, BigDecimal totalPayment, LocalDateTime now) {
+        if (loanRepository.applyPayment(loanId, numPaid, totalPayment, now) == 0) {
+            throw new OptimisticLockingFailureException("Loan " + loanId + " was removed by a concurrent update");
         }
-        return !stillUnpaid;
     }
 
     /**
@@ -161,4 +307,175 @@ public class InstallmentPaymentService {
         dto.setLoanPaymentComplate(allPaid);
         return dto;
     }
+
+    /**
+     * Imports a stream of payments, applying each one like {@link #payInstallment(InstallmentDto)}.
+     * <p>
+     * Payments are processed in chunks of {@code credit.payment-import.chunk-size} lines, one transaction per chunk.
+     * The unpaid installments of every loan in a chunk are loaded with a single query, and several payments for the
+     * same loan consume its installments in file order. Lines that cannot be applied are rejected without affecting
+     * the others; if a chunk fails to commit, all its lines are rejected. The lines of a chunk are split by the shard
+     * of their loan, with one transaction per shard.
+     *
+     * @param payments the payment lines in file order
+     * @return a summary of applied and rejected lines
+     */
+    public PaymentImportSummary importPayments(Iterator<BatchItem<InstallmentDto>> payments) {
+        PaymentImportSummary summary = new PaymentImportSummary();
+        List<BatchItem<InstallmentDto>> chunk = new ArrayList<>(importChunkSize);
+        while (payments.hasNext()) {
+            BatchItem<InstallmentDto> payment = payments.next();
+            String error = validate(payment);
+            if (error != null) {
+                summary.addRejected(payment.index() + 1, loanIdOf(payment), error);
+                continue;
+            }
+            chunk.add(payment);
+            if (chunk.size() == importChunkSize) {
+                applyChunkByShard(chunk, summary);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyChunkByShard(chunk, summary);
+        }
+        log.info("Payment import finished: {} applied, {} rejected, {} installments paid, total {}",
+                summary.getApplied(), summary.getRejected(), summary.getInstallmentsPaid(), summary.getTotalAmountSpent());
+        return summary;
+    }
+
+    private String validate(BatchItem<InstallmentDto> payment) {
+        if (!payment.isReadable()) {
+            return payment.error();
+        }
+        Set<ConstraintViolation<InstallmentDto>> violations = validator.validate(payment.value());
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private void applyChunkByShard(List<BatchItem<InstallmentDto>> chunk, PaymentImportSummary summary) {
+        chunk.stream()
+                .collect(Collectors.groupingBy(payment -> shards.shardOf(payment.value().getLoanId()), TreeMap::new, Collectors.toList()))
+                .forEach((shard, payments) -> shards.onShard(shard, () -> {
+                    applyChunk(payments, summary);
+                    return null;
+                }));
+    }
+
+    private void applyChunk(List<BatchItem<InstallmentDto>> chunk, PaymentImportSummary summary) {
+        List<PaymentOutcome> outcomes;
+        try {
+            outcomes = conflictRetrier.call("InstallmentPaymentService.importPayments",
+                    () -> transactionTemplate.execute(status -> applyPayments(chunk)));
+        } catch (DataAccessException ex) {
+            log.error("Payment import chunk of {} lines rolled back", chunk.size(), ex);
+            String reason = "Database error: " + ex.getMostSpecificCause().getMessage();
+            chunk.forEach(payment -> summary.addRejected(payment.index() + 1, loanIdOf(payment), reason));
+            return;
+        } catch (CustomerNotFoundException ex) {
+            // like a single payment, a release for a missing customer fails the whole transaction
+            log.error("Payment import chunk of {} lines rolled back", chunk.size(), ex);
+            chunk.forEach(payment -> summary.addRejected(payment.index() + 1, loanIdOf(payment), ex.getMessage()));
+            return;
+        }
+        for (PaymentOutcome outcome : outcomes) {
+            BatchItem<InstallmentDto> payment = outcome.payment();
+            if (outcome.error() == null) {
+                summary.addApplied(outcome.paidInstallments(), outcome.amount());
+            } else {
+                summary.addRejected(payment.index() + 1, loanIdOf(payment), outcome.error());
+            }
+        }
+    }
+
+    private List<PaymentOutcome> applyPayments(List<BatchItem<InstallmentDto>> chunk) {
+        LocalDate paymentDate = LocalDate.now();
+        Set<Long> loanIds = chunk.stream().map(payment -> payment.value().getLoanId()).collect(Collectors.toSet());
+        Map<Long, Deque<LoanInstallment>> unpaidByLoan = loanInstallmentRepository
+                .findUnpaidByLoanIdsAndDueDateBetween(loanIds, paymentDate, paymentWindowEnd(paymentDate))
+                .stream()
+                .collect(Collectors.groupingBy(inst -> inst.getLoan().getId(), HashMap::new, Collectors.toCollection(ArrayDeque::new)));
+        List<Long> withoutRows = loanIds.stream().filter(loanId -> !unpaidByLoan.containsKey(loanId)).toList();
+        Map<Long, LoanScheduleView> scheduledLoans = withoutRows.isEmpty() ? Map.of() : loanRepository.findSchedulesByIdIn(withoutRows)
+                .stream()
+                .collect(Collectors.toMap(LoanScheduleView::loanId, loan -> loan));
+        Map<Long, InstallmentSchedule> paidSchedules = new HashMap<>();
+
+        List<PaymentOutcome> outcomes = new ArrayList<>(chunk.size());
+        List<Long> toPay = new ArrayList<>();
+        Map<Long, BigDecimal> releasedByCustomer = new HashMap<>();
+        Map<Long, Integer> paidCountByLoan = new HashMap<>();
+        Map<Long, BigDecimal> paidAmountByLoan = new HashMap<>();
+        for (BatchItem<InstallmentDto> payment : chunk) {
+            Long loanId = payment.value().getLoanId();
+            BigDecimal amount = payment.value().getAmount();
+            try {
+                LoanScheduleView scheduledLoan = scheduledLoans.get(loanId);
+                Allocation allocation;
+                if (scheduledLoan != null) {
+                    // later lines of the same loan continue on the schedule the earlier ones paid
+                    InstallmentSchedule schedule = paidSchedules.getOrDefault(loanId, scheduledLoan.schedule());
+                    ScheduledPayment paid = paySchedule(loanId, schedule, amount, paymentDate);
+                    paidSchedules.put(loanId, paid.schedule());
+                    allocation = paid.allocation();
+                    releasedByCustomer.merge(scheduledLoan.customerId(), allocation.total(), BigDecimal::add);
+                } else {
+                    Deque<LoanInstallment> unpaid = unpaidByLoan.getOrDefault(loanId, new ArrayDeque<>());
+                    allocation = allocate(loanId, amount, unpaid.stream().map(LoanInstallment::getAmount).toList());
+                    Long customerId = unpaid.peekFirst().getLoan().getCustomer().getId();
+                    for (int i = 0; i < allocation.installments(); i++) {
+                        toPay.add(unpaid.pollFirst().getId());
+                    }
+                    releasedByCustomer.merge(customerId, allocation.total(), BigDecimal::add);
+                    paidCountByLoan.merge(loanId, allocation.installments(), Integer::sum);
+                    paidAmountByLoan.merge(loanId, allocation.total(), BigDecimal::add);
+                }
+                outcomes.add(PaymentOutcome.applied(payment, allocation.installments(), allocation.total()));
+            } catch (UnpaidInstallmentsNotFoundException | InvalidPaymentAmountException ex) {
+                outcomes.add(PaymentOutcome.rejected(payment, ex.getMessage()));
+            }
+        }
+
+        // same guarded updates as a single payment, a concurrent payment makes the whole chunk retry
+        LocalDateTime now = LocalDateTime.now();
+        if (!toPay.isEmpty() && loanInstallmentRepository.markPaid(toPay, paymentDate, now) != toPay.size()) {
+            throw new OptimisticLockingFailureException("Installments of the import chunk were paid by a concurrent payment");
+        }
+        paidSchedules.forEach((loanId, schedule) -> updateSchedule(scheduledLoans.get(loanId), schedule, now));
+        releasedByCustomer.forEach(this::updateCustomerCreditLimit);
+        releasedByCustomer.keySet().forEach(loanPageCache::invalidateCustomer);
+        paidCountByLoan.forEach((loanId, count) -> applyPayment(loanId, count, paidAmountByLoan.get(loanId), now));
+        // keep the persistence context from growing across chunks
+        entityManager.clear();
+        return outcomes;
+    }
+
+    private static Long loanIdOf(BatchItem<InstallmentDto> payment) {
+        return payment.isReadable() ? payment.value().getLoanId() : null;
+    }
+
+    /**
+     * The number of installments a payment covers, oldest first, and their total.
+     */
+    private record Allocation(int installments, BigDecimal total) {
+    }
+
+    private record ScheduledPayment(InstallmentSchedule schedule, Allocation allocation) {
+    }
+
+    private record PaymentOutcome(BatchItem<InstallmentDto> payment, int paidInstallments, BigDecimal amount, String error) {
+
+        static PaymentOutcome applied(BatchItem<InstallmentDto> payment, int paidInstallments, BigDecimal amount) {
+            return new PaymentOutcome(payment, paidInstallments, amount, null);
+        }
+
+        static PaymentOutcome rejected(BatchItem<InstallmentDto> payment, String error) {
+            return new PaymentOutcome(payment, 0, BigDecimal.ZERO, error);
+        }
+    }
 }
@@ -0,0 +1,17 @@
+package com.bank.credit.service.service;
+
+/**
+ * How the installments of new loans are stored, set with {@code credit.installments.storage}.
+ */
+public enum InstallmentStorage {
+
+    /**
+     * One {@code loan_installment} row per installment.
+     */
+    ROWS,
+
+    /**
+     * One encoded {@link com.bank.credit.service.model.InstallmentSchedule} in the {@code schedule} column of the loan.
+     */
+    COMPACT
+}
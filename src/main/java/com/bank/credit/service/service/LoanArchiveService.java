@@ -0,0 +1,147 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.ArchiveSummary;
+import com.bank.credit.service.dto.LoanScheduleView;
+import com.bank.credit.service.model.InstallmentSchedule;
+import com.bank.credit.service.repository.ArchivedLoanRepository;
+import com.bank.credit.service.repository.LoanInstallmentRepository;
+import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.sharding.Shards;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service that moves fully paid loans out of the hot tables into the archive.
+ * <p>
+ * Loans closed longer than {@code credit.archive.min-age} ago are moved in chunks of
+ * {@code credit.archive.chunk-size} loans. Each chunk is copied into {@code archived_loan}, with its installments
+ * compacted into one summary row per loan (computed from the schedule for loans with a compact schedule),
+ * and then deleted from {@code loan} and {@code loan_installment},
+ * all in one transaction, so a loan is never lost or visible twice. A closed loan without any installment has no
+ * summary to archive; it is logged and left in place. Every shard archives its own loans, all shards
+ * in parallel. Reads of archived loans fall back to the
+ * archive in {@link CreditService} and {@link LoanInstallmentService}.
+ */
+@Slf4j
+@Service
+public class LoanArchiveService {
+
+    private final LoanRepository loanRepository;
+    private final LoanInstallmentRepository loanInstallmentRepository;
+    private final ArchivedLoanRepository archivedLoanRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Shards shards;
+    private final Duration minAge;
+    private final int chunkSize;
+
+    public LoanArchiveService(LoanRepository loanRepository,
+                              LoanInstallmentRepository loanInstallmentRepository,
+                              ArchivedLoanRepository archivedLoanRepository,
+                              PlatformTransactionManager transactionManager,
+                              Shards shards,
+                              @Value("${credit.archive.min-age:180d}") Duration minAge,
+                              @Value("${credit.archive.chunk-size:500}") int chunkSize) {
+        this.loanRepository = loanRepository;
+        this.loanInstallmentRepository = loanInstallmentRepository;
+        this.archivedLoanRepository = archivedLoanRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shards = shards;
+        this.minAge = minAge;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${credit.archive.cron:0 30 2 * * *}")
+    public void archiveOnSchedule() {
+        archiveClosedLoans();
+    }
+
+    /**
+     * Archives all loans that were closed before the configured minimum age.
+     *
+     * @return the number of archived loans and chunks and the elapsed time
+     */
+    public ArchiveSummary archiveClosedLoans() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(minAge);
+        List<ShardResult> shardResults = shards.onEachShard(shard -> archiveShard(cutoff, now));
+        int archived = shardResults.stream().mapToInt(ShardResult::loans).sum();
+        int chunks = shardResults.stream().mapToInt(ShardResult::chunks).sum();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Archived {} loans closed before {} in {} chunks in {} ms", archived, cutoff, chunks, elapsedMillis);
+        return new ArchiveSummary(archived, chunks, elapsedMillis);
+    }
+
+    /**
+     * @return the number of archived loans and the number of chunks of the current shard
+     */
+    private ShardResult archiveShard(LocalDateTime cutoff, LocalDateTime archivedAt) {
+        int archived = 0;
+        int chunks = 0;
+        ChunkResult chunk = new ChunkResult(0, 0);
+        while ((chunk = archiveChunkAfter(chunk.lastId(), cutoff, archivedAt)) != null) {
+            archived += chunk.loans();
+            chunks++;
+        }
+        return new ShardResult(archived, chunks);
+    }
+
+    private ChunkResult archiveChunkAfter(long afterId, LocalDateTime cutoff, LocalDateTime archivedAt) {
+        return transactionTemplate.execute(status -> archiveChunk(cutoff, archivedAt, afterId));
+    }
+
+    /**
+     * @return the number of archived loans and the last ID of the chunk, null if no closed loan is left
+     */
+    private ChunkResult archiveChunk(LocalDateTime cutoff, LocalDateTime archivedAt, long afterId) {
+        List<Long> ids = loanRepository.findClosedIdsBefore(cutoff, afterId, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return null;
+        }
+        List<LoanScheduleView> scheduled = loanRepository.findSchedulesByIdIn(ids);
+        Set<Long> scheduledIds = scheduled.stream().map(LoanScheduleView::loanId).collect(Collectors.toSet());
+        List<Long> withRows = loanInstallmentRepository.findLoanIdsWithInstallments(
+                ids.stream().filter(id -> !scheduledIds.contains(id)).toList());
+        if (scheduled.size() + withRows.size() < ids.size()) {
+            // without installments there is no summary to archive, the loan stays where it is and is passed over
+            Set<Long> archivable = new HashSet<>(withRows);
+            archivable.addAll(scheduledIds);
+            log.warn("Skipped closed loans without installments: {}", ids.stream().filter(id -> !archivable.contains(id)).toList());
+        }
+        int archived = withRows.isEmpty() ? 0 : archivedLoanRepository.archive(withRows, archivedAt);
+        for (LoanScheduleView loan : scheduled) {
+            InstallmentSchedule schedule = loan.schedule();
+            archived += archivedLoanRepository.archiveScheduled(loan.loanId(), schedule.count(),
+                    schedule.amount().multiply(BigDecimal.valueOf(schedule.count())), schedule.paidAmount(),
+                    schedule.firstDueDate(), schedule.lastDueDate(), schedule.lastPaymentDate(), archivedAt);
+        }
+        List<Long> archivedIds = new ArrayList<>(withRows);
+        archivedIds.addAll(scheduledIds);
+        if (!archivedIds.isEmpty()) {
+            archivedLoanRepository.markCustomersWithArchivedLoans(archivedIds);
+            loanInstallmentRepository.deleteAllByLoanIdIn(archivedIds);
+            loanRepository.deleteAllByIdIn(archivedIds);
+        }
+        return new ChunkResult(archived, ids.get(ids.size() - 1));
+    }
+
+    private record ChunkResult(int loans, long lastId) {
+    }
+
+    private record ShardResult(int loans, int chunks) {
+    }
+}
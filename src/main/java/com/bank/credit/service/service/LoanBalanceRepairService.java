@@ -0,0 +1,97 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.cache.LoanPageCache;
+import com.bank.credit.service.dto.BalanceRepairSummary;
+import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.retry.ConflictRetrier;
+import com.bank.credit.service.sharding.Shards;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Service that recomputes the denormalized balance of every loan from its installments.
+ * <p>
+ * The loan IDs are walked in keyset batches of {@code credit.repair.chunk-size} loans, and each batch is repaired
+ * as one chunk on the shared {@code repairExecutor} of {@code credit.repair.parallelism} threads. Each chunk is one set-based update over an ID range in its
+ * own transaction, so a failing chunk does not roll back the others and a chunk that collides with a
+ * concurrent payment is retried. Every shard is repaired the same way, all shards in parallel.
+ */
+@Slf4j
+@Service
+public class LoanBalanceRepairService {
+
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ConflictRetrier conflictRetrier;
+    private final Shards shards;
+    private final LoanPageCache loanPageCache;
+    private final Executor repairExecutor;
+    private final int chunkSize;
+
+    public LoanBalanceRepairService(LoanRepository loanRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    ConflictRetrier conflictRetrier,
+                                    Shards shards,
+                                    LoanPageCache loanPageCache,
+                                    @Qualifier("repairExecutor") Executor repairExecutor,
+                                    @Value("${credit.repair.chunk-size:500}") int chunkSize) {
+        this.loanRepository = loanRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.conflictRetrier = conflictRetrier;
+        this.shards = shards;
+        this.loanPageCache = loanPageCache;
+        this.repairExecutor = repairExecutor;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Recomputes the remaining installments, outstanding amount, next due date and paid state of all loans.
+     *
+     * @return the number of repaired loans and chunks and the elapsed time
+     */
+    public BalanceRepairSummary repairAll() {
+        long start = System.nanoTime();
+        List<ShardResult> shardResults = shards.onEachShard(this::repairShard);
+        int repaired = shardResults.stream().mapToInt(ShardResult::loans).sum();
+        int chunks = shardResults.stream().mapToInt(ShardResult::chunks).sum();
+        // any listed balance may have changed
+        loanPageCache.invalidateAll();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Repaired balance of {} loans in {} chunks in {} ms", repaired, chunks, elapsedMillis);
+        return new BalanceRepairSummary(repaired, chunks, elapsedMillis);
+    }
+
+    /**
+     * Repairs the loans of the current shard in parallel chunks.
+     */
+    private ShardResult repairShard(int shard) {
+        List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+        List<Long> ids;
+        long lastId = 0;
+        while (!(ids = loanRepository.findIdsAfter(lastId, PageRequest.of(0, chunkSize))).isEmpty()) {
+            Long fromId = ids.get(0);
+            Long toId = ids.get(ids.size() - 1);
+            chunks.add(CompletableFuture.supplyAsync(() -> shards.onShard(shard, () -> repairChunk(fromId, toId)), repairExecutor));
+            lastId = toId;
+        }
+        return new ShardResult(chunks.stream().mapToInt(CompletableFuture::join).sum(), chunks.size());
+    }
+
+    private int repairChunk(Long fromId, Long toId) {
+        return conflictRetrier.call("LoanBalanceRepairService.repairAll",
+                () -> transactionTemplate.execute(status -> loanRepository.recomputeBalance(fromId, toId)));
+    }
+
+    private record ShardResult(int loans, int chunks) {
+    }
+}
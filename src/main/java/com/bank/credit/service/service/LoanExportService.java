@@ -0,0 +1,132 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.dto.LoanExportLine;
+import com.bank.credit.service.dto.LoanExportRow;
+import com.bank.credit.service.mapper.InstallmentMapper;
+import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.sharding.Shards;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Service that exports loans with their installments as newline-delimited JSON.
+ * <p>
+ * The rows are read from a database cursor ordered by loan, and every loan is written as soon as its
+ * last installment has been read. Only the installments of the current loan are held in memory,
+ * so the export runs in constant memory no matter how many loans there are. Loans with a compact schedule come as
+ * a single row and have their installments expanded from the schedule. The whole portfolio is exported
+ * one shard after the other, each shard in its own read-only transaction.
+ */
+@Slf4j
+@Service
+public class LoanExportService {
+
+    private final LoanRepository loanRepository;
+    private final InstallmentMapper installmentMapper;
+    private final ObjectMapper objectMapper;
+    private final Shards shards;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public LoanExportService(LoanRepository loanRepository,
+                             InstallmentMapper installmentMapper,
+                             ObjectMapper objectMapper,
+                             Shards shards,
+                             PlatformTransactionManager transactionManager) {
+        this.loanRepository = loanRepository;
+        this.installmentMapper = installmentMapper;
+        this.objectMapper = objectMapper;
+        this.shards = shards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes one JSON line per loan to the output, with the loan's installments inline.
+     *
+     * @param customerId the customer to export the loans of, or null to export all loans
+     * @param out        the stream to write to, it is not closed
+     * @return the number of exported loans
+     */
+    public long export(Long customerId, OutputStream out) throws IOException {
+        long loans = 0;
+        try (SequenceWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            if (customerId != null) {
+                loans = readOnlyTransaction.execute(status -> {
+                    shards.bindCustomer(customerId);
+                    return writeLines(loanRepository.streamExportRowsByCustomerId(customerId), writer);
+                });
+            } else {
+                for (int shard = 0; shard < shards.count(); shard++) {
+                    loans += shards.onShard(shard, () -> readOnlyTransaction.execute(
+                            status -> writeLines(loanRepository.streamExportRows(), writer)));
+                }
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        if (loans > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        log.info("Exported {} loans for customer {}", loans, customerId == null ? "all" : customerId);
+        return loans;
+    }
+
+    private long writeLines(Stream<LoanExportRow> rows, SequenceWriter writer) {
+        try (rows) {
+            return writeLines(rows.iterator(), writer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private long writeLines(Iterator<LoanExportRow> rows, SequenceWriter writer) throws IOException {
+        long loans = 0;
+        LoanExportRow current = null;
+        List<InstallmentDto> installments = new ArrayList<>();
+        while (rows.hasNext()) {
+            LoanExportRow row = rows.next();
+            if (current != null && !current.loanId().equals(row.loanId())) {
+                writer.write(toLine(current, installments));
+                loans++;
+                installments = new ArrayList<>();
+            }
+            current = row;
+            if (row.dueDate() != null) {
+                installments.add(new InstallmentDto(row.loanId(), row.amount(), row.paidAmount(), row.dueDate(),
+                        row.paymentDate(), row.installmentPaid()));
+            }
+        }
+        if (current != null) {
+            writer.write(toLine(current, installments));
+            loans++;
+        }
+        return loans;
+    }
+
+    private LoanExportLine toLine(LoanExportRow loan, List<InstallmentDto> installments) {
+        if (loan.schedule() != null) {
+            installments = installmentMapper.toDtoList(loan.loanId(), loan.schedule());
+        }
+        return new LoanExportLine(loan.loanId(), loan.customerId(), loan.loanAmount(), loan.numberOfInstallment(),
+                loan.interestRate(), loan.loanPaid(), loan.remainingInstallments(), loan.outstandingAmount(),
+                loan.nextDueDate(), installments);
+    }
+}
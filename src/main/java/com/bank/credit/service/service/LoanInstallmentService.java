@@ -1,24 +1,37 @@
 package com.bank.credit.service.service;
 
+import com.bank.credit.service.datasource.ReadYourWrites;
 import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.dto.LoanScheduleView;
 import com.bank.credit.service.mapper.InstallmentMapper;
+import com.bank.credit.service.model.InstallmentSchedule;
 import com.bank.credit.service.model.Loan;
 import com.bank.credit.service.model.LoanInstallment;
+import com.bank.credit.service.repository.ArchivedLoanRepository;
 import com.bank.credit.service.repository.LoanInstallmentRepository;
+import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.sharding.Shards;
+import com.bank.credit.service.util.AmortizationMethod;
+import com.bank.credit.service.util.AmortizationPeriod;
 import com.bank.credit.service.util.LoanCalculator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.temporal.TemporalAdjusters;
-import java.util.List;
-import java.util.stream.IntStream;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Service responsible for managing loan installment operations.
  * <p>
  * This includes retrieving installments for a loan and generating initial installment schedules.
+ * Depending on {@code credit.installments.storage}, new loans get one row per installment or a compact
+ * {@link InstallmentSchedule} on the loan; reads materialize both the same way, whatever the setting.
+ * Archived loans no longer have installments; for them a single summary installment is returned instead.
  * <p>
  * The service coordinates with repositories and delegates financial calculations
  * to {@link LoanCalculator}.
@@ -27,39 +40,215 @@ import java.util.stream.IntStream;
 public class LoanInstallmentService {
 
     private final LoanInstallmentRepository loanInstallmentRepository;
+    private final LoanRepository loanRepository;
+    private final ArchivedLoanRepository archivedLoanRepository;
     private final InstallmentMapper installmentMapper;
+    private final ScheduleTemplates scheduleTemplates;
+    private final ReadYourWrites readYourWrites;
+    private final Shards shards;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int lookupChunkSize;
+    private final InstallmentStorage storage;
 
     public LoanInstallmentService(LoanInstallmentRepository loanInstallmentRepository,
-                                  InstallmentMapper installmentMapper) {
+                                  LoanRepository loanRepository,
+                                  ArchivedLoanRepository archivedLoanRepository,
+                                  InstallmentMapper installmentMapper,
+                                  ScheduleTemplates scheduleTemplates,
+                                  ReadYourWrites readYourWrites,
+                                  Shards shards,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${credit.installments.lookup-chunk-size:500}") int lookupChunkSize,
+                                  @Value("${credit.installments.storage:rows}") InstallmentStorage storage) {
         this.loanInstallmentRepository = loanInstallmentRepository;
+        this.loanRepository = loanRepository;
+        this.archivedLoanRepository = archivedLoanRepository;
         this.installmentMapper = installmentMapper;
+        this.scheduleTemplates = scheduleTemplates;
+        this.readYourWrites = readYourWrites;
+        this.shards = shards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.lookupChunkSize = lookupChunkSize;
+        this.storage = storage;
     }
 
+    /**
+     * Lists the installments of a loan, ordered by due date.
+     * The installments are selected straight into {@link InstallmentDto}s without loading the entities.
+     * <p>
+     * A loan without installment rows is looked up among the compact schedules, and if the loan has been
+     * archived, its summary installment is returned.
+     *
+     * @param loanId the loan ID
+     * @return the installments of the loan, empty if the loan has none
+     */
     @Transactional(readOnly = true)
     public List<InstallmentDto> getByLoan(Long loanId) {
-        List<LoanInstallment> installments = loanInstallmentRepository.findByLoan_Id(loanId);
-        return installmentMapper.toDtoList(installments);
+        shards.bindLoan(loanId);
+        readYourWrites.readLoan(loanId);
+        List<InstallmentDto> installments = loanInstallmentRepository.findDtosByLoanId(loanId);
+        if (!installments.isEmpty()) {
+            return installments;
+        }
+        List<LoanScheduleView> scheduled = loanRepository.findSchedulesByIdIn(List.of(loanId));
+        if (!scheduled.isEmpty()) {
+            return installmentMapper.toDtoList(loanId, scheduled.get(0).schedule());
+        }
+        return archivedLoanRepository.findInstallmentSummariesByIdIn(List.of(loanId));
+    }
+
+    /**
+     * Lists the installments of many loans, grouped by loan.
+     * <p>
+     * The IDs are looked up with one IN query per {@code credit.installments.lookup-chunk-size} loans,
+     * so the size of the IN list stays bounded however many IDs are requested. Only the IDs without installment
+     * rows are looked up among the compact schedules, and only those not found there in the archive.
+     * The loans may belong to many customers, so the IDs are grouped by shard and every shard is read in its own
+     * read-only transaction.
+     *
+     * @param loanIds the loan IDs, duplicates are ignored
+     * @return the installments of each loan ordered by due date, in the order of the requested IDs;
+     * loans without installments are left out
+     */
+    public Map<Long, List<InstallmentDto>> getByLoans(Collection<Long> loanIds) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(loanIds));
+        Map<Long, List<InstallmentDto>> found = new HashMap<>();
+        distinctIds.stream()
+                .collect(Collectors.groupingBy(shards::shardOf, TreeMap::new, Collectors.toList()))
+                .forEach((shard, ids) -> found.putAll(shards.onShard(shard, () -> readOnlyTransaction.execute(status -> lookup(ids)))));
+        Map<Long, List<InstallmentDto>> byLoan = new LinkedHashMap<>();
+        distinctIds.stream()
+                .filter(found::containsKey)
+                .forEach(loanId -> byLoan.put(loanId, found.get(loanId)));
+        return byLoan;
+    }
+
+    private Map<Long, List<InstallmentDto>> lookup(List<Long> loanIds) {
+        Map<Long, List<InstallmentDto>> found = new HashMap<>();
+        for (int from = 0; from < loanIds.size(); from += lookupChunkSize) {
+            List<Long> chunk = loanIds.subList(from, Math.min(from + lookupChunkSize, loanIds.size()));
+            found.putAll(groupByLoan(loanInstallmentRepository.findDtosByLoanIdIn(chunk)));
+        }
+        List<Long> withoutRows = loanIds.stream().filter(loanId -> !found.containsKey(loanId)).toList();
+        for (int from = 0; from < withoutRows.size(); from += lookupChunkSize) {
+            List<Long> chunk = withoutRows.subList(from, Math.min(from + lookupChunkSize, withoutRows.size()));
+            found.putAll(materialize(loanRepository.findSchedulesByIdIn(chunk)));
+        }
+        List<Long> missingIds = withoutRows.stream().filter(loanId -> !found.containsKey(loanId)).toList();
+        for (int from = 0; from < missingIds.size(); from += lookupChunkSize) {
+            List<Long> chunk = missingIds.subList(from, Math.min(from + lookupChunkSize, missingIds.size()));
+            found.putAll(groupByLoan(archivedLoanRepository.findInstallmentSummariesByIdIn(chunk)));
+        }
+        return found;
+    }
+
+    /**
+     * Lists the installments of all loans of a customer with one join query, grouped by loan.
+     * The compact schedules and the summaries of the customer's archived loans are read with one query each
+     * and merged in.
+     *
+     * @param customerId the customer ID
+     * @return the installments of each loan ordered by due date, loans ordered by ID
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<InstallmentDto>> getByCustomer(Long customerId) {
+        shards.bindCustomer(customerId);
+        readYourWrites.readCustomer(customerId);
+        Map<Long, List<InstallmentDto>> byLoan = new TreeMap<>(groupByLoan(loanInstallmentRepository.findDtosByCustomerId(customerId)));
+        byLoan.putAll(materialize(loanRepository.findSchedulesByCustomerId(customerId)));
+        byLoan.putAll(groupByLoan(archivedLoanRepository.findInstallmentSummariesByCustomerId(customerId)));
+        return new LinkedHashMap<>(byLoan);
+    }
+
+    private static Map<Long, List<InstallmentDto>> groupByLoan(List<InstallmentDto> installments) {
+        return installments.stream()
+                .collect(Collectors.groupingBy(InstallmentDto::getLoanId, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    private Map<Long, List<InstallmentDto>> materialize(List<LoanScheduleView> loans) {
+        Map<Long, List<InstallmentDto>> byLoan = new LinkedHashMap<>();
+        loans.forEach(loan -> byLoan.put(loan.loanId(), installmentMapper.toDtoList(loan.loanId(), loan.schedule())));
+        return byLoan;
+    }
+
+    /**
+     * Gives a new loan its installments, as rows or as a compact schedule depending on
+     * {@code credit.installments.storage}. Loans that are not {@link AmortizationMethod#FLAT} always get rows,
+     * since their installment amounts differ.
+     *
+     * @param loan      the new loan
+     * @param principal the amount lent, the loan amount of the loan itself being the total repayment
+     */
+    public void scheduleInstallments(Loan loan, BigDecimal principal) {
+        if (loan.getAmortizationMethod() != AmortizationMethod.FLAT) {
+            loan.addInstallments(buildAmortizedInstallments(loan, principal));
+        } else if (storage == InstallmentStorage.COMPACT) {
+            loan.setSchedule(buildSchedule(loan));
+        } else {
+            loan.addInstallments(buildLoanInstallments(loan));
+        }
+    }
+
+    /**
+     * Builds the compact equivalent of {@link #buildLoanInstallments(Loan)}: the same amounts and due dates,
+     * none of them paid.
+     *
+     * @param loan the loan the schedule belongs to
+     * @return the unpaid schedule
+     */
+    public InstallmentSchedule buildSchedule(Loan loan) {
+        int count = loan.getNumberOfInstallment();
+        BigDecimal amount = scheduleTemplates.installmentAmount(loan.getLoanAmount(), count);
+        return InstallmentSchedule.unpaid(scheduleTemplates.dueDates(LocalDate.now(), count).get(0), count, amount);
     }
 
     /**
      * Builds a list of loan installments starting from the first day of the next month.
-     * Each installment has an equal amount and incrementing due date.
+     * Each installment has an equal amount and incrementing due date, both taken from {@link ScheduleTemplates}.
      *
      * @param loan the loan entity the installments belong to
      * @return list of {@link LoanInstallment} objects
      */
     public List<LoanInstallment> buildLoanInstallments(Loan loan) {
-        BigDecimal amount = LoanCalculator.calculateInstallmentAmount(loan.getLoanAmount(), loan.getNumberOfInstallment());
-        LocalDate firstOfNextMonth = LocalDate.now().with(TemporalAdjusters.firstDayOfNextMonth());
-
-        return IntStream.range(0, loan.getNumberOfInstallment())
-                .mapToObj(i -> {
-                    LoanInstallment installment = new LoanInstallment();
-                    installment.setAmount(amount);
-                    installment.setDueDate(firstOfNextMonth.plusMonths(i));
-                    installment.setLoan(loan);
-                    return installment;
-                })
-                .toList();
+        int count = loan.getNumberOfInstallment();
+        BigDecimal amount = scheduleTemplates.installmentAmount(loan.getLoanAmount(), count);
+        List<LocalDate> dueDates = scheduleTemplates.dueDates(LocalDate.now(), count);
+
+        List<LoanInstallment> installments = new ArrayList<>(count);
+        for (LocalDate dueDate : dueDates) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setAmount(amount);
+            installment.setDueDate(dueDate);
+            installment.setLoan(loan);
+            installments.add(installment);
+        }
+        return installments;
+    }
+
+    /**
+     * Builds the installments of a loan from the schedule of its {@link AmortizationMethod}, one per period,
+     * with the due dates of {@link #buildLoanInstallments(Loan)}.
+     *
+     * @param loan      the loan entity the installments belong to
+     * @param principal the amount lent
+     * @return list of {@link LoanInstallment} objects
+     */
+    public List<LoanInstallment> buildAmortizedInstallments(Loan loan, BigDecimal principal) {
+        int count = loan.getNumberOfInstallment();
+        List<AmortizationPeriod> periods = loan.getAmortizationMethod()
+                .schedule(principal, loan.getInterestRate(), count)
+                .periods();
+        List<LocalDate> dueDates = scheduleTemplates.dueDates(LocalDate.now(), count);
+
+        List<LoanInstallment> installments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setAmount(periods.get(i).payment());
+            installment.setDueDate(dueDates.get(i));
+            installment.setLoan(loan);
+            installments.add(installment);
+        }
+        return installments;
     }
 }
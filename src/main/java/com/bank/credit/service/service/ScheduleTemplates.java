@@ -0,0 +1,80 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.util.LoanCalculator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed parts of installment schedules, so building the schedule of a new loan is mostly a copy.
+ * <p>
+ * Schedules only differ by origination month, number of installments and amount. The due dates are kept per
+ * origination month and installment count, the installment amounts per loan amount and installment count, both in
+ * bounded caches. Hits and misses are published as the {@code cache.*} metrics of the {@code scheduleDueDates} and
+ * {@code installmentAmounts} caches.
+ */
+@Component
+public class ScheduleTemplates {
+
+    static final String DUE_DATES_CACHE_NAME = "scheduleDueDates";
+    static final String AMOUNTS_CACHE_NAME = "installmentAmounts";
+
+    // a year of origination months for every supported installment count
+    private static final long MAX_DUE_DATE_TEMPLATES = 12L * 64;
+
+    private final Cache<DueDatesKey, List<LocalDate>> dueDates;
+    private final Cache<AmountKey, BigDecimal> amounts;
+
+    public ScheduleTemplates(MeterRegistry meterRegistry,
+                             @Value("${credit.installments.templates.amount-cache-size:10000}") long amountCacheSize) {
+        this.dueDates = Caffeine.newBuilder()
+                .maximumSize(MAX_DUE_DATE_TEMPLATES)
+                .recordStats()
+                .executor(Runnable::run)
+                .build();
+        this.amounts = Caffeine.newBuilder()
+                .maximumSize(amountCacheSize)
+                .recordStats()
+                .executor(Runnable::run)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, dueDates, DUE_DATES_CACHE_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, amounts, AMOUNTS_CACHE_NAME);
+    }
+
+    /**
+     * Returns the monthly due dates of a loan originated on the given date, starting on the first day of the next month.
+     *
+     * @param originationDate the day the loan is created
+     * @param count           the number of installments
+     * @return the due dates, oldest first, as an unmodifiable list
+     */
+    public List<LocalDate> dueDates(LocalDate originationDate, int count) {
+        return dueDates.get(new DueDatesKey(YearMonth.from(originationDate), count), key -> {
+            LocalDate firstOfNextMonth = key.month().plusMonths(1).atDay(1);
+            return IntStream.range(0, key.count()).mapToObj(firstOfNextMonth::plusMonths).toList();
+        });
+    }
+
+    /**
+     * Returns {@link LoanCalculator#calculateInstallmentAmount(BigDecimal, int)}, computed once per amount and count.
+     */
+    public BigDecimal installmentAmount(BigDecimal loanAmount, int count) {
+        return amounts.get(new AmountKey(loanAmount, count),
+                key -> LoanCalculator.calculateInstallmentAmount(key.loanAmount(), key.count()));
+    }
+
+    private record DueDatesKey(YearMonth month, int count) {
+    }
+
+    private record AmountKey(BigDecimal loanAmount, int count) {
+    }
+}
@@ -1,47 +1,87 @@
 package com.bank.credit.service.service.aop;
 
 import com.bank.credit.service.dto.CustomerDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.*;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Aspect  // declare a class for AOP, creating an Aspect
 @Component
 public class LoggingAspect {
 
+    static final String METRIC = "credit.service.method";
+
+    private static final String NO_EXCEPTION = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    // the timers of successful calls per method, overloads end up with the same timer as they have the same tags
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    public LoggingAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     // or I can also stop the execution of the method call, loging, handle exceptions, execution time
     // This pointcut matches all public methods inside service package
     // “I wrap this method like a sandwich — I can do things before, after, or even replace it.”
     // joinPoint is here this --> com.bank.credit.service.service..*(..)
-    // to summarize the purpose of @Around is --> "here will all done before method call and after, I can modify the input parameters"
+    // the execution time goes to a Micrometer timer instead of the log, so it can be aggregated in Prometheus,
+    // and the timer of every method is looked up once and then reused, which keeps this cheap on every call
 
     /**
      * Around advice that wraps the execution of all public methods in the service package.
-     * Measures execution time and logs it.
-     * Can also modify input parameters or return value if needed.
+     * Records the execution time in the {@value #METRIC} timer, tagged with the class, the method and the
+     * simple name of the exception the method threw, or {@code none}.
      *
      * @param joinPoint the join point representing the method execution
      * @return the result of the method execution
      * @throws Throwable if the underlying method throws an exception
      */
     @Around("execution(* com.bank.credit.service.service..*(..))")
-    public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
-        long start = System.currentTimeMillis();
-
-        // Proceed with the actual method
-        Object result = joinPoint.proceed();
-
-        long elapsed = System.currentTimeMillis() - start;
-        log.info("Executed {} in {} ms", joinPoint.getSignature(), elapsed);
-
+    public Object recordExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable exception) {
+            // failures are rare, so their timers are looked up in the registry
+            Timer timer = timer(joinPoint.getSignature(), exception.getClass().getSimpleName());
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw exception;
+        }
+        long elapsed = System.nanoTime() - start;
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Timer timer = timers.get(signature.getMethod());
+        if (timer == null) {
+            timer = timers.computeIfAbsent(signature.getMethod(), method -> timer(signature, NO_EXCEPTION));
+        }
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
         return result;
     }
 
+    private Timer timer(Signature signature, String exception) {
+        return Timer.builder(METRIC)
+                .description("Execution time of service methods")
+                .tag("class", signature.getDeclaringType().getSimpleName())
+                .tag("method", signature.getName())
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+
     //Before every method execution in com.bank.credit.service.service.CustomerService.* it should run this method here,
     // I log method name and the method parameter in this method,
     // additional it can do other checks before this method execution like security (has the use the role ADMIN)
@@ -0,0 +1,34 @@
+package com.bank.credit.service.service.aop;
+
+import com.bank.credit.service.retry.ConflictRetrier;
+import com.bank.credit.service.retry.RetryOnConflict;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies {@link RetryOnConflict} to service methods.
+ * <p>
+ * Ordered before the transaction interceptor, so every attempt gets a fresh transaction
+ * and a failed attempt is fully rolled back before the next one starts.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RetryOnConflictAspect {
+
+    private final ConflictRetrier conflictRetrier;
+
+    public RetryOnConflictAspect(ConflictRetrier conflictRetrier) {
+        this.conflictRetrier = conflictRetrier;
+    }
+
+    @Around("@annotation(com.bank.credit.service.retry.RetryOnConflict)")
+    public Object retryOnConflict(ProceedingJoinPoint joinPoint) throws Throwable {
+        String name = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        return conflictRetrier.call(name, joinPoint::proceed);
+    }
+}
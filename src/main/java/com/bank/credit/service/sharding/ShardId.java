@@ -0,0 +1,100 @@
+package com.bank.credit.service.sharding;
+
+import java.time.Instant;
+
+/**
+ * Time-ordered, shard-aware 64-bit IDs.
+ * <p>
+ * Layout, from the most significant bit: 1 unused sign bit, 41 bits of milliseconds since 2024-01-01 UTC
+ * (enough for about 69 years), 10 bits of sequence, 8 bits of shard and 4 bits of node. The sequence is shared
+ * by all shards and comes before the shard, so the IDs of one node are strictly increasing. Inserts therefore keep
+ * appending to the primary key index, and the shard of every row can be read from its ID without a lookup.
+ * <p>
+ * IDs are handed out by a {@link Generator} per node, up to 1024 per millisecond; beyond that the generator borrows
+ * the next millisecond. The application's generator is held by {@link Shards}.
+ * <p>
+ * Rows created before V4 keep the IDs of the former database sequences. Those are far below any generated ID, so
+ * every ID below {@link #FIRST_GENERATED_ID} is read as a legacy ID on shard 0, where these rows have always been.
+ */
+public final class ShardId {
+
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    static final int SEQUENCE_BITS = 10;
+    static final int NODE_BITS = 4;
+    static final int SHARD_BITS = 8;
+
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+    public static final int MAX_NODES = 1 << NODE_BITS;
+
+    private static final int NODE_SHIFT = 0;
+    private static final int SHARD_SHIFT = NODE_SHIFT + NODE_BITS;
+    private static final int SEQUENCE_SHIFT = SHARD_SHIFT + SHARD_BITS;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_SHIFT + SEQUENCE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // IDs have only been generated since 2025, everything below is from the sequences of V1
+    static final long FIRST_GENERATED_ID =
+            (Instant.parse("2025-01-01T00:00:00Z").toEpochMilli() - EPOCH_MILLIS) << TIMESTAMP_SHIFT;
+
+    private ShardId() {
+    }
+
+    /**
+     * Reads the shard bits of an ID, shard 0 for a legacy sequence ID.
+     */
+    public static int shardOf(long id) {
+        if (id < FIRST_GENERATED_ID) {
+            return 0;
+        }
+        return (int) (id >>> SHARD_SHIFT) & (MAX_SHARDS - 1);
+    }
+
+    /**
+     * Reads the creation time of an ID, meaningless for a legacy sequence ID.
+     */
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS);
+    }
+
+    /**
+     * Generates the IDs of one node. Every application instance writing to the same shards needs its own node ID,
+     * otherwise two instances can hand out the same ID in the same millisecond.
+     */
+    public static final class Generator {
+
+        private final int node;
+        private long lastMillis;
+        private long sequence;
+
+        /**
+         * @throws IllegalArgumentException if the node ID does not fit into the node bits
+         */
+        public Generator(int nodeId) {
+            if (nodeId < 0 || nodeId >= MAX_NODES) {
+                throw new IllegalArgumentException("Node ID must be between 0 and " + (MAX_NODES - 1) + ": " + nodeId);
+            }
+            this.node = nodeId;
+        }
+
+        /**
+         * Generates the next ID for a row of the given shard.
+         */
+        public synchronized long next(int shard) {
+            if (shard < 0 || shard >= MAX_SHARDS) {
+                throw new IllegalArgumentException("Shard must be between 0 and " + (MAX_SHARDS - 1) + ": " + shard);
+            }
+            long millis = Math.max(System.currentTimeMillis() - EPOCH_MILLIS, lastMillis);
+            if (millis == lastMillis) {
+                sequence = (sequence + 1) & SEQUENCE_MASK;
+                if (sequence == 0) {
+                    millis++;
+                }
+            } else {
+                sequence = 0;
+            }
+            lastMillis = millis;
+            return millis << TIMESTAMP_SHIFT | sequence << SEQUENCE_SHIFT | (long) shard << SHARD_SHIFT | (long) node << NODE_SHIFT;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.bank.credit.service.sharding;
+
+/**
+ * An entity that lives in the shard of another entity, e.g. a loan in the shard of its customer.
+ */
+public interface ShardKeyed {
+
+    /**
+     * @return the ID of the entity whose shard this entity belongs to, or null to use the shard the
+     * current transaction is bound to
+     */
+    Long shardKey();
+}
@@ -0,0 +1,18 @@
+package com.bank.credit.service.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections of the shard the current thread is bound to by {@link Shards}, shard 0 if it is not bound.
+ * <p>
+ * Like the read replica routing, this data source must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so a transaction can bind its shard
+ * after it has begun and before its first statement.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Shards.currentShard();
+    }
+}
@@ -0,0 +1,39 @@
+package com.bank.credit.service.sharding;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+
+/**
+ * Hibernate ID generator behind {@link ShardedId}.
+ * <p>
+ * An entity implementing {@link ShardKeyed} gets an ID in the shard of its key, e.g. a loan in the shard of its
+ * customer and an installment in the shard of its loan. Other entities, like a new customer, get an ID in the
+ * shard the current transaction is bound to by {@link Shards}, or shard 0 outside of a bound transaction.
+ * <p>
+ * Hibernate creates the generator through the Spring bean container, so it is handed the {@link Shards} of its
+ * application context and generates IDs with that application's node ID.
+ */
+public class ShardedIdGenerator implements BeforeExecutionGenerator {
+
+    private final Shards shards;
+
+    public ShardedIdGenerator(Shards shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        Long key = owner instanceof ShardKeyed keyed ? keyed.shardKey() : null;
+        int shard = key != null ? ShardId.shardOf(key) : Shards.currentShard();
+        return shards.nextId(shard);
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
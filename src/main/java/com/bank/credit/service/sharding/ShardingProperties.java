@@ -0,0 +1,26 @@
+package com.bank.credit.service.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Customer-keyed sharding. Shard 0 is the regular {@code spring.datasource}, the {@code shards} are shard 1 to N.
+ *
+ * @param enabled whether the additional shards are used, otherwise all data lives in shard 0
+ * @param nodeId  the node ID written into generated IDs, unique per application instance
+ * @param shards  the connections of the additional shards
+ */
+@ConfigurationProperties("credit.sharding")
+public record ShardingProperties(@DefaultValue("false") boolean enabled,
+                                 @DefaultValue("0") int nodeId,
+                                 @DefaultValue List<Shard> shards) {
+
+    public record Shard(String url, String username, String password) {
+    }
+
+    public int shardCount() {
+        return enabled ? 1 + shards.size() : 1;
+    }
+}
@@ -0,0 +1,178 @@
+package com.bank.credit.service.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Binds work to the shard that holds its data.
+ * <p>
+ * Customers are spread over the shards round robin when they are created, and their loans and installments
+ * follow them, so the shard of any customer, loan or installment can be read from its ID. A transaction that
+ * works on one customer binds itself to the customer's shard with {@link #bindCustomer(Long)} or
+ * {@link #bindLoan(Long)} before its first statement; the binding ends with the transaction. Work over many
+ * customers runs once per shard with {@link #onShard(int, Supplier)} or, scatter-gather, on all shards in
+ * parallel with {@link #onEachShard(IntFunction)}.
+ * <p>
+ * The IDs of new rows come from {@link #nextId(int)}, with the {@code credit.sharding.node-id} of this application.
+ * <p>
+ * With a single shard all bindings are no-ops.
+ */
+@Component
+public class Shards implements DisposableBean {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final int count;
+    private final AtomicInteger nextCustomerShard = new AtomicInteger();
+    private final ShardId.Generator idGenerator;
+    private final ExecutorService scatterExecutor;
+
+    public Shards(ShardingProperties properties) {
+        this.count = properties.shardCount();
+        if (count > ShardId.MAX_SHARDS) {
+            throw new IllegalArgumentException("At most " + ShardId.MAX_SHARDS + " shards are supported");
+        }
+        this.idGenerator = new ShardId.Generator(properties.nodeId());
+        this.scatterExecutor = count > 1 ? Executors.newFixedThreadPool(count) : null;
+    }
+
+    /**
+     * @return the shard the current thread is bound to, 0 if it is not bound
+     */
+    public static int currentShard() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return the shard holding the customer, loan or installment with the given ID
+     */
+    public int shardOf(Long id) {
+        return count == 1 ? 0 : ShardId.shardOf(id) % count;
+    }
+
+    /**
+     * Generates the ID of a new row in the given shard, with the node ID of this application.
+     */
+    public long nextId(int shard) {
+        return idGenerator.next(shard);
+    }
+
+    /**
+     * Binds the current transaction to the next shard in round robin order, for creating a new customer.
+     */
+    public void bindNewCustomer() {
+        if (count > 1) {
+            bind(Math.floorMod(nextCustomerShard.getAndIncrement(), count));
+        }
+    }
+
+    /**
+     * Binds the current transaction to the shard of the customer.
+     */
+    public void bindCustomer(Long customerId) {
+        if (count > 1 && customerId != null) {
+            bind(shardOf(customerId));
+        }
+    }
+
+    /**
+     * Binds the current transaction to the shard of the loan.
+     */
+    public void bindLoan(Long loanId) {
+        if (count > 1 && loanId != null) {
+            bind(shardOf(loanId));
+        }
+    }
+
+    /**
+     * Runs the work bound to the given shard. The work must open its own transactions.
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (count == 1) {
+            return work.get();
+        }
+        Integer previous = CURRENT.get();
+        if (previous != null && previous != shard) {
+            throw new IllegalStateException("Thread is bound to shard " + previous + ", cannot run work on shard " + shard);
+        }
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Runs the work on every shard in parallel and gathers the results.
+     *
+     * @return the result of every shard, in shard order
+     */
+    public <T> List<T> onEachShard(IntFunction<T> work) {
+        if (count == 1) {
+            return List.of(work.apply(0));
+        }
+        List<CompletableFuture<T>> futures = IntStream.range(0, count)
+                .mapToObj(shard -> CompletableFuture.supplyAsync(() -> onShard(shard, () -> work.apply(shard)), scatterExecutor))
+                .toList();
+        List<T> results = new ArrayList<>(count);
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+        return results;
+    }
+
+    private void bind(int shard) {
+        Integer current = CURRENT.get();
+        if (current != null) {
+            if (current != shard) {
+                throw new IllegalStateException("Transaction is bound to shard " + current + ", cannot access shard " + shard);
+            }
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("A shard can only be bound inside a transaction");
+        }
+        CURRENT.set(shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                CURRENT.remove();
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdown();
+        }
+    }
+}
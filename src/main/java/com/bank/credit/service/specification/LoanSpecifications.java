@@ -1,8 +1,13 @@
 package com.bank.credit.service.specification;
 
+import com.bank.credit.service.dto.LoanCursor;
 import com.bank.credit.service.model.Loan;
+import jakarta.persistence.criteria.Expression;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.math.BigDecimal;
+
 /**
  * Utility class containing static methods to build JPA Specifications
  * for filtering {@link Loan} entities based on various criteria.
@@ -23,4 +28,26 @@ public final class LoanSpecifications {
     public static Specification<Loan> isPaid(Boolean paid) {
         return (root, query, cb) -> cb.equal(root.get("isPaid"), paid);
     }
+
+    /**
+     * Seek predicate for keyset pagination: matches the loans that come after the cursor when the
+     * listing is sorted by loan amount and then ID in the given direction.
+     * <p>
+     * The bound on the loan amount alone is implied by the rest, but it lets the database range scan the
+     * (customer, loan amount, ID) index instead of reading all of the customer's loans.
+     */
+    public static Specification<Loan> isAfter(LoanCursor cursor, Sort.Direction direction) {
+        return (root, query, cb) -> {
+            Expression<BigDecimal> amount = root.get("loanAmount");
+            Expression<Long> id = root.get("id");
+            if (direction.isAscending()) {
+                return cb.and(cb.greaterThanOrEqualTo(amount, cursor.loanAmount()),
+                        cb.or(cb.greaterThan(amount, cursor.loanAmount()),
+                                cb.and(cb.equal(amount, cursor.loanAmount()), cb.greaterThan(id, cursor.id()))));
+            }
+            return cb.and(cb.lessThanOrEqualTo(amount, cursor.loanAmount()),
+                    cb.or(cb.lessThan(amount, cursor.loanAmount()),
+                            cb.and(cb.equal(amount, cursor.loanAmount()), cb.lessThan(id, cursor.id()))));
+        };
+    }
 }
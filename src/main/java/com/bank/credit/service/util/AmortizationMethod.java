@@ -0,0 +1,105 @@
+package com.bank.credit.service.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How a loan is repaid, chosen per loan.
+ * <p>
+ * For {@link #FLAT} the interest rate is the interest over the whole loan, as it has always been. For
+ * {@link #ANNUITY} and {@link #DECLINING_BALANCE} it is an annual rate charged monthly on the outstanding principal.
+ * Every payment, principal and interest part is rounded half up to cents, and the last period absorbs the rounding
+ * so the principal parts add up to the principal exactly. Each constant builds its own schedule, so a new method is
+ * one more constant.
+ */
+public enum AmortizationMethod {
+
+    /**
+     * Total interest is {@code principal × rate}, repaid in equal installments together with the principal.
+     * As before amortization methods existed, the installments are the rounded share of the total repayment, so
+     * they need not add up to it exactly.
+     */
+    FLAT {
+        @Override
+        public AmortizationSchedule schedule(BigDecimal principal, BigDecimal rate, int term) {
+            BigDecimal payment = LoanCalculator.calculateInstallmentAmount(totalRepayment(principal, rate, term), term);
+            BigDecimal principalPart = LoanCalculator.calculateInstallmentAmount(principal, term);
+            List<AmortizationPeriod> periods = new ArrayList<>(term);
+            BigDecimal balance = principal;
+            for (int period = 1; period <= term; period++) {
+                BigDecimal repaid = period < term ? principalPart : balance;
+                balance = balance.subtract(repaid);
+                periods.add(new AmortizationPeriod(payment, repaid, payment.subtract(repaid), balance));
+            }
+            return new AmortizationSchedule(periods);
+        }
+
+        @Override
+        public BigDecimal totalRepayment(BigDecimal principal, BigDecimal rate, int term) {
+            return LoanCalculator.calculateTotalRepayment(principal, rate);
+        }
+    },
+
+    /**
+     * Equal monthly payments, each paying the interest on the outstanding principal and repaying the rest.
+     */
+    ANNUITY {
+        @Override
+        public AmortizationSchedule schedule(BigDecimal principal, BigDecimal rate, int term) {
+            DiscountFactors factors = DiscountFactors.of(rate, term);
+            BigDecimal payment = cents(principal.multiply(factors.annuityFactor()));
+            List<AmortizationPeriod> periods = new ArrayList<>(term);
+            BigDecimal balance = principal;
+            for (int period = 1; period <= term; period++) {
+                BigDecimal interest = cents(balance.multiply(factors.periodicRate()));
+                BigDecimal repaid = period < term ? payment.subtract(interest) : balance;
+                balance = balance.subtract(repaid);
+                periods.add(new AmortizationPeriod(repaid.add(interest), repaid, interest, balance));
+            }
+            return new AmortizationSchedule(periods);
+        }
+    },
+
+    /**
+     * Equal principal parts plus the interest on the outstanding principal, so payments decrease month by month.
+     */
+    DECLINING_BALANCE {
+        @Override
+        public AmortizationSchedule schedule(BigDecimal principal, BigDecimal rate, int term) {
+            DiscountFactors factors = DiscountFactors.of(rate, term);
+            BigDecimal principalPart = LoanCalculator.calculateInstallmentAmount(principal, term);
+            List<AmortizationPeriod> periods = new ArrayList<>(term);
+            BigDecimal balance = principal;
+            for (int period = 1; period <= term; period++) {
+                BigDecimal interest = cents(balance.multiply(factors.periodicRate()));
+                BigDecimal repaid = period < term ? principalPart : balance;
+                balance = balance.subtract(repaid);
+                periods.add(new AmortizationPeriod(repaid.add(interest), repaid, interest, balance));
+            }
+            return new AmortizationSchedule(periods);
+        }
+    };
+
+    /**
+     * Builds the repayment schedule of a loan.
+     *
+     * @param principal the amount lent
+     * @param rate      the interest rate, see the class comment for its meaning per method
+     * @param term      the number of monthly installments
+     * @return the schedule, one period per installment
+     */
+    public abstract AmortizationSchedule schedule(BigDecimal principal, BigDecimal rate, int term);
+
+    /**
+     * Returns the amount the customer repays in total, which is what the loan reserves of the credit limit.
+     */
+    public BigDecimal totalRepayment(BigDecimal principal, BigDecimal rate, int term) {
+        return schedule(principal, rate, term).totalPayment();
+    }
+
+    private static BigDecimal cents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP);
+    }
+}
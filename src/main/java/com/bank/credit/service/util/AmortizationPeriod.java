@@ -0,0 +1,14 @@
+package com.bank.credit.service.util;
+
+import java.math.BigDecimal;
+
+/**
+ * One period of an amortization schedule.
+ *
+ * @param payment   the amount due for the period, principal plus interest
+ * @param principal the part of the payment that repays the principal
+ * @param interest  the part of the payment that pays interest
+ * @param balance   the principal left after the payment
+ */
+public record AmortizationPeriod(BigDecimal payment, BigDecimal principal, BigDecimal interest, BigDecimal balance) {
+}
@@ -0,0 +1,29 @@
+package com.bank.credit.service.util;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The periods of a loan's repayment, oldest first.
+ */
+public record AmortizationSchedule(List<AmortizationPeriod> periods) {
+
+    public AmortizationSchedule {
+        periods = List.copyOf(periods);
+    }
+
+    public BigDecimal totalPayment() {
+        return periods.stream().map(AmortizationPeriod::payment).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public BigDecimal totalInterest() {
+        return periods.stream().map(AmortizationPeriod::interest).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Tells whether every period has the same payment.
+     */
+    public boolean hasEqualPayments() {
+        return periods.stream().map(AmortizationPeriod::payment).distinct().count() == 1;
+    }
+}
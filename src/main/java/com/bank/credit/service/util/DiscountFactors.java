@@ -0,0 +1,49 @@
+package com.bank.credit.service.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Precomputed rate factors per (annual rate, term), so an annuity schedule is built with multiplications only.
+ * <p>
+ * The table is bounded; with the validated rates and terms it holds a few hundred entries at most.
+ *
+ * @param periodicRate   the monthly rate, a twelfth of the annual rate
+ * @param annuityFactor  the payment per unit of principal, {@code r / (1 - (1 + r)^-n)}
+ */
+record DiscountFactors(BigDecimal periodicRate, BigDecimal annuityFactor) {
+
+    static final MathContext PRECISION = MathContext.DECIMAL64;
+
+    private static final int PERIODS_PER_YEAR = 12;
+    private static final BigDecimal MONTHS = BigDecimal.valueOf(PERIODS_PER_YEAR);
+
+    private static final Cache<Key, DiscountFactors> TABLE = Caffeine.newBuilder()
+            .maximumSize(4096)
+            .executor(Runnable::run)
+            .build();
+
+    static DiscountFactors of(BigDecimal annualRate, int term) {
+        return TABLE.get(new Key(annualRate.stripTrailingZeros(), term), DiscountFactors::compute);
+    }
+
+    static DiscountFactors compute(BigDecimal annualRate, int term) {
+        BigDecimal periodicRate = annualRate.divide(MONTHS, PRECISION);
+        if (periodicRate.signum() == 0) {
+            return new DiscountFactors(periodicRate, BigDecimal.ONE.divide(BigDecimal.valueOf(term), PRECISION));
+        }
+        BigDecimal discount = BigDecimal.ONE.add(periodicRate).pow(-term, PRECISION);
+        BigDecimal annuityFactor = periodicRate.divide(BigDecimal.ONE.subtract(discount), PRECISION);
+        return new DiscountFactors(periodicRate, annuityFactor);
+    }
+
+    private static DiscountFactors compute(Key key) {
+        return compute(key.annualRate(), key.term());
+    }
+
+    private record Key(BigDecimal annualRate, int term) {
+    }
+}
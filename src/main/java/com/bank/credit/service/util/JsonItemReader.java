@@ -0,0 +1,79 @@
+package com.bank.credit.service.util;
+
+import com.bank.credit.service.dto.BatchItem;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a bulk request body one item at a time, without materializing the whole payload.
+ * <p>
+ * Accepts both a top-level JSON array and newline-delimited JSON (NDJSON). An item that cannot be
+ * bound to the target type is reported as a failed {@link BatchItem} and reading continues with the
+ * next one; malformed JSON ends the stream after reporting the failure.
+ */
+public class JsonItemReader<T> implements Iterator<BatchItem<T>>, Closeable {
+
+    private final MappingIterator<T> iterator;
+    private int index;
+    private IOException pendingFailure;
+    private boolean broken;
+
+    public JsonItemReader(ObjectMapper objectMapper, Class<T> type, InputStream input) throws IOException {
+        this.iterator = objectMapper.readerFor(type).readValues(input);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (broken) {
+            return false;
+        }
+        if (pendingFailure != null) {
+            return true;
+        }
+        try {
+            return iterator.hasNextValue();
+        } catch (IOException ex) {
+            pendingFailure = ex;
+            return true;
+        }
+    }
+
+    @Override
+    public BatchItem<T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int current = index++;
+        if (pendingFailure != null) {
+            broken = true;
+            return BatchItem.failed(current, describe(pendingFailure));
+        }
+        try {
+            return BatchItem.of(current, iterator.nextValue());
+        } catch (DatabindException ex) {
+            // the value was well-formed JSON but did not fit the target type, the iterator resyncs to the next value
+            return BatchItem.failed(current, describe(ex));
+        } catch (IOException ex) {
+            broken = true;
+            return BatchItem.failed(current, describe(ex));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        iterator.close();
+    }
+
+    private static String describe(IOException ex) {
+        String message = ex instanceof JsonProcessingException jpe ? jpe.getOriginalMessage() : ex.getMessage();
+        return "Invalid request format: " + message;
+    }
+}
@@ -1,8 +1,18 @@
 package com.bank.credit.service.util;
 
+import com.bank.credit.service.model.Money;
+
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.List;
 
+/**
+ * Loan arithmetic.
+ * <p>
+ * The installment and payment math also comes in overloads on {@code long} minor units (cents, see {@link Money}).
+ * The {@link BigDecimal} variants delegate to them whenever the amounts fit in cents, which the amount columns
+ * guarantee, and return exactly the value and scale the {@link BigDecimal} arithmetic would.
+ */
 public final class LoanCalculator {
 
     private LoanCalculator() {
@@ -28,7 +38,21 @@ public final class LoanCalculator {
      * @return installment amount (rounded to 2 decimal places)
      */
     public static BigDecimal calculateInstallmentAmount(BigDecimal totalAmount, int numberOfInstallments) {
-        return totalAmount.divide(BigDecimal.valueOf(numberOfInstallments), 2, RoundingMode.HALF_UP);
+        if (Money.isExact(totalAmount)) {
+            return BigDecimal.valueOf(calculateInstallmentAmount(Money.toMinorUnits(totalAmount), numberOfInstallments), Money.SCALE);
+        }
+        return totalAmount.divide(BigDecimal.valueOf(numberOfInstallments), Money.SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Calculates the equal installment amount in cents, rounded half up to whole cents.
+     *
+     * @param totalMinorUnits      the full repayment amount in cents
+     * @param numberOfInstallments number of installments
+     * @return installment amount in cents
+     */
+    public static long calculateInstallmentAmount(long totalMinorUnits, int numberOfInstallments) {
+        return Money.divide(totalMinorUnits, numberOfInstallments, RoundingMode.HALF_UP);
     }
 
     /**
@@ -50,9 +74,56 @@ public final class LoanCalculator {
      * @return number of installments that can be fully paid
      */
     public static int calculateInstallmentsToPay(BigDecimal paymentAmount, BigDecimal installmentAmount) {
+        if (Money.isExact(paymentAmount) && Money.isExact(installmentAmount)) {
+            return calculateInstallmentsToPay(Money.toMinorUnits(paymentAmount), Money.toMinorUnits(installmentAmount));
+        }
         return paymentAmount.divideToIntegralValue(installmentAmount).intValue();
     }
 
+    /**
+     * Calculates how many installments can be paid with the given amount in cents.
+     *
+     * @param paymentMinorUnits     the amount the customer is paying, in cents
+     * @param installmentMinorUnits the fixed amount of a single installment, in cents
+     * @return number of installments that can be fully paid
+     */
+    public static int calculateInstallmentsToPay(long paymentMinorUnits, long installmentMinorUnits) {
+        return (int) (paymentMinorUnits / installmentMinorUnits);
+    }
+
+    /**
+     * Calculates how many installments of possibly different amounts can be paid with the given amount, oldest first.
+     * <p>
+     * Installments are covered in order until the rest of the payment falls short of the next one, so with equal
+     * amounts this is {@link #calculateInstallmentsToPay(BigDecimal, BigDecimal)}.
+     *
+     * @param paymentAmount      the amount the customer is paying
+     * @param installmentAmounts the amounts of the unpaid installments, oldest first
+     * @return number of installments that can be fully paid
+     */
+    public static int calculateInstallmentsToPay(BigDecimal paymentAmount, List<BigDecimal> installmentAmounts) {
+        BigDecimal remaining = paymentAmount;
+        int count = 0;
+        for (BigDecimal installmentAmount : installmentAmounts) {
+            if (installmentAmount.compareTo(remaining) > 0) {
+                break;
+            }
+            remaining = remaining.subtract(installmentAmount);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Calculates the total amount of the given installments.
+     *
+     * @param installmentAmounts the amounts of the installments
+     * @return total amount
+     */
+    public static BigDecimal calculateTotalPayment(List<BigDecimal> installmentAmounts) {
+        return installmentAmounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
     /**
      * Calculates the total amount for a number of installments.
      *
@@ -61,6 +132,26 @@ public final class LoanCalculator {
      * @return total amount
      */
     public static BigDecimal calculateTotalPayment(BigDecimal installmentAmount, int count) {
+        if (Money.isExact(installmentAmount)) {
+            long installmentMinorUnits = Money.toMinorUnits(installmentAmount);
+            long totalMinorUnits = installmentMinorUnits * count;
+            if (count == 0 || totalMinorUnits / count == installmentMinorUnits) {
+                // keeps the scale of the installment amount, like BigDecimal.multiply
+                return BigDecimal.valueOf(totalMinorUnits, Money.SCALE).setScale(installmentAmount.scale());
+            }
+        }
         return installmentAmount.multiply(BigDecimal.valueOf(count));
     }
+
+    /**
+     * Calculates the total amount for a number of installments in cents.
+     *
+     * @param installmentMinorUnits the amount of one installment, in cents
+     * @param count                 number of installments
+     * @return total amount in cents
+     * @throws ArithmeticException if the total does not fit
+     */
+    public static long calculateTotalPayment(long installmentMinorUnits, int count) {
+        return Math.multiplyExact(installmentMinorUnits, count);
+    }
 }
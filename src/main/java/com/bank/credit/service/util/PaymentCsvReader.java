@@ -0,0 +1,89 @@
+package com.bank.credit.service.util;
+
+import com.bank.credit.service.dto.BatchItem;
+import com.bank.credit.service.dto.InstallmentDto;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads payment lines of the form {@code loanId,amount} one at a time.
+ * <p>
+ * An optional header line starting with {@code loanId} and blank lines are skipped. The index of each
+ * {@link BatchItem} is the zero-based line number in the file, so rejected lines can be traced back.
+ */
+public class PaymentCsvReader implements Iterator<BatchItem<InstallmentDto>>, Closeable {
+
+    private static final String HEADER_PREFIX = "loanId";
+
+    private final BufferedReader reader;
+    private int lineNumber = -1;
+    private String nextLine;
+
+    public PaymentCsvReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (nextLine == null) {
+            String line = readLine();
+            if (line == null) {
+                return false;
+            }
+            lineNumber++;
+            String trimmed = line.trim();
+            boolean header = lineNumber == 0 && trimmed.startsWith(HEADER_PREFIX);
+            if (!trimmed.isEmpty() && !header) {
+                nextLine = trimmed;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public BatchItem<InstallmentDto> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String line = nextLine;
+        nextLine = null;
+        return parse(lineNumber, line);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static BatchItem<InstallmentDto> parse(int index, String line) {
+        String[] columns = line.split(",");
+        if (columns.length != 2) {
+            return BatchItem.failed(index, "Expected 2 columns (loanId,amount) but got " + columns.length);
+        }
+        try {
+            InstallmentDto dto = new InstallmentDto();
+            dto.setLoanId(Long.valueOf(columns[0].trim()));
+            dto.setAmount(new BigDecimal(columns[1].trim()));
+            return BatchItem.of(index, dto);
+        } catch (NumberFormatException ex) {
+            return BatchItem.failed(index, "Invalid number in line: " + line);
+        }
+    }
+
+    private String readLine() {
+        try {
+            return reader.readLine();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
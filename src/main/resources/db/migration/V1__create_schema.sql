@@ -0,0 +1,52 @@
+create sequence customer_seq start with 1 increment by 50;
+create sequence loan_seq start with 1 increment by 50;
+create sequence loan_installment_seq start with 1 increment by 50;
+
+create table customer (
+    id                bigint       not null,
+    name              varchar(100) not null,
+    surname           varchar(100) not null,
+    credit_limit      numeric(15, 2),
+    used_credit_limit numeric(15, 2),
+    version           bigint,
+    created_at        timestamp(6),
+    updated_at        timestamp(6),
+    created_by        varchar(255),
+    updated_by        varchar(255),
+    primary key (id)
+);
+
+create table loan (
+    id                     bigint         not null,
+    customer_id            bigint         not null,
+    loan_amount            numeric(15, 2) not null,
+    number_of_installment  integer        not null,
+    interest_rate          numeric(7, 6)  not null,
+    is_paid                boolean        not null,
+    remaining_installments integer,
+    outstanding_amount     numeric(15, 2),
+    next_due_date          date,
+    version                bigint,
+    created_at             timestamp(6),
+    updated_at             timestamp(6),
+    created_by             varchar(255),
+    updated_by             varchar(255),
+    primary key (id),
+    constraint fk_loan_customer foreign key (customer_id) references customer (id)
+);
+
+create table loan_installment (
+    id           bigint         not null,
+    loan_id      bigint         not null,
+    amount       numeric(38, 2) not null,
+    paid_amount  numeric(38, 2),
+    due_date     date           not null,
+    payment_date date,
+    is_paid      boolean        not null,
+    created_at   timestamp(6),
+    updated_at   timestamp(6),
+    created_by   varchar(255),
+    updated_by   varchar(255),
+    primary key (id),
+    constraint fk_loan_installment_loan foreign key (loan_id) references loan (id)
+);
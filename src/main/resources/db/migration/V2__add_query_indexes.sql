@@ -0,0 +1,6 @@
+-- Unpaid installments of a loan in a due date window, oldest first.
+-- The amount is part of the key so the payment window query is answered from the index alone.
+create index idx_loan_installment_loan_paid_due on loan_installment (loan_id, is_paid, due_date, amount);
+
+-- Loan listing filtered by customer, number of installments and paid state, sorted by loan amount.
+create index idx_loan_customer_installments_paid_amount on loan (customer_id, number_of_installment, is_paid, loan_amount);
@@ -0,0 +1,27 @@
+-- Closed loans moved out of the loan and loan_installment tables by the archiver.
+-- The installments of a loan are compacted into the summary columns of its row.
+create table archived_loan (
+    id                    bigint         not null,
+    customer_id           bigint         not null,
+    loan_amount           numeric(15, 2) not null,
+    number_of_installment integer        not null,
+    interest_rate         numeric(7, 6)  not null,
+    is_paid               boolean        not null,
+    installment_count     integer        not null,
+    installment_total     numeric(38, 2) not null,
+    paid_total            numeric(38, 2),
+    first_due_date        date           not null,
+    last_due_date         date           not null,
+    last_payment_date     date,
+    created_at            timestamp(6),
+    created_by            varchar(255),
+    closed_at             timestamp(6),
+    archived_at           timestamp(6)   not null,
+    primary key (id),
+    constraint fk_archived_loan_customer foreign key (customer_id) references customer (id)
+);
+
+create index idx_archived_loan_customer_installments_amount on archived_loan (customer_id, number_of_installment, loan_amount);
+
+-- Archiver candidates: closed loans by last update
+create index idx_loan_paid_updated on loan (is_paid, updated_at);
@@ -0,0 +1,4 @@
+-- ids are generated in the application since sharding, see ShardId
+drop sequence customer_seq;
+drop sequence loan_seq;
+drop sequence loan_installment_seq;
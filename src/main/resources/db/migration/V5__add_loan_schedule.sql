@@ -0,0 +1,3 @@
+-- Installment schedule of loans stored compactly instead of as loan_installment rows,
+-- null for loans with installment rows.
+alter table loan add column schedule varbinary(255);
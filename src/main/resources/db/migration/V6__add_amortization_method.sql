@@ -0,0 +1,3 @@
+-- How a loan is repaid, see AmortizationMethod; existing loans are flat.
+alter table loan add column amortization_method varchar(20) default 'FLAT' not null;
+alter table archived_loan add column amortization_method varchar(20) default 'FLAT' not null;
@@ -0,0 +1,3 @@
+-- Set by the archiver, so listings only read the archive for customers that have archived loans.
+alter table customer add column has_archived_loans boolean default false not null;
+update customer set has_archived_loans = true where id in (select customer_id from archived_loan);
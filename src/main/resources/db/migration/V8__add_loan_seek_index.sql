@@ -0,0 +1,2 @@
+-- Keyset listing of a customer's loans, which filters by customer only and seeks and sorts by (loan amount, ID).
+create index idx_loan_customer_amount_id on loan (customer_id, loan_amount, id);
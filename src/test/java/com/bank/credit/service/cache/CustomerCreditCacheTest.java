@@ -0,0 +1,100 @@
+package com.bank.credit.service.cache;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.CustomerDto;
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.exception.CreditLimitExceededException;
+import com.bank.credit.service.exception.CustomerNotFoundException;
+import com.bank.credit.service.service.CreditService;
+import com.bank.credit.service.service.CustomerService;
+import com.bank.credit.service.service.InstallmentPaymentService;
+import com.bank.credit.service.sharding.ShardId;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CustomerCreditCacheTest {
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private InstallmentPaymentService installmentPaymentService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void create_shouldRejectUnknownCustomer_withoutQueries_afterFirstLookup() {
+        // Given
+        Long unknownId = new ShardId.Generator(0).next(0);
+        assertThrows(CustomerNotFoundException.class, () -> createLoan(unknownId, "1000"));
+        Statistics statistics = statistics();
+
+        // When & Then
+        assertThrows(CustomerNotFoundException.class, () -> createLoan(unknownId, "1000"));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void create_shouldRejectLoanBeyondCachedLimit_withoutQueries() {
+        // Given
+        Long customerId = createCustomer("2000");
+        createLoan(customerId, "1000");
+        Statistics statistics = statistics();
+
+        // When & Then
+        assertThrows(CreditLimitExceededException.class, () -> createLoan(customerId, "1000"));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void payInstallment_shouldReleaseCachedLimit() {
+        // Given
+        Long customerId = createCustomer("1500");
+        Long loanId = createLoan(customerId, "1000");
+        assertThrows(CreditLimitExceededException.class, () -> createLoan(customerId, "400"));
+        InstallmentDto payment = new InstallmentDto();
+        payment.setLoanId(loanId);
+        payment.setAmount(new BigDecimal("1000"));
+
+        // When
+        installmentPaymentService.payInstallment(payment);
+
+        // Then
+        assertNotNull(createLoan(customerId, "400"));
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private Long createCustomer(String creditLimit) {
+        CustomerDto dto = new CustomerDto();
+        dto.setName("name");
+        dto.setSurname("surname");
+        dto.setCreditLimit(new BigDecimal(creditLimit));
+        dto.setUsedCreditLimit(BigDecimal.ZERO);
+        return customerService.create(dto).getId();
+    }
+
+    private Long createLoan(Long customerId, String loanAmount) {
+        return creditService.create(new CreditDto(null, customerId, new BigDecimal(loanAmount), 6, new BigDecimal("0.1"))).getId();
+    }
+}
@@ -0,0 +1,152 @@
+package com.bank.credit.service.cache;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.dto.LoanFilter;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.service.CreditService;
+import com.bank.credit.service.service.InstallmentPaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class LoanPageCacheTest {
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private InstallmentPaymentService installmentPaymentService;
+
+    @Autowired
+    private LoanPageCache loanPageCache;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void getLoanByCustomer_shouldServeRepeatedPagesFromCache_withoutQueries() {
+        // Given
+        Long customerId = saveCustomer();
+        createLoan(customerId, "1000");
+        LoanFilter filter = LoanFilter.builder().customerId(customerId).build();
+        Pageable pageable = PageRequest.of(0, 10);
+        double hits = gets("hit");
+        Page<CreditDto> first = creditService.getLoanByCustomer(filter, pageable);
+        Statistics statistics = statistics();
+
+        // When
+        Page<CreditDto> second = creditService.getLoanByCustomer(LoanFilter.builder().customerId(customerId).build(), PageRequest.of(0, 10));
+
+        // Then
+        assertSame(first, second);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(hits + 1, gets("hit"));
+    }
+
+    @Test
+    void create_shouldInvalidatePagesOfItsCustomerOnly() {
+        // Given
+        Long customerId = saveCustomer();
+        Long otherCustomerId = saveCustomer();
+        createLoan(customerId, "1000");
+        createLoan(otherCustomerId, "1000");
+        Pageable pageable = PageRequest.of(0, 10);
+        creditService.getLoanByCustomer(LoanFilter.builder().customerId(customerId).build(), pageable);
+        Page<CreditDto> other = creditService.getLoanByCustomer(LoanFilter.builder().customerId(otherCustomerId).build(), pageable);
+
+        // When
+        createLoan(customerId, "2000");
+
+        // Then
+        Page<CreditDto> page = creditService.getLoanByCustomer(LoanFilter.builder().customerId(customerId).build(), pageable);
+        assertEquals(2, page.getTotalElements());
+        assertSame(other, creditService.getLoanByCustomer(LoanFilter.builder().customerId(otherCustomerId).build(), pageable));
+    }
+
+    @Test
+    void payInstallment_shouldInvalidatePagesOfTheLoansCustomer() {
+        // Given
+        Long customerId = saveCustomer();
+        Long loanId = createLoan(customerId, "1000");
+        LoanFilter filter = LoanFilter.builder().customerId(customerId).build();
+        Pageable pageable = PageRequest.of(0, 10);
+        assertEquals(6, creditService.getLoanByCustomer(filter, pageable).getContent().get(0).getRemainingInstallments());
+        InstallmentDto payment = new InstallmentDto();
+        payment.setLoanId(loanId);
+        payment.setAmount(new BigDecimal("200"));
+
+        // When
+        installmentPaymentService.payInstallment(payment);
+
+        // Then
+        assertEquals(5, creditService.getLoanByCustomer(filter, pageable).getContent().get(0).getRemainingInstallments());
+    }
+
+    @Test
+    void get_shouldNotCachePage_whenCustomerIsInvalidatedWhileLoading() {
+        // Given
+        Long customerId = saveCustomer();
+        LoanFilter filter = LoanFilter.builder().customerId(customerId).build();
+        Pageable pageable = PageRequest.of(0, 10);
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        loanPageCache.get(filter, pageable, () -> {
+            loads.incrementAndGet();
+            loanPageCache.invalidateCustomer(customerId);
+            return new PageImpl<>(List.of());
+        });
+        loanPageCache.get(filter, pageable, () -> {
+            loads.incrementAndGet();
+            return new PageImpl<>(List.of());
+        });
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", LoanPageCache.CACHE_NAME).tag("result", result)
+                .functionCounter().count();
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private Long saveCustomer() {
+        return customerRepository.save(new Customer("name", "surname", new BigDecimal("1000000"), BigDecimal.ZERO, null)).getId();
+    }
+
+    private Long createLoan(Long customerId, String loanAmount) {
+        return creditService.create(new CreditDto(null, customerId, new BigDecimal(loanAmount), 6, new BigDecimal("0.1"))).getId();
+    }
+}
@@ -0,0 +1,44 @@
+package com.bank.credit.service.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// metrics are only exported in tests that ask for it
+@AutoConfigureObservability(tracing = false)
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "credit.metrics.hibernate.enabled=true"})
+class MetricsConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void prometheus_shouldExposeServiceEndpointExceptionPoolAndHibernateMetrics() throws Exception {
+        // Given
+        mockMvc.perform(get("/credits").param("customerId", "1")).andExpect(status().isOk());
+        mockMvc.perform(get("/credits").param("customerId", "abc")).andExpect(status().isBadRequest());
+
+        // When
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        assertTrue(scrape.contains("credit_service_method_seconds_bucket{class=\"CreditService\",exception=\"none\",method=\"getLoanByCustomer\""));
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(scrape.contains("uri=\"/credits\""));
+        assertTrue(scrape.contains("credit_exceptions_total{exception=\"MethodArgumentTypeMismatchException\"}"));
+        assertTrue(scrape.contains("hikaricp_connections_active"));
+        assertTrue(scrape.contains("hibernate_sessions_open_total"));
+    }
+}
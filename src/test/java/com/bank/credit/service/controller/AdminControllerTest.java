@@ -0,0 +1,62 @@
+package com.bank.credit.service.controller;
+
+import com.bank.credit.service.dto.ArchiveSummary;
+import com.bank.credit.service.dto.BalanceRepairSummary;
+import com.bank.credit.service.service.LoanArchiveService;
+import com.bank.credit.service.service.LoanBalanceRepairService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc(addFilters = false)
+@SpringBootTest
+class AdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private LoanBalanceRepairService loanBalanceRepairService;
+
+    @MockitoBean
+    private LoanArchiveService loanArchiveService;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldRepairLoanBalances() throws Exception {
+        Mockito.when(loanBalanceRepairService.repairAll()).thenReturn(new BalanceRepairSummary(1200, 3, 42));
+
+        mockMvc.perform(post("/admin/loans/repair-balances"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.loansRepaired").value(1200))
+                .andExpect(jsonPath("$.chunks").value(3))
+                .andExpect(jsonPath("$.elapsedMillis").value(42));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldArchiveClosedLoans() throws Exception {
+        Mockito.when(loanArchiveService.archiveClosedLoans()).thenReturn(new ArchiveSummary(700, 2, 15));
+
+        mockMvc.perform(post("/admin/loans/archive"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.loansArchived").value(700))
+                .andExpect(jsonPath("$.chunks").value(2));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldReturnForbidden_whenUserNotAdmin() throws Exception {
+        mockMvc.perform(post("/admin/loans/repair-balances"))
+                .andExpect(status().isForbidden());
+    }
+}
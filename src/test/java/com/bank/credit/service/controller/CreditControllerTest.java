@@ -1,9 +1,15 @@
 package com.bank.credit.service.controller;
 
+import com.bank.credit.service.dto.CreditBatchItemResult;
+import com.bank.credit.service.dto.CreditCursorPage;
 import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.exception.CreditLimitExceededException;
+import com.bank.credit.service.exception.CustomerNotFoundException;
 import com.bank.credit.service.model.Customer;
 import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.service.CreditBatchService;
 import com.bank.credit.service.service.CreditService;
+import com.bank.credit.service.service.LoanExportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -13,19 +19,34 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc(addFilters = false)
@@ -41,6 +62,12 @@ class CreditControllerTest {
     @MockitoBean
     private CustomerRepository customerRepository;
 
+    @MockitoBean
+    private LoanExportService loanExportService;
+
+    @MockitoBean
+    private CreditBatchService creditBatchService;
+
     private static String asJsonString(Object obj) {
         try {
             return new ObjectMapper().writeValueAsString(obj);
@@ -105,36 +132,36 @@ class CreditControllerTest {
         BigDecimal interestRate = new BigDecimal("0.1");
 
         CreditDto creditDto = new CreditDto(3L, customerId, creditAmount, installment, interestRate);
-        Mockito.when(customerRepository.findById(customerId)).thenReturn(Optional.empty());
+        Mockito.when(creditService.create(any())).thenThrow(new CustomerNotFoundException(customerId));
 
         // When & Then
         mockMvc.perform(post("/credits")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(asJsonString(creditDto)))
-                .andExpect(status().isBadRequest())
-                .andExpect(jsonPath("$[0].field").value("customerId"))
-                .andExpect(jsonPath("$[0].message").value("Customer not found with ID: " + customerId));
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Customer with ID " + customerId + " not found"));
     }
 
 
     @Test
     @WithMockUser(roles = "ADMIN")
-    void shouldNotCreateCredit_whenCustomerNotFound() throws Exception {
-        // Given;
+    void shouldNotCreateCredit_whenLimitNotAvailable() throws Exception {
+        // Given
         Long customerId = 1L;
         BigDecimal creditAmount = new BigDecimal("30000");
         int installment = 6;
         BigDecimal interestRate = new BigDecimal("0.1");
 
         CreditDto creditDto = new CreditDto(3L, customerId, creditAmount, installment, interestRate);
+        Mockito.when(creditService.create(any())).thenThrow(new CreditLimitExceededException());
 
         // When & Then
         mockMvc.perform(post("/credits")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(asJsonString(creditDto)))
                 .andExpect(status().isBadRequest())
-                .andExpect(jsonPath("$[0].field").value("customerId"))
-                .andExpect(jsonPath("$[0].message").value("Customer not found with ID: " + customerId));
+                .andExpect(jsonPath("$[0].field").value("loanAmount"))
+                .andExpect(jsonPath("$[0].message").value("Credit limit is not sufficient"));
     }
 
     @Test
@@ -309,6 +336,36 @@ class CreditControllerTest {
                 .andExpect(jsonPath("$.content[1].loanAmount").value(2000));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturnSeekPage_withNextToken() throws Exception {
+        // Given
+        Long customerId = 1L;
+        CreditDto credit = new CreditDto(3L, customerId, new BigDecimal("1000"), 6, new BigDecimal("0.1"));
+        Mockito.when(creditService.getLoanByCustomer(any(), eq("abc"), eq(10), eq(Sort.Direction.DESC)))
+                .thenReturn(new CreditCursorPage(List.of(credit), "next"));
+
+        // When & Then
+        mockMvc.perform(get("/credits/seek")
+                        .param("customerId", customerId.toString())
+                        .param("token", "abc")
+                        .param("size", "10")
+                        .param("direction", "DESC"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].loanAmount").value(1000))
+                .andExpect(jsonPath("$.nextToken").value("next"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturnBadRequest_whenSeekPageSizeIsTooLarge() throws Exception {
+        mockMvc.perform(get("/credits/seek")
+                        .param("customerId", "1")
+                        .param("size", "5000"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void shouldReturnBadRequest_whenCustomerIdIsMissing() throws Exception {
@@ -326,4 +383,107 @@ class CreditControllerTest {
                         .param("customerId", "1"))
                 .andExpect(status().isForbidden());
     }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldCreateCreditBatch_whenBodyIsJsonArray() throws Exception {
+        // Given
+        CreditDto creditDto = new CreditDto(3L, 1L, new BigDecimal("3000"), 6, new BigDecimal("0.1"));
+        Mockito.when(creditBatchService.createAll(any())).thenAnswer(invocation -> {
+            Iterator<?> items = invocation.getArgument(0);
+            int count = 0;
+            while (items.hasNext()) {
+                items.next();
+                count++;
+            }
+            return IntStream.range(0, count)
+                    .mapToObj(i -> CreditBatchItemResult.created(i, creditDto))
+                    .toList();
+        });
+
+        // When & Then
+        mockMvc.perform(post("/credits/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(asJsonString(List.of(creditDto, creditDto))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].index").value(1))
+                .andExpect(jsonPath("$[1].status").value("CREATED"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldCreateCreditBatch_whenBodyIsNdjson() throws Exception {
+        // Given
+        CreditDto creditDto = new CreditDto(null, 1L, new BigDecimal("3000"), 6, new BigDecimal("0.1"));
+        Mockito.when(creditBatchService.createAll(any())).thenAnswer(invocation -> {
+            Iterator<?> items = invocation.getArgument(0);
+            items.next();
+            items.next();
+            return List.of(CreditBatchItemResult.created(0, creditDto), CreditBatchItemResult.created(1, creditDto));
+        });
+
+        // When & Then
+        mockMvc.perform(post("/credits/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(asJsonString(creditDto) + "\n" + asJsonString(creditDto) + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].credit.customerId").value(1));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldStreamExport_asNdjson() throws Exception {
+        // Given
+        Mockito.when(loanExportService.export(eq(1L), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        });
+
+        // When
+        MvcResult result = mockMvc.perform(get("/credits/export").param("customerId", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldGzipExport_whenClientAcceptsGzip() throws Exception {
+        // Given
+        Mockito.when(loanExportService.export(eq(null), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        // When
+        MvcResult result = mockMvc.perform(get("/credits/export").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Then
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("{\"id\":1}\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldReturnForbidden_whenExportingAsNonAdmin() throws Exception {
+        mockMvc.perform(get("/credits/export"))
+                .andExpect(status().isForbidden());
+    }
 }
@@ -1,7 +1,9 @@
 package com.bank.credit.service.controller;
 
+import com.bank.credit.service.dto.BatchItem;
 import com.bank.credit.service.dto.InstallmentDto;
 import com.bank.credit.service.dto.PayedInstallmentDto;
+import com.bank.credit.service.dto.PaymentImportSummary;
 import com.bank.credit.service.service.InstallmentPaymentService;
 import com.bank.credit.service.service.LoanInstallmentService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -17,9 +19,14 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -85,6 +92,39 @@ class InstallmentControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturnInstallmentsGroupedByLoan_whenLoanIdsAreGiven() throws Exception {
+        // Given
+        Map<Long, List<InstallmentDto>> installments = new LinkedHashMap<>();
+        installments.put(2L, List.of(new InstallmentDto(2L, new BigDecimal("100.00"), null, LocalDate.of(2024, 9, 1), null, false)));
+        installments.put(1L, List.of(new InstallmentDto(1L, new BigDecimal("200.00"), null, LocalDate.of(2024, 9, 1), null, false)));
+        Mockito.when(installmentService.getByLoans(List.of(2L, 1L))).thenReturn(installments);
+
+        // When & Then
+        mockMvc.perform(get("/installments")
+                        .param("loanIds", "2,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$['2'][0].amount").value(100.00))
+                .andExpect(jsonPath("$['1'][0].loanId").value(1));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturnInstallmentsGroupedByLoan_whenCustomerIdIsGiven() throws Exception {
+        // Given
+        Map<Long, List<InstallmentDto>> installments = Map.of(
+                4L, List.of(new InstallmentDto(4L, new BigDecimal("100.00"), null, LocalDate.of(2024, 9, 1), null, false)));
+        Mockito.when(installmentService.getByCustomer(9L)).thenReturn(installments);
+
+        // When & Then
+        mockMvc.perform(get("/installments")
+                        .param("customerId", "9"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['4'][0].dueDate").value("2024-09-01"));
+    }
+
     @Test
     @WithMockUser(username = "user")
     void shouldReturnForbidden_whenUserIsNotAuthenticated() throws Exception {
@@ -193,4 +233,51 @@ class InstallmentControllerTest {
                         .content(""))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldImportCsvPayments() throws Exception {
+        // Given
+        PaymentImportSummary summary = new PaymentImportSummary();
+        summary.addApplied(2, new BigDecimal("500"));
+        summary.addRejected(2, 9L, "No unpaid installments");
+        Mockito.when(installmentPaymentService.importPayments(any())).thenAnswer(invocation -> {
+            Iterator<BatchItem<InstallmentDto>> payments = invocation.getArgument(0);
+            List<Long> loanIds = new ArrayList<>();
+            payments.forEachRemaining(p -> loanIds.add(p.value().getLoanId()));
+            assertEquals(List.of(1L, 9L), loanIds);
+            return summary;
+        });
+
+        // When & Then
+        mockMvc.perform(post("/installments/import")
+                        .contentType("text/csv")
+                        .content("loanId,amount\n1,500\n9,100\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.installmentsPaid").value(2))
+                .andExpect(jsonPath("$.rejectedLines[0].line").value(2))
+                .andExpect(jsonPath("$.rejectedLines[0].loanId").value(9));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldImportNdjsonPayments() throws Exception {
+        // Given
+        Mockito.when(installmentPaymentService.importPayments(any())).thenAnswer(invocation -> {
+            Iterator<BatchItem<InstallmentDto>> payments = invocation.getArgument(0);
+            PaymentImportSummary summary = new PaymentImportSummary();
+            payments.forEachRemaining(p -> summary.addApplied(1, p.value().getAmount()));
+            return summary;
+        });
+
+        // When & Then
+        mockMvc.perform(post("/installments/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"loanId\":1,\"amount\":300}\n{\"loanId\":2,\"amount\":200}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(2))
+                .andExpect(jsonPath("$.totalAmountSpent").value(500));
+    }
 }
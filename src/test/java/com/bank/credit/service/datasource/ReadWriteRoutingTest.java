@@ -0,0 +1,138 @@
+package com.bank.credit.service.datasource;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.LoanFilter;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.service.CreditService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes reads between two H2 databases. The replica is not replicated from the primary, so where a read was
+ * served can be told from the rows it returns.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "credit.datasource.routing.enabled=true",
+        "credit.datasource.replicas[0].name=replica-1",
+        "credit.datasource.replicas[0].url=" + ReadWriteRoutingTest.REPLICA_URL,
+        "credit.datasource.replicas[0].username=admin",
+        "credit.datasource.replicas[0].password=admin",
+        "credit.datasource.health-check-interval=1h",
+        "credit.datasource.read-your-writes-window=1h",
+        // every listing below has to reach a data source
+        "credit.cache.loan-pages.max-size=0"
+})
+class ReadWriteRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+    private static final long REPLICA_CUSTOMER_ID = 900_000L;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ReplicaPool replicaPool;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void createReplica() {
+        DriverManagerDataSource replica = new DriverManagerDataSource(REPLICA_URL, "admin", "admin");
+        Flyway.configure().dataSource(replica).locations("classpath:db/migration").load().migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(replica);
+        jdbcTemplate.update("merge into customer (id, name, surname, credit_limit, used_credit_limit) key (id) " +
+                "values (?, 'replica', 'customer', 10000, 1100)", REPLICA_CUSTOMER_ID);
+        jdbcTemplate.update("merge into loan (id, customer_id, loan_amount, number_of_installment, interest_rate, is_paid) " +
+                "key (id) values (?, ?, 1000, 6, 0.1, false)", REPLICA_CUSTOMER_ID, REPLICA_CUSTOMER_ID);
+    }
+
+    @Test
+    void readOnlyTransaction_shouldReadFromReplica() {
+        // When
+        Page<CreditDto> loans = creditService.getLoanByCustomer(replicaCustomerFilter(), PageRequest.of(0, 10));
+
+        // Then
+        assertEquals(List.of(REPLICA_CUSTOMER_ID), loans.getContent().stream().map(CreditDto::getId).toList());
+        assertTrue(meterRegistry.counter(ReadWriteRoutingDataSource.CONNECTIONS_METRIC, "target", "replica-1").count() > 0);
+    }
+
+    @Test
+    void readOnlyTransaction_shouldReadFromPrimary_whenCustomerWasJustWritten() {
+        // Given
+        Customer customer = customerRepository.save(new Customer("name", "surname", new BigDecimal("100000"), BigDecimal.ZERO, null));
+        CreditDto created = creditService.create(new CreditDto(null, customer.getId(), new BigDecimal("1000"), 6, new BigDecimal("0.1")));
+
+        // When
+        Page<CreditDto> loans = creditService.getLoanByCustomer(
+                LoanFilter.builder().customerId(customer.getId()).build(), PageRequest.of(0, 10));
+
+        // Then
+        assertEquals(List.of(created.getId()), loans.getContent().stream().map(CreditDto::getId).toList());
+    }
+
+    @Test
+    void readOnlyTransaction_shouldFallBackToPrimary_whenReplicaIsDown() {
+        // Given
+        ReplicaPool.Replica replica = replicaPool.replicas().get(0);
+        replicaPool.markDown(replica, new SQLException("simulated outage"));
+
+        try {
+            // When
+            Page<CreditDto> loans = creditService.getLoanByCustomer(replicaCustomerFilter(), PageRequest.of(0, 10));
+
+            // Then
+            assertTrue(loans.isEmpty());
+        } finally {
+            replicaPool.checkHealth();
+        }
+        assertTrue(replica.isHealthy());
+        assertEquals(1, creditService.getLoanByCustomer(replicaCustomerFilter(), PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void getConnectionWithCredentials_shouldRouteLikeGetConnection() throws SQLException {
+        // Given
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1"),
+                new ReplicaPool(List.of(new ReplicaPool.Replica("replica-1", new DriverManagerDataSource(REPLICA_URL)))),
+                meterRegistry);
+
+        // When & Then
+        try (Connection connection = routing.getConnection("admin", "admin")) {
+            assertEquals("jdbc:h2:mem:routing-primary", connection.getMetaData().getURL());
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try (Connection connection = routing.getConnection("admin", "admin")) {
+            assertEquals("jdbc:h2:mem:routing-replica", connection.getMetaData().getURL());
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    private static LoanFilter replicaCustomerFilter() {
+        return LoanFilter.builder().customerId(REPLICA_CUSTOMER_ID).build();
+    }
+}
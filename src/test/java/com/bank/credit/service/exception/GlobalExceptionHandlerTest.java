@@ -1,18 +1,24 @@
 package com.bank.credit.service.exception;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @ExtendWith(MockitoExtension.class)
 class GlobalExceptionHandlerTest {
 
-    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler(meterRegistry);
 
     @Test
     void handleCustomerNotFoundException_shouldReturnNotFoundMessage() {
@@ -44,5 +50,28 @@ class GlobalExceptionHandlerTest {
         assertNotNull(response.getBody());
         assertEquals("No unpaid installments found for Loan ID " + id + " within the upcoming 3 calendar months.", response.getBody());
     }
-}
 
+    @Test
+    void handleOptimisticLockingFailure_shouldReturnConflict() {
+        OptimisticLockingFailureException ex = new OptimisticLockingFailureException("Installments of loan 1 were paid by a concurrent payment");
+        ResponseEntity<String> response = handler.handleOptimisticLockingFailure(ex);
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("Concurrent update, please retry: Installments of loan 1 were paid by a concurrent payment", response.getBody());
+    }
+
+    @Test
+    void handleCreditLimitExceeded_shouldReturnBadRequestWithFieldError() {
+        ResponseEntity<List<ValidationError>> response = handler.handleCreditLimitExceeded(new CreditLimitExceededException());
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(List.of(new ValidationError("loanAmount", "Credit limit is not sufficient")), response.getBody());
+    }
+
+    @Test
+    void handlers_shouldCountExceptionsPerType() {
+        handler.handleCustomerNotFound(new CustomerNotFoundException(1L));
+        handler.handleCustomerNotFound(new CustomerNotFoundException(2L));
+        handler.handleCreditLimitExceeded(new CreditLimitExceededException());
+        assertEquals(2, meterRegistry.get(GlobalExceptionHandler.METRIC).tag("exception", "CustomerNotFoundException").counter().count());
+        assertEquals(1, meterRegistry.get(GlobalExceptionHandler.METRIC).tag("exception", "CreditLimitExceededException").counter().count());
+    }
+}
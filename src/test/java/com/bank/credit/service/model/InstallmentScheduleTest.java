@@ -0,0 +1,65 @@
+package com.bank.credit.service.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstallmentScheduleTest {
+
+    private static final LocalDate FIRST_DUE_DATE = LocalDate.of(2025, 11, 1);
+
+    @Test
+    void encode_shouldRoundTrip_inFewBytes() {
+        // Given
+        InstallmentSchedule schedule = InstallmentSchedule.unpaid(FIRST_DUE_DATE, 24, new BigDecimal("458.33"))
+                .pay(List.of(0, 1), LocalDate.of(2025, 10, 20))
+                .pay(List.of(2), LocalDate.of(2026, 1, 3));
+
+        // When
+        byte[] encoded = schedule.encode();
+
+        // Then
+        assertEquals(schedule, InstallmentSchedule.decode(encoded));
+        assertTrue(encoded.length <= 32, "encoded in " + encoded.length + " bytes");
+    }
+
+    @Test
+    void pay_shouldMarkInstallmentsPaid_andKeepEarlierPaymentDates() {
+        // Given
+        InstallmentSchedule schedule = InstallmentSchedule.unpaid(FIRST_DUE_DATE, 6, new BigDecimal("200.00"));
+        LocalDate firstPayment = LocalDate.of(2025, 10, 20);
+        LocalDate secondPayment = LocalDate.of(2025, 12, 1);
+
+        // When
+        InstallmentSchedule paid = schedule.pay(List.of(0), firstPayment).pay(List.of(1, 2), secondPayment);
+
+        // Then
+        assertEquals(3, paid.remainingInstallments());
+        assertEquals(0, new BigDecimal("600.00").compareTo(paid.outstandingAmount()));
+        assertEquals(firstPayment, paid.paymentDate(0));
+        assertEquals(secondPayment, paid.paymentDate(2));
+        assertNull(paid.paymentDate(3));
+        assertEquals(FIRST_DUE_DATE.plusMonths(3), paid.nextDueDate());
+        assertEquals(List.of(3, 4), paid.unpaidDueBetween(FIRST_DUE_DATE, FIRST_DUE_DATE.plusMonths(4)));
+        assertThrows(IllegalArgumentException.class, () -> paid.pay(List.of(2), secondPayment));
+    }
+
+    @Test
+    void nextDueDate_shouldBeNull_whenAllInstallmentsArePaid() {
+        // Given
+        InstallmentSchedule schedule = InstallmentSchedule.unpaid(FIRST_DUE_DATE, InstallmentSchedule.MAX_INSTALLMENTS, BigDecimal.TEN);
+
+        // When
+        InstallmentSchedule paid = schedule.pay(IntStream.range(0, schedule.count()).boxed().toList(), FIRST_DUE_DATE);
+
+        // Then
+        assertNull(paid.nextDueDate());
+        assertEquals(0, paid.remainingInstallments());
+        assertEquals(paid, InstallmentSchedule.decode(paid.encode()));
+    }
+}
@@ -0,0 +1,65 @@
+package com.bank.credit.service.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void of_shouldConvertExactAmounts_andRejectLostCents() {
+        assertEquals(123456, Money.of(new BigDecimal("1234.56")).minorUnits());
+        assertEquals(110000, Money.of(new BigDecimal("1100.000")).minorUnits());
+        assertEquals(new BigDecimal("1100.00"), Money.of(new BigDecimal("1100")).toBigDecimal());
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("0.005")));
+        assertEquals(1, Money.of(new BigDecimal("0.005"), RoundingMode.HALF_UP).minorUnits());
+        assertEquals(0, Money.of(new BigDecimal("0.005"), RoundingMode.HALF_EVEN).minorUnits());
+    }
+
+    @Test
+    void divide_shouldRoundLikeBigDecimal_forEveryRoundingMode() {
+        for (RoundingMode rounding : RoundingMode.values()) {
+            if (rounding == RoundingMode.UNNECESSARY) {
+                continue;
+            }
+            for (long dividend = -50; dividend <= 50; dividend++) {
+                for (long divisor : new long[]{-7, -4, -2, -1, 1, 2, 3, 4, 10}) {
+                    long expected = BigDecimal.valueOf(dividend).divide(BigDecimal.valueOf(divisor), 0, rounding).longValueExact();
+                    assertEquals(expected, Money.divide(dividend, divisor, rounding), dividend + " / " + divisor + " " + rounding);
+                }
+            }
+        }
+        assertThrows(ArithmeticException.class, () -> Money.divide(1, 3, RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    void arithmetic_shouldFailOnOverflow_insteadOfWrappingAround() {
+        Money max = Money.ofMinorUnits(Long.MAX_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofMinorUnits(1)));
+        assertThrows(ArithmeticException.class, () -> max.times(2));
+        assertEquals(Money.ofMinorUnits(33_333), Money.of(new BigDecimal("1000")).divide(3, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    void compareTo_shouldCompareWithAmountsOfAnyScale() {
+        Money money = Money.of(new BigDecimal("10.00"));
+
+        assertEquals(0, money.compareTo(new BigDecimal("10")));
+        assertTrue(money.compareTo(new BigDecimal("10.001")) < 0);
+        assertTrue(money.compareTo(new BigDecimal("9.999")) > 0);
+    }
+
+    @Test
+    void json_shouldRoundTrip() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Money money = Money.of(new BigDecimal("1234.50"));
+
+        assertEquals("1234.50", objectMapper.writeValueAsString(money));
+        assertEquals(money, objectMapper.readValue("1234.5", Money.class));
+    }
+}
@@ -0,0 +1,133 @@
+package com.bank.credit.service.repository;
+
+import com.bank.credit.service.dto.LoanCursor;
+import com.bank.credit.service.model.Loan;
+import com.bank.credit.service.specification.LoanSpecifications;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that H2 answers the hot queries from the composite indexes created by the migrations.
+ * <p>
+ * The repository methods are called for real, and the SQL Hibernate prepares for them is captured by a
+ * {@link StatementInspector} and explained, so the plans are those of the generated joins, predicates and sorts.
+ * The test has a database of its own with enough rows and statistics for H2 to weigh the indexes, on empty
+ * tables every index costs the same.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:query-plans;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "com.bank.credit.service.repository.QueryPlanTest$CapturingStatementInspector"
+})
+class QueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @BeforeEach
+    void seed() {
+        if (jdbcTemplate.queryForObject("select count(*) from loan", Long.class) > 0) {
+            return;
+        }
+        jdbcTemplate.update("insert into customer (id, name, surname, credit_limit, used_credit_limit) " +
+                "select x, 'name', 'surname', 100000, 0 from system_range(1, 200)");
+        jdbcTemplate.update("insert into loan (id, customer_id, loan_amount, number_of_installment, interest_rate, " +
+                "is_paid, remaining_installments) select x, mod(x, 200) + 1, mod(x * 7919, 10000), 6 * (mod(x, 4) + 1), " +
+                "0.1, mod(x, 3) = 0, 3 from system_range(1, 20000)");
+        jdbcTemplate.update("insert into loan_installment (id, loan_id, amount, due_date, is_paid) " +
+                "select x, (x - 1) / 6 + 1, 100, dateadd(month, mod(x, 6), date '2025-01-01'), mod(x, 2) = 0 " +
+                "from system_range(1, 120000)");
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    void unpaidInstallmentsInWindow_shouldUseLoanPaidDueIndex_andLoanPrimaryKey() {
+        String plan = explain(capture(() -> loanInstallmentRepository.findUnpaidViewsByLoanIdAndDueDateBetween(
+                1L, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31))));
+
+        assertTrue(plan.contains("IDX_LOAN_INSTALLMENT_LOAN_PAID_DUE"), plan);
+        // the joined loan is read by its primary key, the installments from the index
+        assertTrue(plan.matches("(?s).*\"LOAN\" \"L1_0\"\\s+/\\* PUBLIC\\.PRIMARY_KEY_\\w+: ID = \\?1.*"), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void loanListing_shouldUseCustomerInstallmentsPaidAmountIndex() {
+        Specification<Loan> spec = LoanSpecifications.hasCustomerId(1L)
+                .and(LoanSpecifications.hasNumberOfInstallment(12))
+                .and(LoanSpecifications.isPaid(false));
+
+        String plan = explain(capture(() -> loanRepository.findCredits(spec,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "loanAmount")))));
+
+        assertTrue(plan.contains("IDX_LOAN_CUSTOMER_INSTALLMENTS_PAID_AMOUNT"), plan);
+    }
+
+    @Test
+    void loanSeek_shouldRangeScanCustomerAmountIdIndex() {
+        Specification<Loan> spec = LoanSpecifications.hasCustomerId(1L)
+                .and(LoanSpecifications.isAfter(new LoanCursor(new BigDecimal("500"), 7L), Sort.Direction.ASC));
+
+        String plan = explain(capture(() -> loanRepository.findCredits(spec,
+                Sort.by("loanAmount").and(Sort.by("id")), 11)));
+
+        assertTrue(plan.contains("IDX_LOAN_CUSTOMER_AMOUNT_ID: CUSTOMER_ID = ?1\n        AND LOAN_AMOUNT >= ?2"), plan);
+    }
+
+    /**
+     * Runs the query and returns the first statement Hibernate prepared for it.
+     */
+    private static String capture(Runnable query) {
+        CapturingStatementInspector.STATEMENTS.get().clear();
+        query.run();
+        List<String> statements = CapturingStatementInspector.STATEMENTS.get();
+        assertFalse(statements.isEmpty(), "no statement was prepared");
+        return statements.get(0);
+    }
+
+    /**
+     * Explains the statement with every parameter unset. H2 picks the indexes when it prepares the statement,
+     * so the plan is the same as with the values bound.
+     */
+    private String explain(String sql) {
+        Object[] parameters = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+        return jdbcTemplate.queryForObject("explain " + sql, String.class, parameters);
+    }
+
+    /**
+     * Records the SQL Hibernate prepares on the calling thread. Hibernate creates its own instance, so the
+     * statements are kept in a static field.
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.get().add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.bank.credit.service.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflictRetrierTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConflictRetrier retrier = new ConflictRetrier(meterRegistry, 3, 1, 5);
+
+    @Test
+    void call_shouldRetryConflicts_untilActionSucceeds() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retrier.call("Service.method", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("stale");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, count(ConflictRetrier.CONFLICTS_METRIC, "Service.method"));
+        assertEquals(2, count(ConflictRetrier.RETRIES_METRIC, "Service.method"));
+    }
+
+    @Test
+    void call_shouldRethrowLastConflict_whenAttemptsAreExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(PessimisticLockingFailureException.class, () -> retrier.call("Service.hot", () -> {
+            attempts.incrementAndGet();
+            throw new PessimisticLockingFailureException("lock timeout");
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(3, count(ConflictRetrier.CONFLICTS_METRIC, "Service.hot"));
+        assertEquals(2, count(ConflictRetrier.RETRIES_METRIC, "Service.hot"));
+    }
+
+    @Test
+    void call_shouldNotRetryOtherExceptions() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> retrier.call("Service.broken", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("broken");
+        }));
+
+        assertEquals(1, attempts.get());
+        assertNull(meterRegistry.find(ConflictRetrier.CONFLICTS_METRIC).tag("method", "Service.broken").counter());
+    }
+
+    @Test
+    void constructor_shouldRejectEmptyAttemptBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new ConflictRetrier(meterRegistry, 0, 1, 5));
+    }
+
+    private double count(String metric, String method) {
+        return meterRegistry.get(metric).tag("method", method).counter().count();
+    }
+}
@@ -0,0 +1,241 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.ArchiveSummary;
+import com.bank.credit.service.dto.BatchItem;
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.dto.LoanFilter;
+import com.bank.credit.service.dto.LoanScheduleView;
+import com.bank.credit.service.dto.PayedInstallmentDto;
+import com.bank.credit.service.dto.PaymentImportSummary;
+import com.bank.credit.service.model.ArchivedLoan;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.model.InstallmentSchedule;
+import com.bank.credit.service.model.Loan;
+import com.bank.credit.service.repository.ArchivedLoanRepository;
+import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.repository.LoanInstallmentRepository;
+import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.sharding.Shards;
+import com.bank.credit.service.util.AmortizationMethod;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the loan lifecycle with {@code credit.installments.storage=compact}: creation, lookups, payments, import,
+ * export and archiving.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "credit.installments.storage=compact"
+})
+class CompactInstallmentStorageTest {
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private LoanInstallmentService loanInstallmentService;
+
+    @Autowired
+    private InstallmentPaymentService installmentPaymentService;
+
+    @Autowired
+    private LoanExportService loanExportService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void create_shouldStoreScheduleOnTheLoan_withoutInstallmentRows() {
+        // Given
+        Customer customer = saveCustomer();
+
+        // When
+        CreditDto loan = createLoan(customer.getId(), "1200");
+
+        // Then
+        assertTrue(loanInstallmentRepository.findByLoan_Id(loan.getId()).isEmpty());
+        assertEquals(6, loan.getRemainingInstallments());
+        List<InstallmentDto> installments = loanInstallmentService.getByLoan(loan.getId());
+        assertEquals(6, installments.size());
+        assertTrue(installments.stream().noneMatch(InstallmentDto::isPaid));
+        List<LocalDate> dueDates = installments.stream().map(InstallmentDto::getDueDate).toList();
+        assertEquals(dueDates, loanInstallmentService.getByLoans(List.of(loan.getId())).get(loan.getId())
+                .stream().map(InstallmentDto::getDueDate).toList());
+        assertEquals(dueDates, loanInstallmentService.getByCustomer(customer.getId()).get(loan.getId())
+                .stream().map(InstallmentDto::getDueDate).toList());
+    }
+
+    @Test
+    void create_shouldStoreInstallmentRows_whenLoanIsAmortized() {
+        // Given
+        Customer customer = saveCustomer();
+        CreditDto request = new CreditDto(null, customer.getId(), new BigDecimal("1200"), 6, new BigDecimal("0.12"));
+        request.setAmortizationMethod(AmortizationMethod.ANNUITY);
+
+        // When
+        CreditDto loan = creditService.create(request);
+        PayedInstallmentDto paid = installmentPaymentService.payInstallment(payment(loan.getId(), new BigDecimal("210")));
+
+        // Then
+        assertEquals(AmortizationMethod.ANNUITY, loan.getAmortizationMethod());
+        assertEquals(6, loanInstallmentRepository.findByLoan_Id(loan.getId()).size());
+        assertTrue(loanRepository.findSchedulesByIdIn(List.of(loan.getId())).isEmpty());
+        // 1200 at 1% a month over 6 months
+        assertEquals(new BigDecimal("207.06"), paid.getTotalAmountSpent());
+        CreditDto read = creditService.getLoanByCustomer(LoanFilter.builder().customerId(customer.getId()).build(), PageRequest.of(0, 10))
+                .getContent().get(0);
+        assertEquals(AmortizationMethod.ANNUITY, read.getAmortizationMethod());
+    }
+
+    @Test
+    void payInstallment_shouldPayFromTheSchedule() {
+        // Given
+        Customer customer = saveCustomer();
+        CreditDto loan = createLoan(customer.getId(), "1200");
+        BigDecimal installmentAmount = loanInstallmentService.getByLoan(loan.getId()).get(0).getAmount();
+        BigDecimal usedCreditLimit = customerRepository.findById(customer.getId()).orElseThrow().getUsedCreditLimit();
+
+        // When
+        PayedInstallmentDto paid = installmentPaymentService.payInstallment(payment(loan.getId(), installmentAmount.multiply(BigDecimal.valueOf(2))));
+
+        // Then
+        assertEquals(2, paid.getPayedInstallment());
+        assertFalse(paid.isLoanPaymentComplate());
+        List<InstallmentDto> installments = loanInstallmentService.getByLoan(loan.getId());
+        assertTrue(installments.get(0).isPaid());
+        assertTrue(installments.get(1).isPaid());
+        assertFalse(installments.get(2).isPaid());
+        assertEquals(LocalDate.now(), installments.get(0).getPaymentDate());
+        Loan stored = loanRepository.findById(loan.getId()).orElseThrow();
+        assertEquals(4, stored.getRemainingInstallments());
+        assertEquals(installments.get(2).getDueDate(), stored.getNextDueDate());
+        Customer updated = customerRepository.findById(customer.getId()).orElseThrow();
+        assertEquals(0, usedCreditLimit.subtract(paid.getTotalAmountSpent()).compareTo(updated.getUsedCreditLimit()));
+    }
+
+    @Test
+    void importPayments_shouldApplyPaymentsOfTheSameLoanInFileOrder() {
+        // Given
+        Customer customer = saveCustomer();
+        CreditDto loan = createLoan(customer.getId(), "1200");
+        BigDecimal installmentAmount = loanInstallmentService.getByLoan(loan.getId()).get(0).getAmount();
+        List<BatchItem<InstallmentDto>> payments = List.of(
+                BatchItem.of(0, payment(loan.getId(), installmentAmount)),
+                BatchItem.of(1, payment(loan.getId(), installmentAmount)),
+                BatchItem.of(2, payment(loan.getId(), BigDecimal.ONE)));
+
+        // When
+        PaymentImportSummary summary = installmentPaymentService.importPayments(payments.iterator());
+
+        // Then
+        assertEquals(2, summary.getApplied());
+        assertEquals(1, summary.getRejected());
+        assertEquals(2, summary.getInstallmentsPaid());
+        assertEquals(4, loanRepository.findById(loan.getId()).orElseThrow().getRemainingInstallments());
+    }
+
+    @Test
+    void export_shouldExpandTheSchedule() throws Exception {
+        // Given
+        Customer customer = saveCustomer();
+        CreditDto loan = createLoan(customer.getId(), "1200");
+        installmentPaymentService.payInstallment(payment(loan.getId(), new BigDecimal("1000")));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = loanExportService.export(customer.getId(), out);
+
+        // Then
+        assertEquals(1, exported);
+        JsonNode line = objectMapper.readTree(out.toString(StandardCharsets.UTF_8).trim());
+        assertEquals(loan.getId(), line.get("id").asLong());
+        assertEquals(6, line.get("installments").size());
+        assertTrue(line.get("installments").get(0).get("paid").asBoolean());
+        assertFalse(line.get("installments").get(5).get("paid").asBoolean());
+    }
+
+    @Test
+    void archiveClosedLoans_shouldSummarizeTheSchedule() {
+        // Given
+        Customer customer = saveCustomer();
+        Long loanId = createLoan(customer.getId(), "1200").getId();
+        closeLoan(loanId);
+        LoanArchiveService archiveService = new LoanArchiveService(loanRepository, loanInstallmentRepository,
+                archivedLoanRepository, transactionManager, shards, Duration.ZERO, 2);
+
+        // When
+        ArchiveSummary summary = archiveService.archiveClosedLoans();
+
+        // Then
+        assertTrue(summary.loansArchived() >= 1);
+        assertTrue(loanRepository.findById(loanId).isEmpty());
+        ArchivedLoan archived = archivedLoanRepository.findById(loanId).orElseThrow();
+        assertEquals(6, archived.getInstallmentCount());
+        assertTrue(archived.isPaid());
+        assertEquals(0, archived.getInstallmentTotal().compareTo(archived.getPaidTotal()));
+        assertEquals(LocalDate.now(), archived.getLastPaymentDate());
+        assertEquals(1, loanInstallmentService.getByLoan(loanId).size());
+    }
+
+    private void closeLoan(Long loanId) {
+        // the payment window only reaches three months ahead, so the schedule is paid off directly
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            LoanScheduleView loan = loanRepository.findSchedulesByIdIn(List.of(loanId)).get(0);
+            InstallmentSchedule schedule = loan.schedule();
+            InstallmentSchedule paid = schedule.pay(IntStream.range(0, schedule.count()).boxed().toList(), LocalDate.now());
+            assertEquals(1, loanRepository.updateSchedule(loan, paid, LocalDateTime.now()));
+        });
+    }
+
+    private Customer saveCustomer() {
+        return customerRepository.save(new Customer("name", "surname", new BigDecimal("1000000"), BigDecimal.ZERO, null));
+    }
+
+    private CreditDto createLoan(Long customerId, String loanAmount) {
+        return creditService.create(new CreditDto(null, customerId, new BigDecimal(loanAmount), 6, new BigDecimal("0.1")));
+    }
+
+    private static InstallmentDto payment(Long loanId, BigDecimal amount) {
+        InstallmentDto dto = new InstallmentDto();
+        dto.setLoanId(loanId);
+        dto.setAmount(amount);
+        return dto;
+    }
+}
@@ -0,0 +1,105 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.BatchItem;
+import com.bank.credit.service.dto.CreditBatchItemResult;
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.repository.LoanInstallmentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "credit.batch.chunk-size=3")
+class CreditBatchServiceTest {
+
+    @Autowired
+    private CreditBatchService creditBatchService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Test
+    void createAll_shouldCreateLoansAndUpdateUsedLimit_acrossChunks() {
+        // Given
+        Customer first = saveCustomer("10000");
+        Customer second = saveCustomer("10000");
+        List<BatchItem<CreditDto>> items = List.of(
+                BatchItem.of(0, getCreditDto(first.getId(), "1000", 6)),
+                BatchItem.of(1, getCreditDto(second.getId(), "2000", 12)),
+                BatchItem.of(2, getCreditDto(first.getId(), "1000", 24)),
+                BatchItem.of(3, getCreditDto(second.getId(), "1000", 9)));
+
+        // When
+        List<CreditBatchItemResult> results = creditBatchService.createAll(items.iterator());
+
+        // Then
+        assertEquals(4, results.size());
+        assertTrue(results.stream().allMatch(r -> r.getStatus() == CreditBatchItemResult.Status.CREATED));
+        assertEquals(List.of(0, 1, 2, 3), results.stream().map(CreditBatchItemResult::getIndex).toList());
+        Long loanId = results.get(2).getCredit().getId();
+        assertEquals(24, loanInstallmentRepository.findByLoan_Id(loanId).size());
+        assertEquals(0, new BigDecimal("2200").compareTo(customerRepository.findById(first.getId()).orElseThrow().getUsedCreditLimit()));
+        assertEquals(0, new BigDecimal("3300").compareTo(customerRepository.findById(second.getId()).orElseThrow().getUsedCreditLimit()));
+    }
+
+    @Test
+    void createAll_shouldRejectAllLoansOfCustomer_whenCombinedTotalExceedsLimit() {
+        // Given
+        Customer customer = saveCustomer("2000");
+        Customer other = saveCustomer("2000");
+        List<BatchItem<CreditDto>> items = List.of(
+                BatchItem.of(0, getCreditDto(customer.getId(), "1000", 6)),
+                BatchItem.of(1, getCreditDto(customer.getId(), "1000", 6)),
+                BatchItem.of(2, getCreditDto(other.getId(), "1000", 6)));
+
+        // When
+        List<CreditBatchItemResult> results = creditBatchService.createAll(items.iterator());
+
+        // Then
+        assertEquals(CreditBatchItemResult.Status.REJECTED, results.get(0).getStatus());
+        assertEquals(CreditBatchItemResult.Status.REJECTED, results.get(1).getStatus());
+        assertEquals("Credit limit is not sufficient", results.get(0).getErrors().get(0).message());
+        assertEquals(CreditBatchItemResult.Status.CREATED, results.get(2).getStatus());
+        assertEquals(0, BigDecimal.ZERO.compareTo(customerRepository.findById(customer.getId()).orElseThrow().getUsedCreditLimit()));
+    }
+
+    @Test
+    void createAll_shouldRejectInvalidItems_withoutFailingTheBatch() {
+        // Given
+        Customer customer = saveCustomer("10000");
+        List<BatchItem<CreditDto>> items = List.of(
+                BatchItem.of(0, getCreditDto(customer.getId(), "50", 6)),
+                BatchItem.<CreditDto>failed(1, "Invalid request format: broken"),
+                BatchItem.of(2, getCreditDto(customer.getId(), "1000", 7)),
+                BatchItem.of(3, getCreditDto(-1L, "1000", 6)),
+                BatchItem.of(4, getCreditDto(customer.getId(), "1000", 6)));
+
+        // When
+        List<CreditBatchItemResult> results = creditBatchService.createAll(items.iterator());
+
+        // Then
+        assertEquals(5, results.size());
+        assertEquals("loanAmount", results.get(0).getErrors().get(0).field());
+        assertEquals("request", results.get(1).getErrors().get(0).field());
+        assertEquals("numberOfInstallment", results.get(2).getErrors().get(0).field());
+        assertEquals("Customer with ID -1 not found", results.get(3).getErrors().get(0).message());
+        assertEquals(CreditBatchItemResult.Status.CREATED, results.get(4).getStatus());
+    }
+
+    private Customer saveCustomer(String creditLimit) {
+        return customerRepository.save(new Customer("name", "surname", new BigDecimal(creditLimit), BigDecimal.ZERO, null));
+    }
+
+    private CreditDto getCreditDto(Long customerId, String amount, int installments) {
+        return new CreditDto(null, customerId, new BigDecimal(amount), installments, new BigDecimal("0.1"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.CreditCursorPage;
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.LoanFilter;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.repository.CustomerRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CreditKeysetPaginationTest {
+
+    private static final int LOANS = 25;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private LoanFilter filter;
+    private List<CreditDto> created;
+
+    @BeforeEach
+    void setUp() {
+        Customer customer = customerRepository.save(new Customer("name", "surname", new BigDecimal("10000000"), BigDecimal.ZERO, null));
+        created = new ArrayList<>();
+        for (int i = 0; i < LOANS; i++) {
+            // only five distinct amounts, so the ID has to break the ties
+            BigDecimal amount = new BigDecimal(1000 + (i % 5) * 100);
+            created.add(creditService.create(new CreditDto(null, customer.getId(), amount, 12, new BigDecimal("0.1"))));
+        }
+        filter = LoanFilter.builder().customerId(customer.getId()).numberOfInstallment(12).isPaid(false).build();
+    }
+
+    @Test
+    void getLoanByCustomer_shouldReturnEveryLoanOnce_inAscendingOrder() {
+        // When
+        List<CreditDto> listed = readAll(Sort.Direction.ASC, 10);
+
+        // Then
+        Comparator<CreditDto> order = Comparator.comparing(CreditDto::getLoanAmount).thenComparing(CreditDto::getId);
+        assertEquals(created.stream().sorted(order).map(CreditDto::getId).toList(), listed.stream().map(CreditDto::getId).toList());
+    }
+
+    @Test
+    void getLoanByCustomer_shouldReturnEveryLoanOnce_inDescendingOrder() {
+        // When
+        List<CreditDto> listed = readAll(Sort.Direction.DESC, 7);
+
+        // Then
+        Comparator<CreditDto> order = Comparator.comparing(CreditDto::getLoanAmount).thenComparing(CreditDto::getId).reversed();
+        assertEquals(created.stream().sorted(order).map(CreditDto::getId).toList(), listed.stream().map(CreditDto::getId).toList());
+    }
+
+    @Test
+    void getLoanByCustomer_shouldRunOneQueryPerPage_withoutCount() {
+        // Given
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        CreditCursorPage first = creditService.getLoanByCustomer(filter, null, 10, Sort.Direction.ASC);
+        CreditCursorPage second = creditService.getLoanByCustomer(filter, first.nextToken(), 10, Sort.Direction.ASC);
+        statistics.clear();
+
+        // When
+        CreditCursorPage last = creditService.getLoanByCustomer(filter, second.nextToken(), 10, Sort.Direction.ASC);
+
+        // Then
+        assertEquals(5, last.content().size());
+        assertNull(last.nextToken());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getLoanByCustomer_shouldRejectMalformedToken() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> creditService.getLoanByCustomer(filter, "not-a-token", 10, Sort.Direction.ASC));
+        assertEquals("Malformed continuation token: not-a-token", ex.getMessage());
+    }
+
+    private List<CreditDto> readAll(Sort.Direction direction, int size) {
+        List<CreditDto> listed = new ArrayList<>();
+        String token = null;
+        do {
+            CreditCursorPage page = creditService.getLoanByCustomer(filter, token, size, direction);
+            assertTrue(page.content().size() <= size);
+            listed.addAll(page.content());
+            token = page.nextToken();
+        } while (token != null);
+        return listed;
+    }
+}
@@ -0,0 +1,94 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.exception.CreditLimitExceededException;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.specification.LoanSpecifications;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Creates loans for the same customer in parallel and checks that the credit limit is never overdrawn.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class CreditLimitReservationTest {
+
+    private static final int THREADS = 10;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void create_shouldNeverExceedCreditLimit_whenLoansAreCreatedInParallel() throws Exception {
+        // Given: room for exactly five loans with a total repayment of 1100 each
+        Customer customer = customerRepository.save(new Customer("name", "surname", new BigDecimal("5500"), BigDecimal.ZERO, null));
+        CreditDto dto = new CreditDto(null, customer.getId(), new BigDecimal("1000"), 6, new BigDecimal("0.1"));
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        List<Future<CreditDto>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return creditService.create(dto);
+            }));
+        }
+        start.countDown();
+        int created = 0;
+        int rejected = 0;
+        try {
+            for (Future<CreditDto> future : futures) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                    created++;
+                } catch (ExecutionException ex) {
+                    assertInstanceOf(CreditLimitExceededException.class, ex.getCause());
+                    rejected++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertEquals(5, created);
+        assertEquals(5, rejected);
+        assertEquals(0, new BigDecimal("5500").compareTo(customerRepository.findById(customer.getId()).orElseThrow().getUsedCreditLimit()));
+        assertEquals(5, loanRepository.count(LoanSpecifications.hasCustomerId(customer.getId())));
+    }
+
+    @Test
+    void save_shouldFail_whenCustomerWasReservedConcurrently() {
+        // Given
+        Customer stale = customerRepository.save(new Customer("name", "surname", new BigDecimal("5500"), BigDecimal.ZERO, null));
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> customerRepository.reserveCreditLimit(stale.getId(), new BigDecimal("100")));
+
+        // When & Then
+        stale.setName("changed");
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> customerRepository.save(stale));
+    }
+}
@@ -1,7 +1,12 @@
 package com.bank.credit.service.service;
 
+import com.bank.credit.service.cache.CustomerCreditCache;
+import com.bank.credit.service.cache.LoanPageCache;
+import com.bank.credit.service.datasource.ReadYourWrites;
 import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.CustomerCreditSnapshot;
 import com.bank.credit.service.dto.LoanFilter;
+import com.bank.credit.service.exception.CreditLimitExceededException;
 import com.bank.credit.service.exception.CustomerNotFoundException;
 import com.bank.credit.service.mapper.LoanMapper;
 import com.bank.credit.service.model.Customer;
@@ -9,17 +14,23 @@ import com.bank.credit.service.model.Loan;
 import com.bank.credit.service.model.LoanInstallment;
 import com.bank.credit.service.repository.CustomerRepository;
 import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.sharding.ShardingProperties;
+import com.bank.credit.service.sharding.Shards;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
 import java.util.List;
@@ -42,7 +53,12 @@ class CreditServiceTest {
         loanMapper = mock(LoanMapper.class);
         customerRepository = mock(CustomerRepository.class);
         loanInstallmentService = mock(LoanInstallmentService.class);
-        creditService = new CreditService(loanRepository, loanMapper, customerRepository, loanInstallmentService);
+        creditService = new CreditService(loanRepository, loanMapper, customerRepository, loanInstallmentService,
+                mock(ReadYourWrites.class), new Shards(new ShardingProperties(false, 0, List.of())),
+                new LoanPageCache(new SimpleMeterRegistry(), 0, Duration.ZERO),
+                new CreditLimitReservations(customerRepository,
+                        new CustomerCreditCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1), Duration.ofMinutes(1))),
+                mock(PlatformTransactionManager.class));
     }
 
     @Test
@@ -55,9 +71,9 @@ class CreditServiceTest {
         Loan savedLoan = getLoan(customer);
         savedLoan.addInstallments(List.of(loanInstallment));
         CreditDto resultDto = getCreditDto(new BigDecimal("1100"));
-        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+        when(customerRepository.reserveCreditLimit(1L, new BigDecimal("1100.0"))).thenReturn(1);
+        when(customerRepository.getReferenceById(1L)).thenReturn(customer);
         when(loanMapper.toEntity(Mockito.eq(creditDto), Mockito.any(Customer.class), Mockito.any(BigDecimal.class))).thenReturn(loan);
-        when(loanInstallmentService.buildLoanInstallments(any())).thenReturn(List.of(loanInstallment));
         when(loanRepository.save(loan)).thenReturn(savedLoan);
         when(loanMapper.toDto(any())).thenReturn(resultDto);
 
@@ -66,24 +82,23 @@ class CreditServiceTest {
 
         // Then
         ArgumentCaptor<BigDecimal> totalAmountCaptor = ArgumentCaptor.forClass(BigDecimal.class);
-        verify(loanMapper).toEntity(Mockito.eq(creditDto), Mockito.any(Customer.class), totalAmountCaptor.capture());
+        verify(loanMapper).toEntity(Mockito.eq(creditDto), Mockito.eq(customer), totalAmountCaptor.capture());
         BigDecimal capturedTotalAmount = totalAmountCaptor.getValue();
         assertEquals(new BigDecimal("1100.0"), capturedTotalAmount);
         assertEquals(resultDto, result);
-        verify(customerRepository).findById(1L);
-        verify(loanInstallmentService).buildLoanInstallments(any());
+        verify(customerRepository).reserveCreditLimit(1L, new BigDecimal("1100.0"));
+        verify(loanInstallmentService).scheduleInstallments(any(), any());
         verify(loanRepository).save(loan);
-        ArgumentCaptor<Customer> customerCaptor = ArgumentCaptor.forClass(Customer.class);
-        verify(customerRepository).save(customerCaptor.capture());
-        Customer savedCustomer = customerCaptor.getValue();
-        assertEquals(new BigDecimal("2100.0"), savedCustomer.getUsedCreditLimit());
+        verify(customerRepository, never()).findById(any());
+        verify(customerRepository, never()).save(any());
     }
 
     @Test
     void create_shouldThrowCustomerNotFoundException_whenCustomerNotFound() {
         // Given
         CreditDto creditDto = getCreditDto(new BigDecimal("1000"));
-        when(customerRepository.findById(creditDto.getCustomerId())).thenReturn(Optional.empty());
+        when(customerRepository.reserveCreditLimit(any(), any())).thenReturn(0);
+        when(customerRepository.findCreditSnapshotById(creditDto.getCustomerId())).thenReturn(Optional.empty());
 
         // When & Then
         CustomerNotFoundException ex = assertThrows(CustomerNotFoundException.class, () -> {
@@ -93,25 +108,68 @@ class CreditServiceTest {
 
 
         verify(loanMapper, never()).toEntity(any(), any(), any());
-        verify(loanInstallmentService, never()).buildLoanInstallments(any());
+        verify(loanInstallmentService, never()).scheduleInstallments(any(), any());
         verify(loanRepository, never()).save(any());
     }
 
+    @Test
+    void create_shouldThrowCreditLimitExceededException_whenLimitIsNotSufficient() {
+        // Given
+        CreditDto creditDto = getCreditDto(new BigDecimal("1000"));
+        when(customerRepository.reserveCreditLimit(any(), any())).thenReturn(0);
+        when(customerRepository.findCreditSnapshotById(creditDto.getCustomerId())).thenReturn(
+                Optional.of(new CustomerCreditSnapshot(new BigDecimal("1000"), new BigDecimal("500"), 3L)));
+
+        // When & Then
+        CreditLimitExceededException ex = assertThrows(CreditLimitExceededException.class, () -> creditService.create(creditDto));
+        assertEquals("Credit limit is not sufficient", ex.getMessage());
+        verify(loanRepository, never()).save(any());
+    }
+
+    @Test
+    void create_shouldRejectFromCache_whenCustomerIsKnownToBeMissing() {
+        // Given
+        CreditDto creditDto = getCreditDto(new BigDecimal("1000"));
+        when(customerRepository.reserveCreditLimit(any(), any())).thenReturn(0);
+        when(customerRepository.findCreditSnapshotById(creditDto.getCustomerId())).thenReturn(Optional.empty());
+        assertThrows(CustomerNotFoundException.class, () -> creditService.create(creditDto));
+
+        // When & Then
+        assertThrows(CustomerNotFoundException.class, () -> creditService.create(creditDto));
+        verify(customerRepository, times(1)).reserveCreditLimit(any(), any());
+        verify(customerRepository, times(1)).findCreditSnapshotById(any());
+    }
+
+    @Test
+    void create_shouldRejectFromCache_whenCachedLimitIsNotSufficient_andStillTryAffordableLoans() {
+        // Given
+        when(customerRepository.reserveCreditLimit(any(), any())).thenReturn(0);
+        when(customerRepository.findCreditSnapshotById(1L)).thenReturn(
+                Optional.of(new CustomerCreditSnapshot(new BigDecimal("1000"), new BigDecimal("500"), 3L)));
+        assertThrows(CreditLimitExceededException.class, () -> creditService.create(getCreditDto(new BigDecimal("1000"))));
+
+        // When & Then
+        assertThrows(CreditLimitExceededException.class, () -> creditService.create(getCreditDto(new BigDecimal("1000"))));
+        verify(customerRepository, times(1)).reserveCreditLimit(any(), any());
+        assertThrows(CreditLimitExceededException.class, () -> creditService.create(getCreditDto(new BigDecimal("400"))));
+        verify(customerRepository, times(2)).reserveCreditLimit(any(), any());
+    }
+
     @Test
     void create_shouldThrowException_whenLoanSaveFails() {
         // Given
         CreditDto creditDto = getCreditDto(new BigDecimal("1000"));
         Customer customer = new Customer("name", "surname", new BigDecimal("10000"), new BigDecimal("1000"), null);
 
-        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+        when(customerRepository.reserveCreditLimit(any(), any())).thenReturn(1);
+        when(customerRepository.getReferenceById(1L)).thenReturn(customer);
         when(loanMapper.toEntity(any(), any(), any())).thenReturn(getLoan(customer));
-        when(loanInstallmentService.buildLoanInstallments(any())).thenReturn(List.of(getLoanInstallment()));
         when(loanRepository.save(any())).thenThrow(new RuntimeException("DB error"));
 
         // When & Then
         assertThrows(RuntimeException.class, () -> creditService.create(creditDto));
-        verify(customerRepository).findById(1L);
-        verify(loanInstallmentService).buildLoanInstallments(any());
+        verify(customerRepository).reserveCreditLimit(any(), any());
+        verify(loanInstallmentService).scheduleInstallments(any(), any());
     }
 
     @Test
@@ -121,19 +179,17 @@ class CreditServiceTest {
         Pageable pageable = PageRequest.of(0, 10);
 
         // When & Then
-        when(loanRepository.findAll(any(Specification.class), eq(pageable))).thenThrow(new RuntimeException("DB error"));
+        when(loanRepository.findCredits(any(Specification.class), eq(pageable))).thenThrow(new RuntimeException("DB error"));
         assertThrows(RuntimeException.class, () -> creditService.getLoanByCustomer(filter, pageable));
     }
 
     @Test
-    void getLoanByCustomer_shouldReturnMappedPage() {
+    void getLoanByCustomer_shouldReturnProjectedPage() {
         // Given
         LoanFilter filter = getLoanFilter();
         Pageable pageable = PageRequest.of(0, 10);
-        Loan loan = getLoan(new Customer());
-        Page<Loan> loanPage = new PageImpl<>(List.of(loan), pageable, 1);
-        when(loanRepository.findAll(any(Specification.class), eq(pageable))).thenReturn(loanPage);
-        when(loanMapper.toDto(any(Loan.class))).thenReturn(new CreditDto());
+        Page<CreditDto> creditPage = new PageImpl<>(List.of(new CreditDto()), pageable, 1);
+        when(loanRepository.findCredits(any(Specification.class), eq(pageable))).thenReturn(creditPage);
 
         // When
         Page<CreditDto> result = creditService.getLoanByCustomer(filter, pageable);
@@ -142,8 +198,44 @@ class CreditServiceTest {
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
         ArgumentCaptor<Specification<Loan>> specCaptor = ArgumentCaptor.forClass(Specification.class);
-        verify(loanRepository).findAll(specCaptor.capture(), eq(pageable));
-        verify(loanMapper, times(loanPage.getContent().size())).toDto(any(Loan.class));
+        verify(loanRepository).findCredits(specCaptor.capture(), eq(pageable));
+        verify(loanRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+        verifyNoInteractions(loanMapper);
+        verify(loanRepository, never()).findCreditsWithArchive(any(LoanFilter.class), any(Pageable.class));
+    }
+
+    @Test
+    void getLoanByCustomer_shouldUseUnionQuery_whenFilterCanMatchPaidLoans() {
+        // Given
+        LoanFilter filter = LoanFilter.builder().customerId(1L).build();
+        Pageable pageable = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "outstandingAmount"));
+        Page<CreditDto> creditPage = new PageImpl<>(List.of(credit(3L, "500"), credit(2L, "300")), pageable, 5);
+        when(loanRepository.findCreditsWithArchive(filter, pageable)).thenReturn(creditPage);
+
+        // When
+        Page<CreditDto> result = creditService.getLoanByCustomer(filter, pageable);
+
+        // Then
+        assertEquals(List.of(3L, 2L), result.getContent().stream().map(CreditDto::getId).toList());
+        assertEquals(5, result.getTotalElements());
+        verify(loanRepository, never()).findCredits(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    void getLoanByCustomer_shouldRejectUnknownSortProperty_beforeQuerying() {
+        // Given
+        LoanFilter filter = getLoanFilter();
+        Pageable pageable = PageRequest.of(0, 2, Sort.by("unknown"));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> creditService.getLoanByCustomer(filter, pageable));
+        verifyNoInteractions(loanRepository);
+    }
+
+    private CreditDto credit(Long id, String loanAmount) {
+        CreditDto dto = getCreditDto(new BigDecimal(loanAmount));
+        dto.setId(id);
+        return dto;
     }
 
     private LoanFilter getLoanFilter() {
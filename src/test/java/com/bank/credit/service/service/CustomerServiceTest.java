@@ -1,12 +1,17 @@
 package com.bank.credit.service.service;
 
+import com.bank.credit.service.cache.CustomerCreditCache;
 import com.bank.credit.service.dto.CustomerDto;
 import com.bank.credit.service.mapper.CustomerMapper;
 import com.bank.credit.service.model.Customer;
 import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.sharding.ShardingProperties;
+import com.bank.credit.service.sharding.Shards;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.*;
@@ -21,7 +26,8 @@ public class CustomerServiceTest {
     void setUp() {
         customerRepository = mock(CustomerRepository.class);
         customerMapper = mock(CustomerMapper.class);
-        customerService = new CustomerService(customerRepository, customerMapper);
+        customerService = new CustomerService(customerRepository, customerMapper, new Shards(new ShardingProperties(false, 0, List.of())),
+                mock(CustomerCreditCache.class));
     }
 
     @Test
@@ -0,0 +1,90 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.repository.CustomerRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "credit.installments.lookup-chunk-size=2"
+})
+class InstallmentLookupTest {
+
+    @Autowired
+    private LoanInstallmentService loanInstallmentService;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void getByLoans_shouldRunOneQueryPerChunk() {
+        // Given
+        Customer customer = saveCustomer();
+        List<Long> loanIds = new ArrayList<>();
+        for (int numberOfInstallment : new int[]{6, 9, 12}) {
+            loanIds.add(createLoan(customer.getId(), numberOfInstallment));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        Map<Long, List<InstallmentDto>> result = loanInstallmentService.getByLoans(loanIds);
+
+        // Then
+        assertEquals(loanIds, List.copyOf(result.keySet()));
+        assertEquals(6, result.get(loanIds.get(0)).size());
+        assertEquals(9, result.get(loanIds.get(1)).size());
+        assertEquals(12, result.get(loanIds.get(2)).size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getByCustomer_shouldReturnInstallmentsOfAllLoans_withOneQueryPerTable() {
+        // Given
+        Customer customer = saveCustomer();
+        Long first = createLoan(customer.getId(), 6);
+        Long second = createLoan(customer.getId(), 24);
+        createLoan(saveCustomer().getId(), 9);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        Map<Long, List<InstallmentDto>> result = loanInstallmentService.getByCustomer(customer.getId());
+
+        // Then
+        assertEquals(List.of(first, second), List.copyOf(result.keySet()));
+        assertEquals(6, result.get(first).size());
+        assertEquals(24, result.get(second).size());
+        // one query each for the installment rows, the compact schedules and the archive
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    private Customer saveCustomer() {
+        return customerRepository.save(new Customer("name", "surname", new BigDecimal("1000000"), BigDecimal.ZERO, null));
+    }
+
+    private Long createLoan(Long customerId, int numberOfInstallment) {
+        return creditService.create(new CreditDto(null, customerId, new BigDecimal("1000"), numberOfInstallment, new BigDecimal("0.1"))).getId();
+    }
+}
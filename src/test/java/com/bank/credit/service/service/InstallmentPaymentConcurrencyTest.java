@@ -0,0 +1,211 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.dto.PayedInstallmentDto;
+import com.bank.credit.service.exception.UnpaidInstallmentsNotFoundException;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.model.Loan;
+import com.bank.credit.service.model.LoanInstallment;
+import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.repository.LoanInstallmentRepository;
+import com.bank.credit.service.repository.LoanRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs payments in parallel and checks that installments, used credit limits and loan states stay consistent.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class InstallmentPaymentConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private InstallmentPaymentService installmentPaymentService;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Autowired
+    private LoanBalanceRepairService loanBalanceRepairService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void payInstallment_shouldKeepUsedLimitCorrect_whenLoansOfSameCustomerArePaidInParallel() throws Exception {
+        // Given
+        Customer customer = saveCustomer();
+        List<Long> loanIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            loanIds.add(createLoan(customer.getId(), 6));
+        }
+        BigDecimal usedBefore = usedCreditLimit(customer.getId());
+
+        // When
+        List<Callable<PayedInstallmentDto>> payments = loanIds.stream()
+                .map(loanId -> (Callable<PayedInstallmentDto>) () -> installmentPaymentService.payInstallment(payment(loanId, "600")))
+                .toList();
+        List<Future<PayedInstallmentDto>> results = runInParallel(payments);
+
+        // Then
+        BigDecimal totalPaid = BigDecimal.ZERO;
+        for (Future<PayedInstallmentDto> result : results) {
+            assertEquals(3, result.get().getPayedInstallment());
+            totalPaid = totalPaid.add(result.get().getTotalAmountSpent());
+        }
+        assertEquals(0, usedBefore.subtract(totalPaid).compareTo(usedCreditLimit(customer.getId())));
+        for (Long loanId : loanIds) {
+            assertEquals(3, paidInstallments(loanId));
+        }
+    }
+
+    @Test
+    void payInstallment_shouldPayEachInstallmentOnce_whenSameLoanIsPaidInParallel() throws Exception {
+        // Given
+        Customer customer = saveCustomer();
+        Long loanId = createLoan(customer.getId(), 24);
+        BigDecimal usedBefore = usedCreditLimit(customer.getId());
+
+        // When
+        List<Callable<PayedInstallmentDto>> payments = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            payments.add(() -> installmentPaymentService.payInstallment(payment(loanId, "100")));
+        }
+        List<Future<PayedInstallmentDto>> results = runInParallel(payments);
+
+        // Then
+        int paid = 0;
+        BigDecimal totalPaid = BigDecimal.ZERO;
+        for (Future<PayedInstallmentDto> result : results) {
+            try {
+                paid += result.get().getPayedInstallment();
+                totalPaid = totalPaid.add(result.get().getTotalAmountSpent());
+            } catch (ExecutionException ex) {
+                // conflicting payments are retried and then find the window already paid, or run out of attempts
+                assertTrue(ex.getCause() instanceof UnpaidInstallmentsNotFoundException
+                        || ex.getCause() instanceof ConcurrencyFailureException, ex.getCause().toString());
+            }
+        }
+        assertTrue(paid > 0);
+        assertEquals(paid, paidInstallments(loanId));
+        assertEquals(24 - paid, loanRepository.findById(loanId).orElseThrow().getRemainingInstallments());
+        assertEquals(0, usedBefore.subtract(totalPaid).compareTo(usedCreditLimit(customer.getId())));
+    }
+
+    @Test
+    void payInstallment_shouldCloseLoan_whenLastInstallmentIsPaid() {
+        // Given
+        Customer customer = saveCustomer();
+        Long loanId = createLoan(customer.getId(), 6);
+        loanInstallmentRepository.findByLoan_Id(loanId).stream()
+                .skip(1)
+                .forEach(installment -> {
+                    installment.setPaid(true);
+                    loanInstallmentRepository.save(installment);
+                });
+        loanBalanceRepairService.repairAll();
+
+        // When
+        PayedInstallmentDto result = installmentPaymentService.payInstallment(payment(loanId, "5000"));
+
+        // Then
+        assertEquals(1, result.getPayedInstallment());
+        assertTrue(result.isLoanPaymentComplate());
+        Loan loan = loanRepository.findById(loanId).orElseThrow();
+        assertTrue(loan.isPaid());
+        assertEquals(0, loan.getRemainingInstallments());
+        assertEquals(0, BigDecimal.ZERO.compareTo(loan.getOutstandingAmount()));
+        assertNull(loan.getNextDueDate());
+    }
+
+    @Test
+    void payInstallment_shouldPrepareAtMostFourStatements_whenLoanStaysOpen() {
+        // Given
+        Customer customer = saveCustomer();
+        Long loanId = createLoan(customer.getId(), 12);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        installmentPaymentService.payInstallment(payment(loanId, "100"));
+
+        // Then
+        assertTrue(statistics.getPrepareStatementCount() <= 4,
+                "expected at most 4 statements but got " + statistics.getPrepareStatementCount());
+    }
+
+    private List<Future<PayedInstallmentDto>> runInParallel(List<Callable<PayedInstallmentDto>> tasks) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<PayedInstallmentDto>> futures = tasks.stream()
+                    .map(task -> executor.submit(() -> {
+                        start.await();
+                        return task.call();
+                    }))
+                    .toList();
+            start.countDown();
+            for (Future<PayedInstallmentDto> future : futures) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                } catch (ExecutionException ignored) {
+                    // inspected by the caller
+                } catch (TimeoutException ex) {
+                    fail("payment did not finish in time");
+                }
+            }
+            return futures;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Customer saveCustomer() {
+        return customerRepository.save(new Customer("name", "surname", new BigDecimal("1000000"), BigDecimal.ZERO, null));
+    }
+
+    private Long createLoan(Long customerId, int numberOfInstallment) {
+        return creditService.create(new CreditDto(null, customerId, new BigDecimal("1000"), numberOfInstallment, new BigDecimal("0.1"))).getId();
+    }
+
+    private BigDecimal usedCreditLimit(Long customerId) {
+        return customerRepository.findById(customerId).orElseThrow().getUsedCreditLimit();
+    }
+
+    private long paidInstallments(Long loanId) {
+        return loanInstallmentRepository.findByLoan_Id(loanId).stream().filter(LoanInstallment::isPaid).count();
+    }
+
+    private static InstallmentDto payment(Long loanId, String amount) {
+        InstallmentDto dto = new InstallmentDto();
+        dto.setLoanId(loanId);
+        dto.setAmount(new BigDecimal(amount));
+        return dto;
+    }
+}
@@ -0,0 +1,99 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.BatchItem;
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.dto.PaymentImportSummary;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.model.LoanInstallment;
+import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.repository.LoanInstallmentRepository;
+import com.bank.credit.service.repository.LoanRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "credit.payment-import.chunk-size=2")
+class InstallmentPaymentImportTest {
+
+    @Autowired
+    private InstallmentPaymentService installmentPaymentService;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Test
+    void importPayments_shouldApplyPaymentsInFileOrder_acrossChunks() {
+        // Given
+        Customer customer = customerRepository.save(new Customer("name", "surname", new BigDecimal("10000"), BigDecimal.ZERO, null));
+        Long firstLoan = creditService.create(new CreditDto(null, customer.getId(), new BigDecimal("1000"), 3, new BigDecimal("0.1"))).getId();
+        Long secondLoan = creditService.create(new CreditDto(null, customer.getId(), new BigDecimal("1000"), 6, new BigDecimal("0.1"))).getId();
+        BigDecimal usedBefore = customerRepository.findById(customer.getId()).orElseThrow().getUsedCreditLimit();
+        List<BatchItem<InstallmentDto>> payments = List.of(
+                BatchItem.of(0, payment(firstLoan, "400")),
+                BatchItem.of(1, payment(secondLoan, "200")),
+                BatchItem.of(2, payment(firstLoan, "800")),
+                BatchItem.of(3, payment(secondLoan, "200")));
+
+        // When
+        PaymentImportSummary summary = installmentPaymentService.importPayments(payments.iterator());
+
+        // Then
+        assertEquals(4, summary.getApplied());
+        assertEquals(0, summary.getRejected());
+        assertEquals(5, summary.getInstallmentsPaid());
+        assertTrue(loanInstallmentRepository.findByLoan_Id(firstLoan).stream().allMatch(LoanInstallment::isPaid));
+        assertEquals(2, loanInstallmentRepository.findByLoan_Id(secondLoan).stream().filter(LoanInstallment::isPaid).count());
+        assertTrue(loanRepository.findById(firstLoan).orElseThrow().isPaid());
+        assertFalse(loanRepository.findById(secondLoan).orElseThrow().isPaid());
+        BigDecimal usedAfter = customerRepository.findById(customer.getId()).orElseThrow().getUsedCreditLimit();
+        assertEquals(0, usedBefore.subtract(summary.getTotalAmountSpent().toBigDecimal()).compareTo(usedAfter));
+    }
+
+    @Test
+    void importPayments_shouldRejectLines_withoutFailingTheImport() {
+        // Given
+        Customer customer = customerRepository.save(new Customer("name", "surname", new BigDecimal("10000"), BigDecimal.ZERO, null));
+        Long loanId = creditService.create(new CreditDto(null, customer.getId(), new BigDecimal("1000"), 6, new BigDecimal("0.1"))).getId();
+        List<BatchItem<InstallmentDto>> payments = List.of(
+                BatchItem.<InstallmentDto>failed(0, "Invalid number in line: abc,100"),
+                BatchItem.of(1, payment(loanId, "50")),
+                BatchItem.of(2, payment(-1L, "500")),
+                BatchItem.of(3, payment(loanId, "100")),
+                BatchItem.of(4, payment(loanId, "500")));
+
+        // When
+        PaymentImportSummary summary = installmentPaymentService.importPayments(payments.iterator());
+
+        // Then
+        assertEquals(1, summary.getApplied());
+        assertEquals(4, summary.getRejected());
+        assertEquals(List.of(1, 2, 3, 4), summary.getRejectedLines().stream().map(PaymentImportSummary.RejectedLine::line).toList());
+        assertTrue(summary.getRejectedLines().get(1).reason().startsWith("amount: "));
+        assertEquals(-1L, summary.getRejectedLines().get(2).loanId());
+        assertEquals(loanId, summary.getRejectedLines().get(3).loanId());
+        assertEquals(2, summary.getInstallmentsPaid());
+        assertEquals(2, loanInstallmentRepository.findByLoan_Id(loanId).stream().filter(LoanInstallment::isPaid).count());
+    }
+
+    private static InstallmentDto payment(Long loanId, String amount) {
+        InstallmentDto dto = new InstallmentDto();
+        dto.setLoanId(loanId);
+        dto.setAmount(new BigDecimal(amount));
+        return dto;
+    }
+}
@@ -1,31 +1,41 @@
 package com.bank.credit.service.service;
 
+import com.bank.credit.service.cache.CustomerCreditCache;
+import com.bank.credit.service.cache.LoanPageCache;
+import com.bank.credit.service.datasource.ReadYourWrites;
 import com.bank.credit.service.dto.InstallmentDto;
 import com.bank.credit.service.dto.PayedInstallmentDto;
+import com.bank.credit.service.dto.UnpaidInstallmentView;
 import com.bank.credit.service.exception.CustomerNotFoundException;
 import com.bank.credit.service.exception.InvalidPaymentAmountException;
 import com.bank.credit.service.exception.UnpaidInstallmentsNotFoundException;
-import com.bank.credit.service.model.Customer;
-import com.bank.credit.service.model.Loan;
-import com.bank.credit.service.model.LoanInstallment;
 import com.bank.credit.service.repository.CustomerRepository;
 import com.bank.credit.service.repository.LoanInstallmentRepository;
 import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.retry.ConflictRetrier;
+import com.bank.credit.service.sharding.ShardingProperties;
+import com.bank.credit.service.sharding.Shards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class InstallmentPaymentServiceTest {
+    private static final Long CUSTOMER_ID = 2L;
+
     private LoanInstallmentRepository loanInstallmentRepository;
     private CustomerRepository customerRepository;
     private LoanRepository loanRepository;
@@ -36,24 +46,23 @@ class InstallmentPaymentServiceTest {
         loanInstallmentRepository = mock(LoanInstallmentRepository.class);
         customerRepository = mock(CustomerRepository.class);
         loanRepository = mock(LoanRepository.class);
-        installmentPaymentService = new InstallmentPaymentService(loanInstallmentRepository, customerRepository, loanRepository);
+        installmentPaymentService = new InstallmentPaymentService(loanInstallmentRepository, customerRepository, loanRepository,
+                mock(Validator.class), mock(PlatformTransactionManager.class), new ConflictRetrier(new SimpleMeterRegistry(), 1, 0, 0),
+                mock(ReadYourWrites.class), new Shards(new ShardingProperties(false, 0, List.of())),
+                mock(LoanPageCache.class), mock(CustomerCreditCache.class), 1000);
+        when(loanRepository.applyPayment(any(), anyInt(), any(), any())).thenReturn(1);
     }
 
     @Test
     void payInstallment_shouldReturnDto_whenPartialPaymentIsMade_andLoanIsNotFullyPaid() {
         // Given
         Long loanId = 1L;
-        Loan loan = getLoan(loanId);
         InstallmentDto dto = getInstallmentDto(loanId, new BigDecimal("400"));
-        Customer customer = getCustomer();
-        List<LoanInstallment> installments = new ArrayList<>();
-        installments.add(getLoanInstallment(loan, 9));
-        installments.add(getLoanInstallment(loan, 10));
-        installments.add(getLoanInstallment(loan, 11));
+        List<UnpaidInstallmentView> installments = getUnpaidInstallments(3, 6);
 
-        when(loanInstallmentRepository.findByLoan_IdAndDueDateBetweenAndIsPaidFalse(any(), any(), any())).thenReturn(installments);
-        when(customerRepository.findByLoans_Id(loanId)).thenReturn(Optional.of(customer));
-        when(loanInstallmentRepository.existsByLoan_IdAndIsPaidFalse(loanId)).thenReturn(Boolean.TRUE);
+        when(loanInstallmentRepository.findUnpaidViewsByLoanIdAndDueDateBetween(any(), any(), any())).thenReturn(installments);
+        when(loanInstallmentRepository.markPaid(eq(List.of(10L)), any(), any())).thenReturn(1);
+        when(customerRepository.releaseCreditLimit(CUSTOMER_ID, new BigDecimal(350))).thenReturn(1);
 
         // When
         PayedInstallmentDto result = installmentPaymentService.payInstallment(dto);
@@ -62,27 +71,21 @@ class InstallmentPaymentServiceTest {
         assertEquals(1, result.getPayedInstallment());
         assertEquals(new BigDecimal(350), result.getTotalAmountSpent());
         assertFalse(result.isLoanPaymentComplate());
-        verify(loanInstallmentRepository).findByLoan_IdAndDueDateBetweenAndIsPaidFalse(any(), any(), any());
-        verify(loanInstallmentRepository).saveAll(any());
-        verify(customerRepository).save(any());
-        assertEquals(new BigDecimal(550), customer.getUsedCreditLimit());
+        verify(loanInstallmentRepository).markPaid(eq(List.of(10L)), any(), any());
+        verify(customerRepository).releaseCreditLimit(CUSTOMER_ID, new BigDecimal(350));
+        verify(loanRepository).applyPayment(eq(loanId), eq(1), eq(new BigDecimal(350)), any());
     }
 
     @Test
     void payInstallment_shouldReturnDto_whenPartialPaymentCoversTwoInstallments() {
         // Given
         Long loanId = 1L;
-        Loan loan = getLoan(loanId);
         InstallmentDto dto = getInstallmentDto(loanId, new BigDecimal("800"));
-        Customer customer = getCustomer();
-        List<LoanInstallment> installments = new ArrayList<>();
-        installments.add(getLoanInstallment(loan, 9));
-        installments.add(getLoanInstallment(loan, 10));
-        installments.add(getLoanInstallment(loan, 11));
+        List<UnpaidInstallmentView> installments = getUnpaidInstallments(3, 6);
 
-        when(loanInstallmentRepository.findByLoan_IdAndDueDateBetweenAndIsPaidFalse(any(), any(), any())).thenReturn(installments);
-        when(customerRepository.findByLoans_Id(loanId)).thenReturn(Optional.of(customer));
-        when(loanInstallmentRepository.existsByLoan_IdAndIsPaidFalse(loanId)).thenReturn(Boolean.TRUE);
+        when(loanInstallmentRepository.findUnpaidViewsByLoanIdAndDueDateBetween(any(), any(), any())).thenReturn(installments);
+        when(loanInstallmentRepository.markPaid(eq(List.of(10L, 11L)), any(), any())).thenReturn(2);
+        when(customerRepository.releaseCreditLimit(CUSTOMER_ID, new BigDecimal(700))).thenReturn(1);
 
         // When
         PayedInstallmentDto result = installmentPaymentService.payInstallment(dto);
@@ -91,26 +94,43 @@ class InstallmentPaymentServiceTest {
         assertEquals(2, result.getPayedInstallment());
         assertEquals(new BigDecimal(700), result.getTotalAmountSpent());
         assertFalse(result.isLoanPaymentComplate());
-        verify(loanInstallmentRepository).findByLoan_IdAndDueDateBetweenAndIsPaidFalse(any(), any(), any());
-        verify(loanInstallmentRepository).saveAll(any());
-        verify(customerRepository).save(any());
-        assertEquals(new BigDecimal(200), customer.getUsedCreditLimit());
+        verify(customerRepository).releaseCreditLimit(CUSTOMER_ID, new BigDecimal(700));
+        verify(loanRepository).applyPayment(eq(loanId), eq(2), eq(new BigDecimal(700)), any());
+    }
+
+    @Test
+    void payInstallment_shouldPayOldestInstallmentsFirst_whenAmountsDiffer() {
+        // Given
+        Long loanId = 1L;
+        InstallmentDto dto = getInstallmentDto(loanId, new BigDecimal("1000"));
+        List<UnpaidInstallmentView> installments = List.of(
+                new UnpaidInstallmentView(10L, new BigDecimal("516.67"), CUSTOMER_ID, 24),
+                new UnpaidInstallmentView(11L, new BigDecimal("512.50"), CUSTOMER_ID, 24),
+                new UnpaidInstallmentView(12L, new BigDecimal("508.33"), CUSTOMER_ID, 24));
+
+        when(loanInstallmentRepository.findUnpaidViewsByLoanIdAndDueDateBetween(any(), any(), any())).thenReturn(installments);
+        when(loanInstallmentRepository.markPaid(eq(List.of(10L)), any(), any())).thenReturn(1);
+        when(customerRepository.releaseCreditLimit(CUSTOMER_ID, new BigDecimal("516.67"))).thenReturn(1);
+
+        // When
+        PayedInstallmentDto result = installmentPaymentService.payInstallment(dto);
+
+        // Then
+        assertEquals(1, result.getPayedInstallment());
+        assertEquals(new BigDecimal("516.67"), result.getTotalAmountSpent());
+        verify(loanRepository).applyPayment(eq(loanId), eq(1), eq(new BigDecimal("516.67")), any());
     }
 
     @Test
     void payInstallment_shouldReturnDto_whenFinalInstallmentIsPaidAndLoanIsCompleted() {
         // Given
         Long loanId = 1L;
-        Loan loan = getLoan(loanId);
         InstallmentDto dto = getInstallmentDto(loanId, new BigDecimal("350"));
-        Customer customer = getCustomer();
-        List<LoanInstallment> installments = new ArrayList<>();
-        installments.add(getLoanInstallment(loan, 9));
+        List<UnpaidInstallmentView> installments = getUnpaidInstallments(1, 1);
 
-
-        when(loanInstallmentRepository.findByLoan_IdAndDueDateBetweenAndIsPaidFalse(any(), any(), any())).thenReturn(installments);
-        when(customerRepository.findByLoans_Id(loanId)).thenReturn(Optional.of(customer));
-        when(loanInstallmentRepository.existsByLoan_IdAndIsPaidFalse(loanId)).thenReturn(Boolean.FALSE);
+        when(loanInstallmentRepository.findUnpaidViewsByLoanIdAndDueDateBetween(any(), any(), any())).thenReturn(installments);
+        when(loanInstallmentRepository.markPaid(eq(List.of(10L)), any(), any())).thenReturn(1);
+        when(customerRepository.releaseCreditLimit(CUSTOMER_ID, new BigDecimal(350))).thenReturn(1);
 
         // When
         PayedInstallmentDto result = installmentPaymentService.payInstallment(dto);
@@ -119,11 +139,46 @@ class InstallmentPaymentServiceTest {
         assertEquals(1, result.getPayedInstallment());
         assertEquals(new BigDecimal(350), result.getTotalAmountSpent());
         assertTrue(result.isLoanPaymentComplate());
-        verify(loanInstallmentRepository).findByLoan_IdAndDueDateBetweenAndIsPaidFalse(any(), any(), any());
-        verify(loanInstallmentRepository).saveAll(any());
-        verify(customerRepository).save(any());
-        verify(loanRepository).save(loan);
-        assertEquals(new BigDecimal(550), customer.getUsedCreditLimit());
+        verify(loanRepository).applyPayment(eq(loanId), eq(1), eq(new BigDecimal(350)), any());
+    }
+
+    @Test
+    void payInstallment_shouldOnlyPayInstallmentsInWindow_whenAmountCoversMore() {
+        // Given
+        Long loanId = 1L;
+        InstallmentDto dto = getInstallmentDto(loanId, new BigDecimal("5000"));
+        List<UnpaidInstallmentView> installments = getUnpaidInstallments(3, 6);
+
+        when(loanInstallmentRepository.findUnpaidViewsByLoanIdAndDueDateBetween(any(), any(), any())).thenReturn(installments);
+        when(loanInstallmentRepository.markPaid(eq(List.of(10L, 11L, 12L)), any(), any())).thenReturn(3);
+        when(customerRepository.releaseCreditLimit(CUSTOMER_ID, new BigDecimal(1050))).thenReturn(1);
+
+        // When
+        PayedInstallmentDto result = installmentPaymentService.payInstallment(dto);
+
+        // Then
+        assertEquals(3, result.getPayedInstallment());
+        assertEquals(new BigDecimal(1050), result.getTotalAmountSpent());
+        assertFalse(result.isLoanPaymentComplate());
+    }
+
+    @Test
+    void payInstallment_shouldThrowOptimisticLockingFailure_whenInstallmentsWerePaidConcurrently() {
+        // Given
+        Long loanId = 1L;
+        InstallmentDto dto = getInstallmentDto(loanId, new BigDecimal("800"));
+        List<UnpaidInstallmentView> installments = getUnpaidInstallments(3, 6);
+
+        when(loanInstallmentRepository.findUnpaidViewsByLoanIdAndDueDateBetween(any(), any(), any())).thenReturn(installments);
+        when(loanInstallmentRepository.markPaid(any(), any(), any())).thenReturn(1);
+
+        // When
+        OptimisticLockingFailureException ex = assertThrows(OptimisticLockingFailureException.class,
+                () -> installmentPaymentService.payInstallment(dto));
+
+        // Then
+        assertEquals("Installments of loan 1 were paid by a concurrent payment", ex.getMessage());
+        verifyNoInteractions(customerRepository, loanRepository);
     }
 
     @Test
@@ -131,7 +186,7 @@ class InstallmentPaymentServiceTest {
         // Given
         Long loanId = 1L;
         InstallmentDto dto = getInstallmentDto(loanId, new BigDecimal("350"));
-        when(loanInstallmentRepository.findByLoan_IdAndDueDateBetweenAndIsPaidFalse(any(), any(), any())).thenThrow(new RuntimeException("DB error"));
+        when(loanInstallmentRepository.findUnpaidViewsByLoanIdAndDueDateBetween(any(), any(), any())).thenThrow(new RuntimeException("DB error"));
 
         // When
         RuntimeException ex = assertThrows(RuntimeException.class, () -> installmentPaymentService.payInstallment(dto));
@@ -143,33 +198,47 @@ class InstallmentPaymentServiceTest {
     void payInstallment_shouldFail_whenCustomerDoesNotExist() {
         // Given
         Long loanId = 1L;
-        Loan loan = getLoan(loanId);
         InstallmentDto dto = getInstallmentDto(loanId, new BigDecimal("400"));
-        List<LoanInstallment> installments = new ArrayList<>();
-        installments.add(getLoanInstallment(loan, 9));
+        List<UnpaidInstallmentView> installments = getUnpaidInstallments(1, 3);
 
-        when(loanInstallmentRepository.findByLoan_IdAndDueDateBetweenAndIsPaidFalse(any(), any(), any())).thenReturn(installments);
-        when(customerRepository.findByLoans_Id(loanId)).thenReturn(Optional.empty());
+        when(loanInstallmentRepository.findUnpaidViewsByLoanIdAndDueDateBetween(any(), any(), any())).thenReturn(installments);
+        when(loanInstallmentRepository.markPaid(any(), any(), any())).thenReturn(1);
+        when(customerRepository.releaseCreditLimit(any(), any())).thenReturn(0);
 
         // When
         CustomerNotFoundException ex = assertThrows(CustomerNotFoundException.class, () -> {
             installmentPaymentService.payInstallment(dto);
         });
-        assertEquals("No customer found", ex.getMessage());
+        assertEquals("Customer with ID " + CUSTOMER_ID + " not found", ex.getMessage());
 
         // Then
-        verify(loanInstallmentRepository).saveAll(any());
+        verify(loanInstallmentRepository).markPaid(any(), any(), any());
+    }
+
+    @Test
+    void payInstallment_shouldThrowOptimisticLockingFailure_whenLoanWasRemovedConcurrently() {
+        // Given
+        Long loanId = 1L;
+        InstallmentDto dto = getInstallmentDto(loanId, new BigDecimal("400"));
+        List<UnpaidInstallmentView> installments = getUnpaidInstallments(1, 3);
+
+        when(loanInstallmentRepository.findUnpaidViewsByLoanIdAndDueDateBetween(any(), any(), any())).thenReturn(installments);
+        when(loanInstallmentRepository.markPaid(any(), any(), any())).thenReturn(1);
+        when(customerRepository.releaseCreditLimit(any(), any())).thenReturn(1);
+        when(loanRepository.applyPayment(any(), anyInt(), any(), any())).thenReturn(0);
+
+        // When / Then
+        assertThrows(OptimisticLockingFailureException.class, () -> installmentPaymentService.payInstallment(dto));
     }
 
     @Test
     void payInstallment_shouldThrowInvalidPaymentAmountException_whenAmountIsTooSmall() {
         // Given
         Long loanId = 1L;
-        Loan loan = getLoan(loanId);
         InstallmentDto dto = getInstallmentDto(loanId, new BigDecimal("100")); // Less than 350
-        List<LoanInstallment> installments = List.of(getLoanInstallment(loan, 9));
+        List<UnpaidInstallmentView> installments = getUnpaidInstallments(1, 3);
 
-        when(loanInstallmentRepository.findByLoan_IdAndDueDateBetweenAndIsPaidFalse(any(), any(), any()))
+        when(loanInstallmentRepository.findUnpaidViewsByLoanIdAndDueDateBetween(any(), any(), any()))
                 .thenReturn(installments);
 
         // When / Then
@@ -178,6 +247,7 @@ class InstallmentPaymentServiceTest {
             installmentPaymentService.payInstallment(dto);
         });
         assertEquals("Amount too small to cover any installment for loan by ID " + loanId, ex.getMessage());
+        verify(loanInstallmentRepository, never()).markPaid(any(), any(), any());
 
     }
 
@@ -186,7 +256,7 @@ class InstallmentPaymentServiceTest {
         // Given
         Long loanId = 1L;
         InstallmentDto dto = getInstallmentDto(loanId, new BigDecimal("400"));
-        when(loanInstallmentRepository.findByLoan_IdAndDueDateBetweenAndIsPaidFalse(any(), any(), any()))
+        when(loanInstallmentRepository.findUnpaidViewsByLoanIdAndDueDateBetween(any(), any(), any()))
                 .thenReturn(Collections.emptyList());
 
         // When / Then
@@ -197,13 +267,6 @@ class InstallmentPaymentServiceTest {
     }
 
 
-    private Customer getCustomer() {
-        Customer customer = new Customer();
-        customer.setId(2L);
-        customer.setUsedCreditLimit(new BigDecimal(900));
-        return customer;
-    }
-
     private InstallmentDto getInstallmentDto(Long loanId, BigDecimal amount) {
         InstallmentDto dto = new InstallmentDto();
         dto.setLoanId(loanId);
@@ -211,18 +274,9 @@ class InstallmentPaymentServiceTest {
         return dto;
     }
 
-    private Loan getLoan(Long loanId) {
-        Loan loan = new Loan();
-        loan.setId(loanId);
-        loan.setLoanAmount(new BigDecimal(3000));
-        return loan;
-    }
-
-    private LoanInstallment getLoanInstallment(Loan loan, int month) {
-        LoanInstallment installment = new LoanInstallment();
-        installment.setAmount(new BigDecimal(350));
-        installment.setDueDate(LocalDate.of(2025, month, 1));
-        installment.setLoan(loan);
-        return installment;
+    private List<UnpaidInstallmentView> getUnpaidInstallments(int inWindow, int remainingInstallments) {
+        return LongStream.range(0, inWindow)
+                .mapToObj(i -> new UnpaidInstallmentView(10L + i, new BigDecimal(350), CUSTOMER_ID, remainingInstallments))
+                .toList();
     }
 }
@@ -0,0 +1,186 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.ArchiveSummary;
+import com.bank.credit.service.dto.CreditCursorPage;
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.dto.LoanFilter;
+import com.bank.credit.service.model.ArchivedLoan;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.repository.ArchivedLoanRepository;
+import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.repository.LoanInstallmentRepository;
+import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.sharding.Shards;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Archives a closed loan and checks that it is still listed and its installments can still be read.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class LoanArchiveServiceTest {
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private InstallmentPaymentService installmentPaymentService;
+
+    @Autowired
+    private LoanInstallmentService loanInstallmentService;
+
+    @Autowired
+    private LoanBalanceRepairService loanBalanceRepairService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Autowired
+    private ArchivedLoanRepository archivedLoanRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Shards shards;
+
+    @Test
+    void archiveClosedLoans_shouldMoveClosedLoans_andKeepThemReadable() {
+        // Given
+        Customer customer = saveCustomer();
+        Long closedLoanId = createLoan(customer.getId(), "2000");
+        Long openLoanId = createLoan(customer.getId(), "1000");
+        closeLoan(closedLoanId);
+        LoanArchiveService archiveService = new LoanArchiveService(loanRepository, loanInstallmentRepository,
+                archivedLoanRepository, transactionManager, shards, Duration.ZERO, 2);
+
+        // When
+        ArchiveSummary summary = archiveService.archiveClosedLoans();
+
+        // Then
+        assertTrue(summary.loansArchived() >= 1);
+        assertTrue(loanRepository.findById(closedLoanId).isEmpty());
+        assertTrue(loanInstallmentRepository.findByLoan_Id(closedLoanId).isEmpty());
+        assertTrue(loanRepository.findById(openLoanId).isPresent());
+        ArchivedLoan archived = archivedLoanRepository.findById(closedLoanId).orElseThrow();
+        assertEquals(6, archived.getInstallmentCount());
+        assertTrue(archived.isPaid());
+        assertEquals(0, archived.getInstallmentTotal().compareTo(archived.getPaidTotal()));
+
+        Page<CreditDto> page = creditService.getLoanByCustomer(
+                LoanFilter.builder().customerId(customer.getId()).build(),
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "loanAmount")));
+        assertEquals(2, page.getTotalElements());
+        assertEquals(List.of(closedLoanId, openLoanId), page.getContent().stream().map(CreditDto::getId).toList());
+        assertEquals(0, page.getContent().get(0).getRemainingInstallments());
+
+        Page<CreditDto> byOutstanding = creditService.getLoanByCustomer(
+                LoanFilter.builder().customerId(customer.getId()).build(),
+                PageRequest.of(1, 1, Sort.by("outstandingAmount")));
+        assertEquals(2, byOutstanding.getTotalElements());
+        assertEquals(List.of(openLoanId), byOutstanding.getContent().stream().map(CreditDto::getId).toList());
+
+        Page<CreditDto> unpaid = creditService.getLoanByCustomer(
+                LoanFilter.builder().customerId(customer.getId()).isPaid(false).build(), PageRequest.of(0, 10));
+        assertEquals(List.of(openLoanId), unpaid.getContent().stream().map(CreditDto::getId).toList());
+
+        LoanFilter all = LoanFilter.builder().customerId(customer.getId()).build();
+        CreditCursorPage first = creditService.getLoanByCustomer(all, null, 1, Sort.Direction.ASC);
+        CreditCursorPage second = creditService.getLoanByCustomer(all, first.nextToken(), 1, Sort.Direction.ASC);
+        assertEquals(openLoanId, first.content().get(0).getId());
+        assertEquals(closedLoanId, second.content().get(0).getId());
+        assertNull(second.nextToken());
+
+        List<InstallmentDto> installments = loanInstallmentService.getByLoan(closedLoanId);
+        assertEquals(1, installments.size());
+        assertTrue(installments.get(0).isPaid());
+        Map<Long, List<InstallmentDto>> byLoan = loanInstallmentService.getByCustomer(customer.getId());
+        assertEquals(List.of(closedLoanId, openLoanId).stream().sorted().toList(), List.copyOf(byLoan.keySet()));
+    }
+
+    @Test
+    void archiveClosedLoans_shouldKeepLoans_whenClosedMoreRecentlyThanMinAge() {
+        // Given
+        Customer customer = saveCustomer();
+        Long loanId = createLoan(customer.getId(), "1000");
+        closeLoan(loanId);
+        LoanArchiveService archiveService = new LoanArchiveService(loanRepository, loanInstallmentRepository,
+                archivedLoanRepository, transactionManager, shards, Duration.ofDays(1), 2);
+
+        // When
+        archiveService.archiveClosedLoans();
+
+        // Then
+        assertTrue(loanRepository.findById(loanId).isPresent());
+        assertFalse(archivedLoanRepository.existsById(loanId));
+    }
+
+    @Test
+    void archiveClosedLoans_shouldSkipLoanWithoutInstallments_andArchiveTheRest() {
+        // Given
+        Customer customer = saveCustomer();
+        Long emptyLoanId = createLoan(customer.getId(), "1000");
+        Long loanId = createLoan(customer.getId(), "2000");
+        closeLoan(emptyLoanId);
+        closeLoan(loanId);
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> loanInstallmentRepository.deleteAllByLoanIdIn(List.of(emptyLoanId)));
+        LoanArchiveService archiveService = new LoanArchiveService(loanRepository, loanInstallmentRepository,
+                archivedLoanRepository, transactionManager, shards, Duration.ZERO, 1);
+
+        // When
+        archiveService.archiveClosedLoans();
+
+        // Then
+        assertTrue(loanRepository.findById(emptyLoanId).isPresent());
+        assertFalse(archivedLoanRepository.existsById(emptyLoanId));
+        assertTrue(loanRepository.findById(loanId).isEmpty());
+        assertTrue(archivedLoanRepository.existsById(loanId));
+    }
+
+    private void closeLoan(Long loanId) {
+        loanInstallmentRepository.findByLoan_Id(loanId).stream()
+                .skip(1)
+                .forEach(installment -> {
+                    installment.setPaid(true);
+                    installment.setPaidAmount(installment.getAmount());
+                    loanInstallmentRepository.save(installment);
+                });
+        loanBalanceRepairService.repairAll();
+        InstallmentDto payment = new InstallmentDto();
+        payment.setLoanId(loanId);
+        payment.setAmount(new BigDecimal("5000"));
+        assertTrue(installmentPaymentService.payInstallment(payment).isLoanPaymentComplate());
+    }
+
+    private Customer saveCustomer() {
+        return customerRepository.save(new Customer("name", "surname", new BigDecimal("1000000"), BigDecimal.ZERO, null));
+    }
+
+    private Long createLoan(Long customerId, String loanAmount) {
+        return creditService.create(new CreditDto(null, customerId, new BigDecimal(loanAmount), 6, new BigDecimal("0.1"))).getId();
+    }
+}
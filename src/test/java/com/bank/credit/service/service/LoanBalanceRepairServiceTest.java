@@ -0,0 +1,121 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.BalanceRepairSummary;
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.model.Loan;
+import com.bank.credit.service.model.LoanInstallment;
+import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.repository.LoanInstallmentRepository;
+import com.bank.credit.service.repository.LoanRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "credit.repair.chunk-size=2",
+        "credit.repair.parallelism=3"
+})
+class LoanBalanceRepairServiceTest {
+
+    @Autowired
+    private LoanBalanceRepairService loanBalanceRepairService;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Test
+    void create_shouldInitializeRunningBalance() {
+        // Given
+        Customer customer = saveCustomer();
+
+        // When
+        CreditDto credit = creditService.create(new CreditDto(null, customer.getId(), new BigDecimal("1000"), 6, new BigDecimal("0.2")));
+
+        // Then
+        assertEquals(6, credit.getRemainingInstallments());
+        assertEquals(new BigDecimal("1200.00"), credit.getOutstandingAmount());
+        assertEquals(firstInstallment(credit.getId()).getDueDate(), credit.getNextDueDate());
+    }
+
+    @Test
+    void repairAll_shouldRecomputeBalanceFromInstallments() {
+        // Given
+        Customer customer = saveCustomer();
+        List<Long> loanIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            loanIds.add(creditService.create(new CreditDto(null, customer.getId(), new BigDecimal("1200"), 12, new BigDecimal("0.1"))).getId());
+        }
+        Long partlyPaid = loanIds.get(0);
+        Long fullyPaid = loanIds.get(1);
+        markInstallmentsPaid(partlyPaid, 4);
+        markInstallmentsPaid(fullyPaid, 12);
+
+        // When
+        BalanceRepairSummary summary = loanBalanceRepairService.repairAll();
+
+        // Then
+        assertTrue(summary.loansRepaired() >= 5);
+        assertTrue(summary.chunks() >= 3);
+
+        Loan partly = loanRepository.findById(partlyPaid).orElseThrow();
+        assertEquals(8, partly.getRemainingInstallments());
+        assertEquals(new BigDecimal("880.00"), partly.getOutstandingAmount());
+        assertEquals(firstUnpaidInstallment(partlyPaid).getDueDate(), partly.getNextDueDate());
+        assertFalse(partly.isPaid());
+
+        Loan full = loanRepository.findById(fullyPaid).orElseThrow();
+        assertEquals(0, full.getRemainingInstallments());
+        assertEquals(0, BigDecimal.ZERO.compareTo(full.getOutstandingAmount()));
+        assertNull(full.getNextDueDate());
+        assertTrue(full.isPaid());
+
+        Loan untouched = loanRepository.findById(loanIds.get(2)).orElseThrow();
+        assertEquals(12, untouched.getRemainingInstallments());
+        assertEquals(new BigDecimal("1320.00"), untouched.getOutstandingAmount());
+    }
+
+    private Customer saveCustomer() {
+        return customerRepository.save(new Customer("name", "surname", new BigDecimal("1000000"), BigDecimal.ZERO, null));
+    }
+
+    private void markInstallmentsPaid(Long loanId, int count) {
+        sortedInstallments(loanId).stream()
+                .limit(count)
+                .forEach(installment -> {
+                    installment.setPaid(true);
+                    loanInstallmentRepository.save(installment);
+                });
+    }
+
+    private LoanInstallment firstInstallment(Long loanId) {
+        return sortedInstallments(loanId).get(0);
+    }
+
+    private LoanInstallment firstUnpaidInstallment(Long loanId) {
+        return sortedInstallments(loanId).stream().filter(i -> !i.isPaid()).findFirst().orElseThrow();
+    }
+
+    private List<LoanInstallment> sortedInstallments(Long loanId) {
+        return loanInstallmentRepository.findByLoan_Id(loanId).stream()
+                .sorted(Comparator.comparing(LoanInstallment::getDueDate))
+                .toList();
+    }
+}
@@ -0,0 +1,72 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.repository.CustomerRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures how many JDBC statements {@link CreditService#create(CreditDto)} prepares per loan
+ * and the resulting loans/sec for the supported schedule lengths.
+ * <p>
+ * With pooled sequence ids and JDBC batching a loan and its whole schedule are written with
+ * one batched insert per table, so the statement count must not grow with the number of installments.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class LoanCreationBatchingTest {
+
+    private static final int WARM_UP_LOANS = 50;
+    private static final int MEASURED_LOANS = 200;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @ParameterizedTest
+    @ValueSource(ints = {6, 12, 24})
+    void create_shouldNotPrepareOneStatementPerInstallment(int numberOfInstallment) {
+        // Given
+        Customer customer = customerRepository.save(
+                new Customer("bench", "customer", new BigDecimal("1000000000"), BigDecimal.ZERO, null));
+        CreditDto dto = new CreditDto(null, customer.getId(), new BigDecimal("1000"), numberOfInstallment, new BigDecimal("0.1"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (int i = 0; i < WARM_UP_LOANS; i++) {
+            creditService.create(dto);
+        }
+        statistics.clear();
+
+        // When
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_LOANS; i++) {
+            creditService.create(dto);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        // Then
+        double statementsPerLoan = (double) statistics.getPrepareStatementCount() / MEASURED_LOANS;
+        double loansPerSecond = MEASURED_LOANS / (elapsedNanos / 1_000_000_000d);
+        log.info("{} installments: {} statements/loan, {} loans/sec",
+                numberOfInstallment, String.format("%.2f", statementsPerLoan), String.format("%.0f", loansPerSecond));
+        assertTrue(statementsPerLoan < 6, "expected batched inserts but got " + statementsPerLoan + " statements per loan");
+    }
+}
@@ -0,0 +1,131 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.repository.CustomerRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class LoanExportServiceTest {
+
+    @Autowired
+    private LoanExportService loanExportService;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private InstallmentPaymentService installmentPaymentService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void export_shouldWriteOneLinePerLoan_withInstallmentsInline() throws Exception {
+        // Given
+        Customer customer = saveCustomer();
+        CreditDto first = createLoan(customer.getId(), 6);
+        CreditDto second = createLoan(customer.getId(), 12);
+        installmentPaymentService.payInstallment(payment(first.getId(), "200"));
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = loanExportService.export(customer.getId(), out);
+
+        // Then
+        List<JsonNode> lines = readLines(out);
+        assertEquals(2, exported);
+        assertEquals(2, lines.size());
+
+        JsonNode firstLine = lines.get(0);
+        assertEquals(first.getId(), firstLine.get("id").asLong());
+        assertEquals(customer.getId(), firstLine.get("customerId").asLong());
+        assertEquals(5, firstLine.get("remainingInstallments").asInt());
+        assertEquals(6, firstLine.get("installments").size());
+        assertTrue(firstLine.get("installments").get(0).get("paid").asBoolean());
+        assertFalse(firstLine.get("installments").get(1).get("paid").asBoolean());
+        assertEquals(first.getId(), firstLine.get("installments").get(0).get("loanId").asLong());
+
+        JsonNode secondLine = lines.get(1);
+        assertEquals(second.getId(), secondLine.get("id").asLong());
+        assertEquals(12, secondLine.get("installments").size());
+        String previousDueDate = "";
+        for (JsonNode installment : secondLine.get("installments")) {
+            assertTrue(installment.get("dueDate").asText().compareTo(previousDueDate) > 0);
+            previousDueDate = installment.get("dueDate").asText();
+        }
+    }
+
+    @Test
+    void export_shouldIncludeAllCustomers_whenNoCustomerIsGiven() throws Exception {
+        // Given
+        Long loanOfFirstCustomer = createLoan(saveCustomer().getId(), 6).getId();
+        Long loanOfSecondCustomer = createLoan(saveCustomer().getId(), 9).getId();
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = loanExportService.export(null, out);
+
+        // Then
+        List<Long> ids = readLines(out).stream().map(line -> line.get("id").asLong()).toList();
+        assertEquals(exported, ids.size());
+        assertTrue(ids.contains(loanOfFirstCustomer));
+        assertTrue(ids.contains(loanOfSecondCustomer));
+        assertEquals(ids.stream().sorted().toList(), ids);
+    }
+
+    @Test
+    void export_shouldWriteNothing_whenCustomerHasNoLoans() throws Exception {
+        // Given
+        Customer customer = saveCustomer();
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = loanExportService.export(customer.getId(), out);
+
+        // Then
+        assertEquals(0, exported);
+        assertEquals(0, out.size());
+    }
+
+    private List<JsonNode> readLines(ByteArrayOutputStream out) throws Exception {
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private Customer saveCustomer() {
+        return customerRepository.save(new Customer("name", "surname", new BigDecimal("1000000"), BigDecimal.ZERO, null));
+    }
+
+    private CreditDto createLoan(Long customerId, int numberOfInstallment) {
+        return creditService.create(new CreditDto(null, customerId, new BigDecimal("1000"), numberOfInstallment, new BigDecimal("0.2")));
+    }
+
+    private static InstallmentDto payment(Long loanId, String amount) {
+        InstallmentDto dto = new InstallmentDto();
+        dto.setLoanId(loanId);
+        dto.setAmount(new BigDecimal(amount));
+        return dto;
+    }
+}
@@ -1,20 +1,30 @@
 package com.bank.credit.service.service;
 
+import com.bank.credit.service.datasource.ReadYourWrites;
 import com.bank.credit.service.dto.InstallmentDto;
 import com.bank.credit.service.mapper.InstallmentMapper;
 import com.bank.credit.service.model.Customer;
 import com.bank.credit.service.model.Loan;
 import com.bank.credit.service.model.LoanInstallment;
+import com.bank.credit.service.repository.ArchivedLoanRepository;
 import com.bank.credit.service.repository.LoanInstallmentRepository;
+import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.util.AmortizationMethod;
 import com.bank.credit.service.util.LoanCalculator;
+import com.bank.credit.service.sharding.ShardingProperties;
+import com.bank.credit.service.sharding.Shards;
+import org.springframework.transaction.PlatformTransactionManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -22,14 +32,19 @@ import static org.mockito.Mockito.*;
 class LoanInstallmentServiceTest {
 
     private LoanInstallmentRepository loanInstallmentRepository;
-    private InstallmentMapper installmentMapper;
+    private ArchivedLoanRepository archivedLoanRepository;
+    private ScheduleTemplates scheduleTemplates;
     private LoanInstallmentService loanInstallmentService;
 
     @BeforeEach
     void setUp() {
         loanInstallmentRepository = mock(LoanInstallmentRepository.class);
-        installmentMapper = mock(InstallmentMapper.class);
-        loanInstallmentService = new LoanInstallmentService(loanInstallmentRepository, installmentMapper);
+        archivedLoanRepository = mock(ArchivedLoanRepository.class);
+        scheduleTemplates = new ScheduleTemplates(new SimpleMeterRegistry(), 100);
+        loanInstallmentService = new LoanInstallmentService(loanInstallmentRepository, mock(LoanRepository.class),
+                archivedLoanRepository, Mappers.getMapper(InstallmentMapper.class), scheduleTemplates, mock(ReadYourWrites.class),
+                new Shards(new ShardingProperties(false, 0, List.of())), mock(PlatformTransactionManager.class), 2,
+                InstallmentStorage.ROWS);
     }
 
     @Test
@@ -59,65 +74,174 @@ class LoanInstallmentServiceTest {
     }
 
     @Test
-    void getByLoan_shouldReturnMappedInstallments_whenInstallmentsExist() {
+    void buildLoanInstallments_shouldShareTemplates_andReturnNewInstallmentsPerLoan() {
         // Given
-        Long loanId = 1L;
-        List<LoanInstallment> installments = List.of(
-                getLoanInstallment(9),
-                getLoanInstallment(10)
-        );
+        Customer customer = new Customer("name", "surname", new BigDecimal("10000"), new BigDecimal("1000"), null);
+        Loan first = getLoan(customer);
+        Loan second = getLoan(customer);
+
+        // When
+        List<LoanInstallment> firstInstallments = loanInstallmentService.buildLoanInstallments(first);
+        List<LoanInstallment> secondInstallments = loanInstallmentService.buildLoanInstallments(second);
+
+        // Then
+        assertSame(scheduleTemplates.dueDates(LocalDate.now(), 9), scheduleTemplates.dueDates(LocalDate.now(), 9));
+        assertSame(firstInstallments.get(0).getAmount(), secondInstallments.get(0).getAmount());
+        assertNotSame(firstInstallments.get(0), secondInstallments.get(0));
+        assertEquals(firstInstallments.stream().map(LoanInstallment::getDueDate).toList(),
+                secondInstallments.stream().map(LoanInstallment::getDueDate).toList());
+        assertTrue(secondInstallments.stream().allMatch(i -> i.getLoan() == second));
+    }
+
+    @Test
+    void scheduleInstallments_shouldStoreAmortizedPayments_whenLoanIsNotFlat() {
+        // Given
+        Customer customer = new Customer("name", "surname", new BigDecimal("20000"), BigDecimal.ZERO, null);
+        Loan loan = getLoan(customer);
+        loan.setInterestRate(new BigDecimal("0.12"));
+        loan.setAmortizationMethod(AmortizationMethod.DECLINING_BALANCE);
+        BigDecimal principal = new BigDecimal("10000");
+        loan.setLoanAmount(AmortizationMethod.DECLINING_BALANCE.totalRepayment(principal, loan.getInterestRate(), 9));
+
+        // When
+        loanInstallmentService.scheduleInstallments(loan, principal);
+
+        // Then
+        List<LoanInstallment> installments = loan.getInstallments();
+        assertEquals(9, installments.size());
+        assertEquals(new BigDecimal("1211.11"), installments.get(0).getAmount());
+        assertTrue(installments.get(8).getAmount().compareTo(installments.get(0).getAmount()) < 0);
+        assertEquals(scheduleTemplates.dueDates(LocalDate.now(), 9), installments.stream().map(LoanInstallment::getDueDate).toList());
+        assertEquals(0, loan.getLoanAmount().compareTo(loan.getOutstandingAmount()));
+    }
 
+    @Test
+    void getByLoan_shouldReturnInstallments_whenInstallmentsExist() {
+        // Given
+        Long loanId = 1L;
         List<InstallmentDto> expectedDtos = List.of(
                 getInstallmentDto(loanId, new BigDecimal("350")),
                 getInstallmentDto(loanId, new BigDecimal("350"))
         );
 
-        when(loanInstallmentRepository.findByLoan_Id(loanId)).thenReturn(installments);
-        when(installmentMapper.toDtoList(installments)).thenReturn(expectedDtos);
+        when(loanInstallmentRepository.findDtosByLoanId(loanId)).thenReturn(expectedDtos);
 
         // When
         List<InstallmentDto> result = loanInstallmentService.getByLoan(loanId);
 
         // Then
         assertEquals(expectedDtos, result);
-        verify(loanInstallmentRepository).findByLoan_Id(loanId);
-        verify(installmentMapper).toDtoList(installments);
+        verify(loanInstallmentRepository).findDtosByLoanId(loanId);
+        verify(loanInstallmentRepository, never()).findByLoan_Id(any());
     }
 
     @Test
     void getByLoan_shouldReturnEmptyList_whenNoInstallmentsExist() {
         // Given
         Long loanId = 2L;
-        List<LoanInstallment> emptyInstallments = Collections.emptyList();
-
-        when(loanInstallmentRepository.findByLoan_Id(loanId)).thenReturn(emptyInstallments);
-        when(installmentMapper.toDtoList(emptyInstallments)).thenReturn(Collections.emptyList());
+        when(loanInstallmentRepository.findDtosByLoanId(loanId)).thenReturn(Collections.emptyList());
 
         // When
         List<InstallmentDto> result = loanInstallmentService.getByLoan(loanId);
 
         // Then
         assertTrue(result.isEmpty());
-        verify(loanInstallmentRepository).findByLoan_Id(loanId);
-        verify(installmentMapper).toDtoList(emptyInstallments);
+        verify(loanInstallmentRepository).findDtosByLoanId(loanId);
+    }
+
+    @Test
+    void getByLoan_shouldReturnArchivedSummary_whenLoanIsArchived() {
+        // Given
+        Long loanId = 3L;
+        List<InstallmentDto> summary = List.of(getInstallmentDto(loanId, new BigDecimal("1100")));
+        when(loanInstallmentRepository.findDtosByLoanId(loanId)).thenReturn(Collections.emptyList());
+        when(archivedLoanRepository.findInstallmentSummariesByIdIn(List.of(loanId))).thenReturn(summary);
+
+        // When
+        List<InstallmentDto> result = loanInstallmentService.getByLoan(loanId);
+
+        // Then
+        assertEquals(summary, result);
     }
 
     @Test
     void getByLoan_shouldThrowException_whenRepositoryFails() {
         // Given
         Long loanId = 1L;
-        when(loanInstallmentRepository.findByLoan_Id(loanId)).thenThrow(new RuntimeException("DB error"));
+        when(loanInstallmentRepository.findDtosByLoanId(loanId)).thenThrow(new RuntimeException("DB error"));
 
         // When / Then
         assertThrows(RuntimeException.class, () -> loanInstallmentService.getByLoan(loanId));
     }
 
 
-    private LoanInstallment getLoanInstallment(int month) {
-        LoanInstallment inst = new LoanInstallment();
-        inst.setAmount(new BigDecimal("350"));
-        inst.setDueDate(LocalDate.of(2025, month, 1));
-        return inst;
+    @Test
+    void getByLoans_shouldQueryInChunks_andGroupByLoanInRequestOrder() {
+        // Given
+        when(loanInstallmentRepository.findDtosByLoanIdIn(List.of(5L, 3L))).thenReturn(List.of(
+                getInstallmentDto(3L, new BigDecimal("100")),
+                getInstallmentDto(5L, new BigDecimal("200")),
+                getInstallmentDto(5L, new BigDecimal("200"))));
+        when(loanInstallmentRepository.findDtosByLoanIdIn(List.of(1L, 4L))).thenReturn(List.of(
+                getInstallmentDto(1L, new BigDecimal("300"))));
+        when(loanInstallmentRepository.findDtosByLoanIdIn(List.of(2L))).thenReturn(List.of());
+
+        // When
+        Map<Long, List<InstallmentDto>> result = loanInstallmentService.getByLoans(List.of(5L, 3L, 1L, 3L, 4L, 2L));
+
+        // Then
+        assertEquals(List.of(5L, 3L, 1L), List.copyOf(result.keySet()));
+        assertEquals(2, result.get(5L).size());
+        assertEquals(1, result.get(3L).size());
+        verify(loanInstallmentRepository, times(3)).findDtosByLoanIdIn(any());
+        verify(archivedLoanRepository).findInstallmentSummariesByIdIn(List.of(4L, 2L));
+    }
+
+    @Test
+    void getByLoans_shouldNotQueryArchive_whenAllLoansAreOpen() {
+        // Given
+        when(loanInstallmentRepository.findDtosByLoanIdIn(List.of(1L))).thenReturn(List.of(
+                getInstallmentDto(1L, new BigDecimal("300"))));
+
+        // When
+        Map<Long, List<InstallmentDto>> result = loanInstallmentService.getByLoans(List.of(1L));
+
+        // Then
+        assertEquals(List.of(1L), List.copyOf(result.keySet()));
+        verifyNoInteractions(archivedLoanRepository);
+    }
+
+    @Test
+    void getByCustomer_shouldGroupInstallmentsByLoan() {
+        // Given
+        when(loanInstallmentRepository.findDtosByCustomerId(7L)).thenReturn(List.of(
+                getInstallmentDto(1L, new BigDecimal("100")),
+                getInstallmentDto(1L, new BigDecimal("100")),
+                getInstallmentDto(2L, new BigDecimal("200"))));
+
+        // When
+        Map<Long, List<InstallmentDto>> result = loanInstallmentService.getByCustomer(7L);
+
+        // Then
+        assertEquals(List.of(1L, 2L), List.copyOf(result.keySet()));
+        assertEquals(2, result.get(1L).size());
+        assertEquals(1, result.get(2L).size());
+    }
+
+    @Test
+    void getByCustomer_shouldMergeArchivedSummaries_inLoanOrder() {
+        // Given
+        when(loanInstallmentRepository.findDtosByCustomerId(7L)).thenReturn(List.of(
+                getInstallmentDto(4L, new BigDecimal("100"))));
+        when(archivedLoanRepository.findInstallmentSummariesByCustomerId(7L)).thenReturn(List.of(
+                getInstallmentDto(2L, new BigDecimal("600")),
+                getInstallmentDto(6L, new BigDecimal("900"))));
+
+        // When
+        Map<Long, List<InstallmentDto>> result = loanInstallmentService.getByCustomer(7L);
+
+        // Then
+        assertEquals(List.of(2L, 4L, 6L), List.copyOf(result.keySet()));
     }
 
     private InstallmentDto getInstallmentDto(Long loanId, BigDecimal amount) {
@@ -0,0 +1,128 @@
+package com.bank.credit.service.service;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.LoanFilter;
+import com.bank.credit.service.mapper.LoanMapper;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.model.Loan;
+import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.repository.LoanRepository;
+import com.bank.credit.service.specification.LoanSpecifications;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the entity read path (load managed loans, then map them) with the DTO projection for a
+ * customer with 10k loans. Allocated bytes are measured per thread, the numbers are logged.
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class LoanReadProjectionComparisonTest {
+
+    private static final int LOANS = 10_000;
+    private static final long FIRST_LOAN_ID = 50_000_000L;
+    private static final int WARMUP = 3;
+    private static final int RUNS = 5;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanMapper loanMapper;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void projection_shouldAllocateLessThanEntityPath_forTenThousandLoans() {
+        // Given
+        Long customerId = seedLoans();
+        LoanFilter filter = LoanFilter.builder().customerId(customerId).isPaid(false).build();
+        Pageable pageable = PageRequest.of(0, LOANS, Sort.by("loanAmount"));
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Supplier<Page<CreditDto>> entityPath = () -> readOnly.execute(status -> loanRepository
+                .findAll(LoanSpecifications.hasCustomerId(customerId).and(LoanSpecifications.isPaid(false)), pageable)
+                .map(loanMapper::toDto));
+        Supplier<Page<CreditDto>> projectionPath = () -> creditService.getLoanByCustomer(filter, pageable);
+
+        // When
+        Measurement entity = measure(entityPath);
+        Measurement projection = measure(projectionPath);
+
+        // Then
+        log.info("Loan listing of {} loans, entity path: {}", LOANS, entity);
+        log.info("Loan listing of {} loans, DTO projection: {}", LOANS, projection);
+        assertEquals(LOANS, projectionPath.get().getContent().size());
+        assertTrue(projection.allocatedBytes() < entity.allocatedBytes(),
+                "projection allocated " + projection + ", entity path " + entity);
+    }
+
+    private Long seedLoans() {
+        Customer customer = customerRepository.save(new Customer("name", "surname", new BigDecimal("100000000"), BigDecimal.ZERO, null));
+        List<Object[]> rows = new ArrayList<>(LOANS);
+        for (int i = 0; i < LOANS; i++) {
+            rows.add(new Object[]{FIRST_LOAN_ID + i, customer.getId(), new BigDecimal(1000 + i % 500), 12,
+                    new BigDecimal("0.1"), 12, new BigDecimal(1100 + i % 500), 0L});
+        }
+        jdbcTemplate.batchUpdate("insert into loan (id, customer_id, loan_amount, number_of_installment, interest_rate, " +
+                "is_paid, remaining_installments, outstanding_amount, version) values (?, ?, ?, ?, ?, false, ?, ?, ?)", rows);
+        return customer.getId();
+    }
+
+    private static Measurement measure(Supplier<Page<CreditDto>> read) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) {
+            read.get();
+        }
+        long[] bytes = new long[RUNS];
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            read.get();
+            nanos[i] = System.nanoTime() - start;
+            bytes[i] = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        }
+        Arrays.sort(bytes);
+        Arrays.sort(nanos);
+        return new Measurement(bytes[RUNS / 2], nanos[RUNS / 2] / 1_000_000.0);
+    }
+
+    private record Measurement(long allocatedBytes, double millis) {
+
+        @Override
+        public String toString() {
+            return String.format("%.1f MB allocated, %.1f ms (median of %d runs)", allocatedBytes / 1_048_576.0, millis, RUNS);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.bank.credit.service.service.aop;
+
+import com.bank.credit.service.service.ScheduleTemplates;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoggingAspectTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ScheduleTemplates scheduleTemplates = proxy(new ScheduleTemplates(new SimpleMeterRegistry(), 10));
+
+    @Test
+    void recordExecutionTime_shouldTimeEveryCallOfAServiceMethod() {
+        // When
+        scheduleTemplates.installmentAmount(new BigDecimal("1200"), 6);
+        scheduleTemplates.installmentAmount(new BigDecimal("1200"), 12);
+
+        // Then
+        Timer timer = meterRegistry.get(LoggingAspect.METRIC)
+                .tags("class", "ScheduleTemplates", "method", "installmentAmount", "exception", "none")
+                .timer();
+        assertEquals(2, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    @Test
+    void recordExecutionTime_shouldTagTheException_whenTheMethodFails() {
+        // When
+        assertThrows(ArithmeticException.class, () -> scheduleTemplates.installmentAmount(new BigDecimal("1200"), 0));
+
+        // Then
+        Timer timer = meterRegistry.get(LoggingAspect.METRIC)
+                .tags("method", "installmentAmount", "exception", "ArithmeticException")
+                .timer();
+        assertEquals(1, timer.count());
+        assertNull(meterRegistry.find(LoggingAspect.METRIC).tag("exception", "none").timer());
+    }
+
+    private ScheduleTemplates proxy(ScheduleTemplates target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new LoggingAspect(meterRegistry));
+        return factory.getProxy();
+    }
+}
@@ -0,0 +1,79 @@
+package com.bank.credit.service.service.aop;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.dto.PayedInstallmentDto;
+import com.bank.credit.service.model.Customer;
+import com.bank.credit.service.repository.CustomerRepository;
+import com.bank.credit.service.repository.LoanInstallmentRepository;
+import com.bank.credit.service.service.CreditService;
+import com.bank.credit.service.service.InstallmentPaymentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mockingDetails;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class RetryOnConflictAspectTest {
+
+    @Autowired
+    private InstallmentPaymentService installmentPaymentService;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @MockitoSpyBean
+    private LoanInstallmentRepository loanInstallmentRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void payInstallment_shouldBeRetriedInNewTransaction_whenBulkUpdateLosesRace() {
+        // Given
+        Customer customer = saveCustomer();
+        Long loanId = creditService.create(new CreditDto(null, customer.getId(), new BigDecimal("1000"), 6, new BigDecimal("0.1"))).getId();
+        BigDecimal usedBefore = customerRepository.findById(customer.getId()).orElseThrow().getUsedCreditLimit();
+        double retriesBefore = count("credit.retries");
+        // the first bulk update reports that another payment got there first, later calls reach the database
+        Answer<?> database = mockingDetails(loanInstallmentRepository).getMockCreationSettings().getDefaultAnswer();
+        doReturn(0).doAnswer(database).when(loanInstallmentRepository).markPaid(any(), any(), any());
+
+        // When
+        PayedInstallmentDto result = installmentPaymentService.payInstallment(payment(loanId));
+
+        // Then
+        assertEquals(1, result.getPayedInstallment());
+        assertEquals(retriesBefore + 1, count("credit.retries"));
+        BigDecimal usedAfter = customerRepository.findById(customer.getId()).orElseThrow().getUsedCreditLimit();
+        assertEquals(0, usedBefore.subtract(result.getTotalAmountSpent()).compareTo(usedAfter));
+    }
+
+    private double count(String metric) {
+        var counter = meterRegistry.find(metric).tag("method", "InstallmentPaymentService.payInstallment").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private Customer saveCustomer() {
+        return customerRepository.save(new Customer("name", "surname", new BigDecimal("10000"), BigDecimal.ZERO, null));
+    }
+
+    private static InstallmentDto payment(Long loanId) {
+        InstallmentDto dto = new InstallmentDto();
+        dto.setLoanId(loanId);
+        dto.setAmount(new BigDecimal("200"));
+        return dto;
+    }
+}
@@ -0,0 +1,81 @@
+package com.bank.credit.service.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardIdTest {
+
+    private final ShardId.Generator generator = new ShardId.Generator(0);
+
+    @Test
+    void next_shouldEncodeShardAndCreationTime() {
+        // When
+        long id = generator.next(5);
+
+        // Then
+        assertEquals(5, ShardId.shardOf(id));
+        assertTrue(Duration.between(ShardId.timestampOf(id), Instant.now()).abs().toSeconds() < 5);
+    }
+
+    @Test
+    void shardOf_shouldReturnShardZero_forLegacySequenceIds() {
+        // 17 has the shard bits of shard 1, but was handed out by the customer sequence before V4
+        assertEquals(0, ShardId.shardOf(17));
+        assertEquals(0, ShardId.shardOf(123_456_789L));
+        assertTrue(generator.next(0) > ShardId.FIRST_GENERATED_ID);
+    }
+
+    @Test
+    void next_shouldBeIncreasing_acrossShards() {
+        // Given
+        long previous = generator.next(0);
+
+        for (int i = 0; i < 10_000; i++) {
+            // When
+            long id = generator.next(i % 3);
+
+            // Then
+            assertTrue(id > previous, "ids must be time-ordered");
+            previous = id;
+        }
+    }
+
+    @Test
+    void next_shouldBeUnique_whenGeneratedInParallel() {
+        // Given
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        // When
+        IntStream.range(0, 50_000).parallel().forEach(i -> ids.add(generator.next(1)));
+
+        // Then
+        assertEquals(50_000, ids.size());
+    }
+
+    @Test
+    void next_shouldEncodeNode_ofItsGenerator() {
+        // Given
+        ShardId.Generator node3 = new ShardId.Generator(3);
+
+        // When
+        long id = node3.next(5);
+
+        // Then
+        assertEquals(3, id & (ShardId.MAX_NODES - 1));
+        assertEquals(5, ShardId.shardOf(id));
+        assertEquals(0, generator.next(5) & (ShardId.MAX_NODES - 1));
+    }
+
+    @Test
+    void next_shouldRejectShard_whenOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> generator.next(ShardId.MAX_SHARDS));
+        assertThrows(IllegalArgumentException.class, () -> new ShardId.Generator(ShardId.MAX_NODES));
+    }
+}
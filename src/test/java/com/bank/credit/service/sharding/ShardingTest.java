@@ -0,0 +1,150 @@
+package com.bank.credit.service.sharding;
+
+import com.bank.credit.service.dto.CreditDto;
+import com.bank.credit.service.dto.CustomerDto;
+import com.bank.credit.service.dto.InstallmentDto;
+import com.bank.credit.service.dto.LoanFilter;
+import com.bank.credit.service.service.CreditService;
+import com.bank.credit.service.service.CustomerService;
+import com.bank.credit.service.service.InstallmentPaymentService;
+import com.bank.credit.service.service.LoanBalanceRepairService;
+import com.bank.credit.service.service.LoanExportService;
+import com.bank.credit.service.service.LoanInstallmentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Spreads customers over two H2 databases and checks that their loans and installments stay in their shard
+ * and that cross-customer reads gather them from both.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=" + ShardingTest.SHARD_0_URL,
+        "credit.sharding.enabled=true",
+        "credit.sharding.shards[0].url=" + ShardingTest.SHARD_1_URL,
+        "credit.sharding.shards[0].username=admin",
+        "credit.sharding.shards[0].password=admin"
+})
+class ShardingTest {
+
+    static final String SHARD_0_URL = "jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1";
+    static final String SHARD_1_URL = "jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CreditService creditService;
+
+    @Autowired
+    private InstallmentPaymentService installmentPaymentService;
+
+    @Autowired
+    private LoanInstallmentService loanInstallmentService;
+
+    @Autowired
+    private LoanExportService loanExportService;
+
+    @Autowired
+    private LoanBalanceRepairService loanBalanceRepairService;
+
+    @Autowired
+    private Shards shards;
+
+    @Test
+    void customers_shouldBeSpreadOverShards_withTheirLoansAndInstallments() {
+        // When
+        List<Long> customerIds = List.of(createCustomer(), createCustomer());
+        List<Long> loanIds = customerIds.stream().map(this::createLoan).toList();
+
+        // Then
+        assertEquals(Set.of(0, 1), Set.copyOf(customerIds.stream().map(shards::shardOf).toList()));
+        for (int i = 0; i < customerIds.size(); i++) {
+            int shard = shards.shardOf(customerIds.get(i));
+            Long loanId = loanIds.get(i);
+            assertEquals(shard, shards.shardOf(loanId));
+            assertEquals(1, count(shard, "select count(*) from loan where id = ?", loanId));
+            assertEquals(0, count(1 - shard, "select count(*) from loan where id = ?", loanId));
+            assertEquals(6, count(shard, "select count(*) from loan_installment where loan_id = ?", loanId));
+        }
+    }
+
+    @Test
+    void singleCustomerCalls_shouldRouteToTheCustomersShard() {
+        // Given
+        Long customerId = createCustomerInShard(1);
+        Long loanId = createLoan(customerId);
+        InstallmentDto payment = new InstallmentDto();
+        payment.setLoanId(loanId);
+        payment.setAmount(new BigDecimal("200"));
+
+        // When
+        int paid = installmentPaymentService.payInstallment(payment).getPayedInstallment();
+
+        // Then
+        assertEquals(1, paid);
+        assertEquals(List.of(loanId), creditService.getLoanByCustomer(
+                LoanFilter.builder().customerId(customerId).build(), PageRequest.of(0, 10))
+                .getContent().stream().map(CreditDto::getId).toList());
+        assertEquals(1, loanInstallmentService.getByLoan(loanId).stream().filter(InstallmentDto::isPaid).count());
+        assertEquals(1, count(1, "select count(*) from loan_installment where loan_id = ? and is_paid", loanId));
+    }
+
+    @Test
+    void crossCustomerCalls_shouldGatherFromAllShards() throws Exception {
+        // Given
+        Long first = createLoan(createCustomerInShard(0));
+        Long second = createLoan(createCustomerInShard(1));
+
+        // When
+        Map<Long, List<InstallmentDto>> installments = loanInstallmentService.getByLoans(List.of(second, first));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        loanExportService.export(null, out);
+        int repaired = loanBalanceRepairService.repairAll().loansRepaired();
+
+        // Then
+        assertEquals(List.of(second, first), List.copyOf(installments.keySet()));
+        String export = out.toString(StandardCharsets.UTF_8);
+        assertTrue(export.contains("\"id\":" + first) && export.contains("\"id\":" + second));
+        assertTrue(repaired >= 2);
+    }
+
+    private Long createCustomerInShard(int shard) {
+        Long customerId;
+        do {
+            customerId = createCustomer();
+        } while (shards.shardOf(customerId) != shard);
+        return customerId;
+    }
+
+    private Long createCustomer() {
+        CustomerDto dto = new CustomerDto();
+        dto.setName("name");
+        dto.setSurname("surname");
+        dto.setCreditLimit(new BigDecimal("100000"));
+        dto.setUsedCreditLimit(BigDecimal.ZERO);
+        return customerService.create(dto).getId();
+    }
+
+    private Long createLoan(Long customerId) {
+        return creditService.create(new CreditDto(null, customerId, new BigDecimal("1000"), 6, new BigDecimal("0.1"))).getId();
+    }
+
+    private long count(int shard, String sql, Object... args) {
+        String url = shard == 0 ? SHARD_0_URL : SHARD_1_URL;
+        return new JdbcTemplate(new DriverManagerDataSource(url, "admin", "admin")).queryForObject(sql, Long.class, args);
+    }
+}
@@ -0,0 +1,90 @@
+package com.bank.credit.service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmortizationMethodTest {
+
+    private static final BigDecimal PRINCIPAL = new BigDecimal("10000");
+    private static final BigDecimal RATE = new BigDecimal("0.12");
+
+    @Test
+    void annuity_shouldPayEqualInstallmentsSplitIntoInterestAndPrincipal() {
+        // When
+        AmortizationSchedule schedule = AmortizationMethod.ANNUITY.schedule(PRINCIPAL, RATE, 24);
+
+        // Then
+        List<AmortizationPeriod> periods = schedule.periods();
+        assertEquals(24, periods.size());
+        // 10000 at 1% a month over 24 months
+        assertEquals(new BigDecimal("470.73"), periods.get(0).payment());
+        assertEquals(new BigDecimal("100.00"), periods.get(0).interest());
+        assertEquals(new BigDecimal("370.73"), periods.get(0).principal());
+        assertTrue(periods.subList(0, 23).stream().allMatch(period -> period.payment().equals(periods.get(0).payment())));
+        // the last payment absorbs the rounding of the others, at most half a cent each
+        assertEquals(new BigDecimal("470.86"), periods.get(23).payment());
+        assertPrincipalRepaid(schedule);
+    }
+
+    @Test
+    void annuity_shouldSplitPrincipalEqually_whenRateIsZero() {
+        // When
+        AmortizationSchedule schedule = AmortizationMethod.ANNUITY.schedule(new BigDecimal("1200"), BigDecimal.ZERO, 12);
+
+        // Then
+        assertTrue(schedule.hasEqualPayments());
+        assertEquals(0, new BigDecimal("1200").compareTo(schedule.totalPayment()));
+        assertEquals(0, schedule.totalInterest().signum());
+    }
+
+    @Test
+    void decliningBalance_shouldRepayEqualPrincipalWithDecreasingPayments() {
+        // When
+        AmortizationSchedule schedule = AmortizationMethod.DECLINING_BALANCE.schedule(PRINCIPAL, RATE, 24);
+
+        // Then
+        List<AmortizationPeriod> periods = schedule.periods();
+        assertEquals(new BigDecimal("516.67"), periods.get(0).payment());
+        assertEquals(new BigDecimal("416.67"), periods.get(0).principal());
+        for (int i = 1; i < periods.size(); i++) {
+            assertTrue(periods.get(i).payment().compareTo(periods.get(i - 1).payment()) < 0);
+        }
+        // less interest than an annuity, as the principal is repaid faster
+        assertTrue(schedule.totalInterest().compareTo(AmortizationMethod.ANNUITY.schedule(PRINCIPAL, RATE, 24).totalInterest()) < 0);
+        assertPrincipalRepaid(schedule);
+    }
+
+    @Test
+    void flat_shouldKeepTheTotalRepaymentOfLoanCalculator() {
+        // When
+        AmortizationSchedule schedule = AmortizationMethod.FLAT.schedule(PRINCIPAL, new BigDecimal("0.2"), 6);
+
+        // Then
+        assertEquals(LoanCalculator.calculateTotalRepayment(PRINCIPAL, new BigDecimal("0.2")),
+                AmortizationMethod.FLAT.totalRepayment(PRINCIPAL, new BigDecimal("0.2"), 6));
+        assertTrue(schedule.hasEqualPayments());
+        assertEquals(new BigDecimal("2000.00"), schedule.periods().get(0).payment());
+        assertEquals(0, new BigDecimal("2000").compareTo(schedule.totalInterest()));
+        assertPrincipalRepaid(schedule);
+    }
+
+    @Test
+    void totalRepayment_shouldBeTheSumOfThePayments_whenInterestIsChargedOnTheBalance() {
+        for (AmortizationMethod method : List.of(AmortizationMethod.ANNUITY, AmortizationMethod.DECLINING_BALANCE)) {
+            AmortizationSchedule schedule = method.schedule(new BigDecimal("5000"), new BigDecimal("0.3"), 9);
+            assertEquals(0, schedule.totalPayment().compareTo(method.totalRepayment(new BigDecimal("5000"), new BigDecimal("0.3"), 9)),
+                    method.name());
+        }
+    }
+
+    private static void assertPrincipalRepaid(AmortizationSchedule schedule) {
+        BigDecimal repaid = schedule.periods().stream().map(AmortizationPeriod::principal).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, PRINCIPAL.compareTo(repaid));
+        assertEquals(0, schedule.periods().get(schedule.periods().size() - 1).balance().signum());
+        assertEquals(0, schedule.totalPayment().compareTo(repaid.add(schedule.totalInterest())));
+    }
+}
@@ -0,0 +1,75 @@
+package com.bank.credit.service.util;
+
+import com.bank.credit.service.dto.BatchItem;
+import com.bank.credit.service.dto.CreditDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonItemReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldReadItemsFromJsonArray() throws IOException {
+        String body = "[{\"customerId\":1,\"loanAmount\":1000},{\"customerId\":2,\"loanAmount\":2000}]";
+
+        List<BatchItem<CreditDto>> items = readAll(body);
+
+        assertEquals(2, items.size());
+        assertEquals(0, items.get(0).index());
+        assertEquals(1L, items.get(0).value().getCustomerId());
+        assertEquals(new BigDecimal("2000"), items.get(1).value().getLoanAmount());
+    }
+
+    @Test
+    void shouldReadItemsFromNdjson() throws IOException {
+        String body = "{\"customerId\":1}\n{\"customerId\":2}\n{\"customerId\":3}\n";
+
+        List<BatchItem<CreditDto>> items = readAll(body);
+
+        assertEquals(3, items.size());
+        assertTrue(items.stream().allMatch(BatchItem::isReadable));
+        assertEquals(3L, items.get(2).value().getCustomerId());
+    }
+
+    @Test
+    void shouldReportUnbindableItem_andContinueWithNextOne() throws IOException {
+        String body = "{\"customerId\":1}\n{\"customerId\":\"abc\"}\n{\"customerId\":3}\n";
+
+        List<BatchItem<CreditDto>> items = readAll(body);
+
+        assertEquals(3, items.size());
+        assertFalse(items.get(1).isReadable());
+        assertTrue(items.get(1).error().startsWith("Invalid request format"));
+        assertEquals(3L, items.get(2).value().getCustomerId());
+    }
+
+    @Test
+    void shouldStopReading_whenJsonIsMalformed() throws IOException {
+        String body = "{\"customerId\":1}\n{\"customerId\":2\n{\"customerId\":3}\n";
+
+        List<BatchItem<CreditDto>> items = readAll(body);
+
+        assertEquals(2, items.size());
+        assertTrue(items.get(0).isReadable());
+        assertFalse(items.get(1).isReadable());
+    }
+
+    private List<BatchItem<CreditDto>> readAll(String body) throws IOException {
+        List<BatchItem<CreditDto>> items = new ArrayList<>();
+        try (JsonItemReader<CreditDto> reader = new JsonItemReader<>(objectMapper, CreditDto.class,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)))) {
+            reader.forEachRemaining(items::add);
+        }
+        return items;
+    }
+}
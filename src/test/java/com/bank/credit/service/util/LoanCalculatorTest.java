@@ -3,6 +3,8 @@ package com.bank.credit.service.util;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -57,4 +59,30 @@ public class LoanCalculatorTest {
 
         assertEquals(new BigDecimal("1600"), result);
     }
+
+    @Test
+    void minorUnitArithmetic_shouldReturnSameValueAndScaleAsBigDecimal() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 10_000_000_000L), random.nextInt(3));
+            BigDecimal installment = BigDecimal.valueOf(random.nextLong(1, 1_000_000_000L), random.nextInt(3));
+            int count = random.nextInt(1, 65);
+
+            assertEquals(amount.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP),
+                    LoanCalculator.calculateInstallmentAmount(amount, count));
+            assertEquals(amount.divideToIntegralValue(installment).intValue(),
+                    LoanCalculator.calculateInstallmentsToPay(amount, installment));
+            assertEquals(installment.multiply(BigDecimal.valueOf(count)),
+                    LoanCalculator.calculateTotalPayment(installment, count));
+        }
+    }
+
+    @Test
+    void calculateInstallmentAmount_shouldFallBackToBigDecimal_whenAmountHasMoreDecimals() {
+        BigDecimal total = new BigDecimal("1150.005");
+
+        BigDecimal result = LoanCalculator.calculateInstallmentAmount(total, 1);
+
+        assertEquals(new BigDecimal("1150.01"), result);
+    }
 }
@@ -0,0 +1,63 @@
+package com.bank.credit.service.util;
+
+import com.bank.credit.service.dto.BatchItem;
+import com.bank.credit.service.dto.InstallmentDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentCsvReaderTest {
+
+    @Test
+    void shouldReadPaymentLines_andSkipHeaderAndBlankLines() throws IOException {
+        String body = "loanId,amount\n1,250.50\n\n 2 , 1000 \n";
+
+        List<BatchItem<InstallmentDto>> items = readAll(body);
+
+        assertEquals(2, items.size());
+        assertEquals(1, items.get(0).index());
+        assertEquals(1L, items.get(0).value().getLoanId());
+        assertEquals(new BigDecimal("250.50"), items.get(0).value().getAmount());
+        assertEquals(3, items.get(1).index());
+        assertEquals(2L, items.get(1).value().getLoanId());
+    }
+
+    @Test
+    void shouldReadFirstLine_whenThereIsNoHeader() throws IOException {
+        List<BatchItem<InstallmentDto>> items = readAll("7,100\n");
+
+        assertEquals(1, items.size());
+        assertEquals(0, items.get(0).index());
+        assertEquals(7L, items.get(0).value().getLoanId());
+    }
+
+    @Test
+    void shouldReportBrokenLines_andContinueWithNextOne() throws IOException {
+        String body = "1,100\n2\nabc,100\n3,100,1\n4,100\n";
+
+        List<BatchItem<InstallmentDto>> items = readAll(body);
+
+        assertEquals(5, items.size());
+        assertTrue(items.get(0).isReadable());
+        assertFalse(items.get(1).isReadable());
+        assertEquals("Expected 2 columns (loanId,amount) but got 1", items.get(1).error());
+        assertEquals("Invalid number in line: abc,100", items.get(2).error());
+        assertFalse(items.get(3).isReadable());
+        assertEquals(4L, items.get(4).value().getLoanId());
+    }
+
+    private static List<BatchItem<InstallmentDto>> readAll(String body) throws IOException {
+        List<BatchItem<InstallmentDto>> items = new ArrayList<>();
+        try (PaymentCsvReader reader = new PaymentCsvReader(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)))) {
+            reader.forEachRemaining(items::add);
+        }
+        return items;
+    }
+}